@@ -11,8 +11,27 @@ repositories {
     mavenCentral()
 }
 
+// Benchmarks compile the plugin sources against local stand-ins of the server types in src/jmh/server,
+// so they run the real plugin code without HytaleServer.jar
+val jmh by sourceSets.creating {
+    java.srcDir("src/jmh/server")
+    java.srcDir("src/main/java")
+}
+
 dependencies {
     compileOnly(files("server/Server/HytaleServer.jar"))
+
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+    "jmhImplementation"("org.mongodb:bson:4.11.1")
+    // Shipped with the server, the plugin sources use them
+    "jmhImplementation"("it.unimi.dsi:fastutil:8.5.12")
+    "jmhImplementation"("com.google.code.findbugs:jsr305:3.0.2")
+    "jmhImplementation"("org.checkerframework:checker-compat-qual:2.5.6")
 }
 
 tasks {
@@ -29,6 +48,35 @@ tasks {
         dependsOn(shadowJar)
     }
 
+    test {
+        useJUnitPlatform()
+    }
+
+    // Keeps the plugin sources and the stand-ins free of warnings. Commands and stores set up
+    // their parts in their constructors, as the server API has them do, so this-escape is left out,
+    // and processing, as the JMH processor leaves the nullness annotations unclaimed
+    named<JavaCompile>("compileJmhJava") {
+        options.compilerArgs.addAll(listOf("-Xlint:all,-this-escape,-processing", "-Werror"))
+    }
+
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs the JMH benchmarks, pass JMH options with -PjmhArgs=\"...\""
+
+        classpath = jmh.runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        args((project.findProperty("jmhArgs")?.toString() ?: "-prof gc").split(" "))
+    }
+
+    register<JavaExec>("soak") {
+        group = "benchmark"
+        description = "Runs the headless gravestone soak simulation, pass options with -PsoakArgs=\"...\""
+
+        classpath = jmh.runtimeClasspath
+        mainClass.set("com.github.grule.gravestones.bench.soak.SoakSimulator")
+        args((project.findProperty("soakArgs")?.toString() ?: "").split(" ").filter { it.isNotBlank() })
+    }
+
     register<Exec>("runServer") {
         group = "hytale"
         description = "Sets up and runs the Hytale server"
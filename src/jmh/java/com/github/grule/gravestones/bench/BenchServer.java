@@ -0,0 +1,97 @@
+package com.github.grule.gravestones.bench;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.data.GravestoneSeed;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the Gravestones plugin on the server stand-ins in src/jmh/server.
+ * The plugin is started once per JVM with its data in a temporary folder,
+ * worlds are created after it so its systems are registered in them.
+ */
+public final class BenchServer {
+
+    /**
+     * Height of the flat terrain of bench worlds, gravestones stand on it.
+     */
+    public static final int SURFACE_Y = 64;
+
+    private static Gravestones plugin;
+
+    private BenchServer() {
+    }
+
+    /**
+     * Starts the plugin with the ledger and the metrics log off.
+     */
+    public static Gravestones start() {
+        return start(new BsonDocument()
+                .append("LedgerEnabled", BsonBoolean.FALSE)
+                .append("MetricsLogMinutes", new BsonInt32(0)));
+    }
+
+    /**
+     * Starts the plugin with the given config keys, the others keep their defaults.
+     * Later calls return the running plugin.
+     */
+    public static synchronized Gravestones start(BsonDocument settings) {
+        if (plugin == null) {
+            try {
+                Path dataDirectory = Files.createTempDirectory("gravestones-bench");
+                Files.writeString(dataDirectory.resolve("Gravestones.json"), settings.toJson());
+                plugin = new Gravestones(new JavaPluginInit(dataDirectory));
+                plugin.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return plugin;
+    }
+
+    public static World createWorld(String name) {
+        start();
+        World world = new World(name, SURFACE_Y);
+        Universe.get().addWorld(world);
+        return world;
+    }
+
+    /**
+     * Distinct stacks, so none of them merge.
+     */
+    public static List<ItemStack> items(int count) {
+        List<ItemStack> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new ItemStack("Item_" + i, 1 + i % 64));
+        }
+        return items;
+    }
+
+    /**
+     * Places a gravestone as the death system does and returns its state.
+     */
+    public static GravestoneState place(World world, int x, int y, int z, List<ItemStack> items, int pageSize) {
+        var seed = new GravestoneSeed(UUID.randomUUID(), "Player", System.currentTimeMillis(), items, pageSize);
+        GravestoneState.place(world, x, y, z, seed);
+        GravestoneState state = GravestoneState.getLoaded(world, x, y, z);
+        if (state == null || !seed.isConsumed()) {
+            throw new IllegalStateException("Gravestone was not placed at " + x + ", " + y + ", " + z);
+        }
+        state.setGravestoneUUID(UUID.randomUUID());
+        return state;
+    }
+}
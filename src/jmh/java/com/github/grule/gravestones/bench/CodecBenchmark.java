@@ -0,0 +1,124 @@
+package com.github.grule.gravestones.bench;
+
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of one gravestone through BSON, the format chunk storage saves block states in.
+ * <p>
+ * {@code compact} is GravestoneState.CODEC. {@code legacy} is the keyed layout GravestoneState wrote
+ * before the compact encoding, written by {@link #LEGACY_CODEC} from the same gravestone.
+ * The encoded size of each layout is printed once per trial.
+ * {@code decode} reads the bytes into a gravestone with GravestoneState.CODEC, {@code roundTrip} also
+ * initializes it and writes it back in the compact layout, which for {@code legacy} is the migration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    /**
+     * The keys GravestoneState wrote before the compact encoding, GravestoneState.CODEC still reads them.
+     */
+    static final BuilderCodec<GravestoneState> LEGACY_CODEC = BuilderCodec
+            .builder(GravestoneState.class, GravestoneState::new)
+            .append(new KeyedCodec<>("OwnerUUID", Codec.UUID_BINARY),
+                    (state, uuid) -> state.setOwnerUUID(uuid), GravestoneState::getOwnerUUID)
+            .add()
+            .append(new KeyedCodec<>("GravestoneUUID", Codec.UUID_BINARY),
+                    GravestoneState::setGravestoneUUID, GravestoneState::getGravestoneUUID)
+            .add()
+            .append(new KeyedCodec<>("OwnerName", Codec.STRING),
+                    GravestoneState::setOwnerName, GravestoneState::getOwnerName)
+            .add()
+            .append(new KeyedCodec<>("DeathTime", Codec.LONG),
+                    GravestoneState::setDeathTime, GravestoneState::getDeathTime)
+            .add()
+            .append(new KeyedCodec<>("AllowOthersAccess", Codec.BOOLEAN),
+                    GravestoneState::setAllowOthersAccess, GravestoneState::isAllowOthersAccess)
+            .add()
+            .append(new KeyedCodec<>("ItemContainer", SimpleItemContainer.CODEC),
+                    GravestoneState::setItemContainer, state -> (SimpleItemContainer) state.getItemContainer())
+            .add()
+            .append(new KeyedCodec<>("DynamicCapacity", Codec.SHORT),
+                    GravestoneState::setDynamicCapacity, GravestoneState::getDynamicCapacity)
+            .add()
+            .build();
+
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final BlockType GRAVESTONE = BlockType.getAssetMap().getAsset(
+            BlockType.getAssetMap().getIndex("Gravestone"));
+
+    @Param({"legacy", "compact"})
+    public String layout;
+
+    @Param({"10", "63"})
+    public int itemCount;
+
+    private GravestoneState gravestone;
+    private Codec<GravestoneState> codec;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<ItemStack> items = new ArrayList<>(this.itemCount);
+        for (int i = 0; i < this.itemCount; i++) {
+            items.add(new ItemStack("Weapon_Sword_Iron_" + i, 1 + i % 64, 80.0, 100.0, null));
+        }
+
+        var world = BenchServer.createWorld("codec-" + this.layout + "-" + this.itemCount);
+        this.gravestone = BenchServer.place(world, 0, BenchServer.SURFACE_Y, 0, items, GravestoneState.PAGE_SIZE);
+        this.codec = "legacy".equals(this.layout) ? LEGACY_CODEC : GravestoneState.CODEC;
+        this.encoded = this.encode();
+        System.out.printf("%n%s layout, %d items: %d bytes%n", this.layout, this.itemCount, this.encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return toBytes(this.codec.encode(this.gravestone, EmptyExtraInfo.EMPTY).asDocument());
+    }
+
+    @Benchmark
+    public GravestoneState decode() {
+        return GravestoneState.CODEC.decode(fromBytes(this.encoded), EmptyExtraInfo.EMPTY);
+    }
+
+    @Benchmark
+    public byte[] roundTrip() {
+        GravestoneState decoded = GravestoneState.CODEC.decode(fromBytes(this.encoded), EmptyExtraInfo.EMPTY);
+        decoded.initialize(GRAVESTONE);
+        return toBytes(GravestoneState.CODEC.encode(decoded, EmptyExtraInfo.EMPTY).asDocument());
+    }
+
+    static byte[] toBytes(BsonDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(256);
+        DOCUMENT_CODEC.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    static BsonDocument fromBytes(byte[] bytes) {
+        return DOCUMENT_CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.grule.gravestones.bench;
+
+import com.github.grule.gravestones.data.GravestoneSeed;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.world.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building one gravestone per death, block placement and the chunk system included.
+ * <p>
+ * {@code placeThenSetup} is the old path: setBlock initializes a default container,
+ * then the owner setters and setDynamicCapacity rebuild it and fill it slot by slot.
+ * {@code placeSeeded} is GravestoneState.place: one container at the exact capacity.
+ * Both replace the gravestone of the previous invocation at the same spot.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm} (bytes per death).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    private static final int Y = BenchServer.SURFACE_Y;
+
+    @Param({"10", "36", "63"})
+    public int itemCount;
+
+    private final UUID owner = UUID.randomUUID();
+    private List<ItemStack> items;
+    private World world;
+
+    @Setup
+    public void setup() {
+        this.items = BenchServer.items(this.itemCount);
+        this.world = BenchServer.createWorld("construction-" + this.itemCount);
+    }
+
+    @Benchmark
+    public GravestoneState placeThenSetup() {
+        this.world.setBlock(0, Y, 0, "Gravestone");
+        GravestoneState gravestone = GravestoneState.getLoaded(this.world, 0, Y, 0);
+        gravestone.setOwnerUUID(this.owner);
+        gravestone.setOwnerName("Player");
+        gravestone.setDeathTime(1L);
+        gravestone.setDynamicCapacity((short) Math.min(GravestoneState.PAGE_SIZE, this.items.size()));
+
+        var container = gravestone.getItemContainer();
+        short slot = 0;
+        for (ItemStack item : this.items) {
+            if (slot >= container.getCapacity()) {
+                break;
+            }
+            container.addItemStackToSlot(slot++, item);
+        }
+        return gravestone;
+    }
+
+    @Benchmark
+    public GravestoneState placeSeeded() {
+        var seed = new GravestoneSeed(this.owner, "Player", 1L, this.items, GravestoneState.PAGE_SIZE);
+        GravestoneState.place(this.world, 0, Y, 0, seed);
+        return GravestoneState.getLoaded(this.world, 0, Y, 0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.grule.gravestones.bench;
+
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on the container of a filled gravestone.
+ * <p>
+ * {@code setDynamicCapacity} resizes a filled gravestone to one more slot, which rebuilds the container.
+ * {@code isContainerEmpty} is the counter based check run on every item change,
+ * {@code isContainerEmptyScan} the slot scan it replaced, run over the same container.
+ * {@code takeAll} empties a gravestone holding two pages slot by slot, every change reacted to on its own,
+ * {@code takeAllBatched} does the same inside GravestoneState.beginBatch() and endBatch(). Both report the save marks made.
+ * Filling the container of a new gravestone is covered by {@link ConstructionBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+    private static final int Y = BenchServer.SURFACE_Y;
+
+    @Param({"10", "63"})
+    public int itemCount;
+
+    private List<ItemStack> items;
+    private World world;
+    private GravestoneState gravestone;
+
+    @Setup
+    public void setup() {
+        this.items = BenchServer.items(this.itemCount);
+        this.world = BenchServer.createWorld("container-" + this.itemCount);
+
+        // setDynamicCapacity rebuilds the container even at the same capacity, so one gravestone is enough
+        this.gravestone = BenchServer.place(this.world, 0, Y, 0, this.items, this.itemCount);
+    }
+
+    @Benchmark
+    public GravestoneState setDynamicCapacity() {
+        this.gravestone.setDynamicCapacity((short) (this.itemCount + 1));
+        return this.gravestone;
+    }
+
+    @Benchmark
+    public boolean isContainerEmpty() {
+        return this.gravestone.isContainerEmpty();
+    }
+
+    @Benchmark
+    public boolean isContainerEmptyScan() {
+        ItemContainer container = this.gravestone.getItemContainer();
+        for (short slot = 0; slot < container.getCapacity(); slot++) {
+            if (!ItemStack.isEmpty(container.getItemStack(slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public int takeAll(Loot loot) {
+        while (!loot.gravestone.isContainerEmpty()) {
+            takePage(loot.gravestone);
+        }
+        return loot.gravestone.getSaveRequests() - loot.saveRequests;
+    }
+
+    @Benchmark
+    public int takeAllBatched(Loot loot) {
+        // Each batch takes the visible page, ending it pulls in the next one
+        while (!loot.gravestone.isContainerEmpty()) {
+            loot.gravestone.beginBatch();
+            try {
+                takePage(loot.gravestone);
+            } finally {
+                loot.gravestone.endBatch();
+            }
+        }
+        return loot.gravestone.getSaveRequests() - loot.saveRequests;
+    }
+
+    private static void takePage(GravestoneState gravestone) {
+        var container = gravestone.getItemContainer();
+        for (short slot = 0; slot < container.getCapacity(); slot++) {
+            if (!ItemStack.isEmpty(container.getItemStack(slot))) {
+                container.removeItemStackFromSlot(slot);
+            }
+        }
+    }
+
+    /**
+     * A freshly filled gravestone per invocation, one visible page and one overflow page.
+     * The world ticks first, which breaks the gravestone emptied by the previous invocation.
+     */
+    @State(Scope.Thread)
+    public static class Loot {
+
+        public GravestoneState gravestone;
+        public int saveRequests;
+
+        @Setup(Level.Invocation)
+        public void setup(ContainerBenchmark benchmark) {
+            benchmark.world.tick();
+
+            List<ItemStack> items = new ArrayList<>(benchmark.items);
+            items.addAll(benchmark.items);
+            this.gravestone = BenchServer.place(benchmark.world, 2, Y, 0, items, benchmark.itemCount);
+            this.saveRequests = this.gravestone.getSaveRequests();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.grule.gravestones.bench;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.asset.type.gameplay.DeathConfig;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.modules.entity.damage.DeathComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of GravestoneDeathSystem.getLostItems for one death.
+ * <p>
+ * The inventory is refilled before every invocation since both modes take items out of it.
+ * Every tenth slot holds an item that stays with the player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LostItemsBenchmark {
+
+    private static final short INVENTORY_CAPACITY = 63;
+
+    @Param({"ALL", "CONFIGURED"})
+    public DeathConfig.ItemsLossMode mode;
+
+    @Param({"10", "63"})
+    public int itemCount;
+
+    @Param({"50.0"})
+    public double lossPercentage;
+
+    private Gravestones plugin;
+    private ItemStack[] items;
+    private Store<EntityStore> store;
+    private Ref<EntityStore> ref;
+    private Inventory inventory;
+    private DeathComponent deathComponent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = BenchServer.start();
+        this.items = new ItemStack[this.itemCount];
+        for (int i = 0; i < this.itemCount; i++) {
+            String itemId = "Item_" + i;
+            if (i % 10 == 9) {
+                itemId += "_Kept";
+                Item.register(new Item(itemId, Item.DEFAULT_MAX_STACK, false));
+            }
+            this.items[i] = new ItemStack(itemId, 1 + i % 64);
+        }
+
+        this.store = BenchServer.createWorld("lost-items-" + this.mode + "-" + this.itemCount).getEntityStore().getStore();
+        this.inventory = new Inventory(INVENTORY_CAPACITY);
+        Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+        holder.addComponent(Player.getComponentType(), new Player(GameMode.Adventure, this.inventory));
+        this.ref = this.store.addEntity(holder, AddReason.SPAWN);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillInventory() {
+        this.inventory.dropAllItemStacks();
+        var container = this.inventory.getCombinedEverything();
+        for (short i = 0; i < this.items.length; i++) {
+            container.addItemStackToSlot(i, this.items[i]);
+        }
+        this.deathComponent = new DeathComponent(this.mode, this.lossPercentage);
+    }
+
+    @Benchmark
+    public List<ItemStack> getLostItems() {
+        return this.plugin.getDeathSystem().getLostItems(this.ref, this.deathComponent, this.store);
+    }
+}
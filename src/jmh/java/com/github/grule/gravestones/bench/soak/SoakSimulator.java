@@ -0,0 +1,522 @@
+package com.github.grule.gravestones.bench.soak;
+
+import com.github.grule.gravestones.bench.BenchServer;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.github.grule.gravestones.world.PackedPosition;
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.component.*;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.asset.type.gameplay.DeathConfig;
+import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.entity.entities.player.windows.ContainerBlockWindow;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.damage.DeathComponent;
+import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockStateModule;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.*;
+
+/**
+ * Headless soak run of the gravestone lifecycle: the plugin runs on the server stand-ins in src/jmh/server.
+ * <p>
+ * Deaths add a DeathComponent to player entities, so GravestoneDeathSystem, the creation queue and the placement
+ * search run as on a server. Loots take stacks out of the gravestone containers, destroys break the blocks,
+ * and chunk unloads and reloads save and load the gravestones through GravestoneState.CODEC.
+ * Everything is driven from a seeded random, so a run is reproducible, and the world ticks after every operation.
+ * Reports throughput and retained heap as it goes and checks for leftover listeners, windows, tasks
+ * and index entries at the end, and that no gravestone takes a stack a player puts in.
+ * <p>
+ * Run with {@code ./gradlew soak -PsoakArgs="deaths=500000 seed=7"}, every option is key=value:
+ * <ul>
+ *     <li>{@code deaths} deaths to simulate (300000)</li>
+ *     <li>{@code seed} random seed (1)</li>
+ *     <li>{@code players} distinct players (2000)</li>
+ *     <li>{@code chunks} width of the square area of chunks deaths happen in (32)</li>
+ *     <li>{@code burst} deaths in one burst (200)</li>
+ *     <li>{@code report} deaths between progress reports (50000)</li>
+ *     <li>{@code dormant} gravestones loaded for the dormant footprint, 0 skips it (100000)</li>
+ * </ul>
+ * The dormant footprint is the retained heap of gravestones loaded from saves and never opened,
+ * the common case in loaded graveyard regions.
+ */
+public class SoakSimulator {
+
+    private static final int MAX_LOST_STACKS = 100;
+    private static final int CHUNK_SIZE = ChunkUtil.SIZE;
+    private static final int DORMANT_STACKS = 10;
+    // Ticks allowed for pending breaks and drops to settle before the leftover check
+    private static final int SETTLE_TICKS = 100;
+
+    private final SplittableRandom random;
+    private final int deaths;
+    private final int chunks;
+    private final int burst;
+    private final int report;
+    private final int dormant;
+
+    private final World world;
+    private final GravestoneWorld gravestoneWorld;
+    private final ComponentType<ChunkStore, GravestoneState> gravestoneType;
+    private final Store<EntityStore> entityStore;
+    private final List<Ref<EntityStore>> players;
+    // Positions of gravestones added to the chunk store, for picking a random loaded one
+    private final LongArrayList loadedGraves = new LongArrayList();
+    // Item entities spawned during the last tick, despawned after it
+    private final List<Ref<EntityStore>> drops = new ObjectArrayList<>();
+
+    private long deathCount;
+    private long lootCount;
+    private long destroyCount;
+    private long unloadCount;
+    private long reloadCount;
+    private long burstCount;
+    private long droppedStacks;
+    private long reportNanos;
+
+    public SoakSimulator(Map<String, String> options) {
+        this.random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "1")));
+        this.deaths = Integer.parseInt(options.getOrDefault("deaths", "300000"));
+        this.chunks = Integer.parseInt(options.getOrDefault("chunks", "32"));
+        this.burst = Integer.parseInt(options.getOrDefault("burst", "200"));
+        this.report = Integer.parseInt(options.getOrDefault("report", "50000"));
+        this.dormant = Integer.parseInt(options.getOrDefault("dormant", "100000"));
+
+        // The soak's own systems are registered before the world is created, as the plugin's are
+        var plugin = BenchServer.start();
+        this.gravestoneType = BlockStateModule.get().getComponentType(GravestoneState.class);
+        ChunkStore.REGISTRY.registerSystem(new GraveTracker());
+        EntityStore.REGISTRY.registerSystem(new DropTracker());
+        this.world = BenchServer.createWorld("soak");
+        this.gravestoneWorld = plugin.getGravestoneWorld(this.world);
+        this.entityStore = this.world.getEntityStore().getStore();
+
+        int players = Integer.parseInt(options.getOrDefault("players", "2000"));
+        this.players = new ObjectArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            this.players.add(this.spawnPlayer(new UUID(this.random.nextLong(), this.random.nextLong()), "Player" + i));
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+
+        boolean clean = new SoakSimulator(options).run();
+        System.exit(clean ? 0 : 1);
+    }
+
+    /**
+     * Runs the simulation, returns whether no leftovers were found.
+     */
+    public boolean run() {
+        long baselineHeap = retainedHeap();
+        long start = System.nanoTime();
+        long intervalStart = start;
+        long nextReport = this.report;
+
+        while (this.deathCount < this.deaths) {
+            int roll = this.random.nextInt(100);
+            if (roll < 25) {
+                this.death();
+            } else if (roll < 80) {
+                this.loot();
+            } else if (roll < 84) {
+                this.destroy();
+            } else if (roll < 92) {
+                this.unload();
+            } else {
+                this.reload();
+            }
+
+            this.tick();
+
+            if (this.deathCount >= nextReport) {
+                this.report(baselineHeap, System.nanoTime() - intervalStart, this.report);
+                // Leave the GC of the report out of the next interval
+                intervalStart = System.nanoTime();
+                nextReport += this.report;
+            }
+        }
+
+        double seconds = (System.nanoTime() - start - this.reportNanos) / 1e9;
+        System.out.printf("Finished %d deaths in %.1f s, %.0f deaths/s%n", this.deathCount, seconds, this.deathCount / seconds);
+        System.out.printf("Operations: %d loots, %d destroys, %d unloads, %d reloads, %d bursts, %d stacks dropped%n",
+                this.lootCount, this.destroyCount, this.unloadCount, this.reloadCount, this.burstCount, this.droppedStacks);
+        boolean clean = this.checkLeftovers();
+        if (this.dormant > 0) {
+            clean &= this.reportDormantFootprint();
+        }
+        return clean;
+    }
+
+    /**
+     * One world tick, then the items it dropped are picked up.
+     */
+    private void tick() {
+        this.world.tick();
+        for (Ref<EntityStore> drop : this.drops) {
+            if (drop.isValid()) {
+                this.entityStore.removeEntity(drop, RemoveReason.REMOVE);
+            }
+        }
+        this.drops.clear();
+    }
+
+    /**
+     * Saves gravestones of distinct owners with GravestoneState.CODEC and loads them back the way chunk loads do,
+     * decoded and initialized but never opened, then reports the retained heap per gravestone, its stacks included.
+     * Returns false if one of them takes a stack once opened.
+     */
+    private boolean reportDormantFootprint() {
+        World source = BenchServer.createWorld("soak-dormant");
+        BlockType blockType = BlockType.getAssetMap().getAsset(BlockType.getAssetMap().getIndex("Gravestone"));
+        byte[][] saves = new byte[this.players.size()][];
+        for (int i = 0; i < saves.length; i++) {
+            List<ItemStack> items = new ArrayList<>(DORMANT_STACKS);
+            for (int j = 0; j < DORMANT_STACKS; j++) {
+                items.add(new ItemStack("Item_" + this.random.nextInt(400), 1 + this.random.nextInt(64)));
+            }
+
+            GravestoneState gravestone = BenchServer.place(source, i, BenchServer.SURFACE_Y, 0, items, GravestoneState.PAGE_SIZE);
+            BsonDocument document = GravestoneState.CODEC.encode(gravestone, EmptyExtraInfo.EMPTY).asDocument();
+            saves[i] = toBytes(document);
+        }
+        Universe.get().removeWorld(source);
+        source = null;
+
+        long before = retainedHeap();
+        GravestoneState[] loaded = new GravestoneState[this.dormant];
+        for (int i = 0; i < loaded.length; i++) {
+            GravestoneState gravestone = GravestoneState.CODEC.decode(new RawBsonDocument(saves[i % saves.length]), EmptyExtraInfo.EMPTY);
+            gravestone.initialize(blockType);
+            loaded[i] = gravestone;
+        }
+        long retained = retainedHeap() - before;
+        Reference.reachabilityFence(loaded);
+
+        // Opened only now, after the measurement
+        int acceptedInserts = 0;
+        for (GravestoneState gravestone : loaded) {
+            if (!rejectsInserts(gravestone)) {
+                acceptedInserts++;
+            }
+        }
+
+        System.out.printf("Dormant: %,d gravestones of %d stacks, %,d B retained each, %d accepted inserts%n",
+                loaded.length, DORMANT_STACKS, retained / loaded.length, acceptedInserts);
+        return acceptedInserts == 0;
+    }
+
+    private Ref<EntityStore> spawnPlayer(UUID uuid, String name) {
+        PlayerRef playerRef = new PlayerRef(uuid, name);
+        Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+        holder.addComponent(PlayerRef.getComponentType(), playerRef);
+        holder.addComponent(Player.getComponentType(), new Player(GameMode.Adventure, new Inventory((short) MAX_LOST_STACKS)));
+        holder.addComponent(UUIDComponent.getComponentType(), new UUIDComponent(uuid));
+        holder.addComponent(TransformComponent.getComponentType(), new TransformComponent(new Vector3d(0, 0, 0), Vector3f.ZERO));
+        holder.addComponent(HeadRotation.getComponentType(), new HeadRotation(Vector3f.ZERO));
+
+        Ref<EntityStore> ref = this.entityStore.addEntity(holder, AddReason.SPAWN);
+        playerRef.setReference(ref);
+        Universe.get().addPlayer(playerRef);
+        return ref;
+    }
+
+    private void death() {
+        if (this.random.nextInt(1000) == 0) {
+            // Mass death in a single chunk, like a lost raid
+            this.burstCount++;
+            int chunkX = this.random.nextInt(this.chunks);
+            int chunkZ = this.random.nextInt(this.chunks);
+            for (int i = 0; i < this.burst && this.deathCount < this.deaths; i++) {
+                this.die(chunkX * CHUNK_SIZE + this.random.nextInt(CHUNK_SIZE), chunkZ * CHUNK_SIZE + this.random.nextInt(CHUNK_SIZE));
+            }
+            return;
+        }
+
+        this.die(this.random.nextInt(this.chunks * CHUNK_SIZE), this.random.nextInt(this.chunks * CHUNK_SIZE));
+    }
+
+    /**
+     * A player with a random inventory dies standing on the ground, GravestoneDeathSystem queues the gravestone.
+     */
+    private void die(int x, int z) {
+        this.deathCount++;
+        Ref<EntityStore> player = this.players.get(this.random.nextInt(this.players.size()));
+
+        // Players only die in loaded chunks
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        if (this.world.getChunkIfLoaded(chunkIndex) == null) {
+            this.load(chunkIndex);
+        }
+
+        var combined = this.entityStore.getComponent(player, Player.getComponentType()).getInventory().getCombinedEverything();
+        int stacks = 1 + this.random.nextInt(MAX_LOST_STACKS);
+        for (short slot = 0; slot < stacks; slot++) {
+            combined.addItemStackToSlot(slot, new ItemStack("Item_" + this.random.nextInt(400), 1 + this.random.nextInt(64)));
+        }
+
+        this.entityStore.getComponent(player, TransformComponent.getComponentType())
+                .setPosition(new Vector3d(x + 0.5, BenchServer.SURFACE_Y, z + 0.5));
+        this.entityStore.addComponent(player, DeathComponent.getComponentType(),
+                new DeathComponent(DeathConfig.ItemsLossMode.ALL, 0.0));
+        // Respawned
+        this.entityStore.removeComponent(player, DeathComponent.getComponentType());
+    }
+
+    /**
+     * The owner opens a gravestone, takes some stacks and closes it again.
+     * Taking the last stack breaks the gravestone on the next tick.
+     */
+    private void loot() {
+        GravestoneState gravestone = this.pickLoaded();
+        if (gravestone == null) {
+            return;
+        }
+
+        this.lootCount++;
+        UUID looter = gravestone.getOwnerUUID();
+        gravestone.getWindows().put(looter, new ContainerBlockWindow());
+
+        // Most players empty the page they see, some only grab a few stacks
+        int take = this.random.nextInt(10) < 6 ? GravestoneState.PAGE_SIZE : 1 + this.random.nextInt(24);
+        var container = gravestone.getItemContainer();
+        for (short slot = 0; slot < container.getCapacity() && take > 0; slot++) {
+            if (!ItemStack.isEmpty(container.getItemStack(slot))) {
+                container.removeItemStackFromSlot(slot);
+                take--;
+            }
+        }
+
+        gravestone.getWindows().remove(looter);
+    }
+
+    private void destroy() {
+        GravestoneState gravestone = this.pickLoaded();
+        if (gravestone == null) {
+            return;
+        }
+
+        this.destroyCount++;
+        Vector3i pos = gravestone.getBlockPosition();
+        this.world.breakBlock(pos.x, pos.y, pos.z, 0);
+    }
+
+    private void unload() {
+        long chunkIndex = ChunkUtil.indexChunk(this.random.nextInt(this.chunks), this.random.nextInt(this.chunks));
+        if (this.world.getChunkIfLoaded(chunkIndex) != null) {
+            this.unloadCount++;
+            this.world.unloadChunk(chunkIndex);
+        }
+    }
+
+    private void reload() {
+        long chunkIndex = ChunkUtil.indexChunk(this.random.nextInt(this.chunks), this.random.nextInt(this.chunks));
+        if (this.world.getChunkIfLoaded(chunkIndex) == null) {
+            this.load(chunkIndex);
+        }
+    }
+
+    private void load(long chunkIndex) {
+        this.reloadCount++;
+        this.world.getChunk(chunkIndex);
+    }
+
+    /**
+     * A random gravestone in a loaded chunk, or null if there is none.
+     * Positions that were broken or unloaded since they were added are dropped on the way.
+     */
+    private GravestoneState pickLoaded() {
+        while (!this.loadedGraves.isEmpty()) {
+            int i = this.random.nextInt(this.loadedGraves.size());
+            long pos = this.loadedGraves.getLong(i);
+            GravestoneState gravestone = GravestoneState.getLoaded(
+                    this.world, PackedPosition.x(pos), PackedPosition.y(pos), PackedPosition.z(pos));
+            if (gravestone != null) {
+                return gravestone;
+            }
+
+            // Swap remove, order doesn't matter
+            int last = this.loadedGraves.size() - 1;
+            this.loadedGraves.set(i, this.loadedGraves.getLong(last));
+            this.loadedGraves.removeLong(last);
+        }
+        return null;
+    }
+
+    /**
+     * The gravestones of the loaded chunks.
+     */
+    private List<GravestoneState> loadedGravestones() {
+        Store<ChunkStore> chunkStore = this.world.getChunkStore().getStore();
+        List<GravestoneState> gravestones = new ArrayList<>();
+        for (long chunkIndex : this.world.getLoadedChunkIndexes()) {
+            for (Ref<ChunkStore> ref : this.world.getChunkIfLoaded(chunkIndex).statesView().values()) {
+                GravestoneState gravestone = chunkStore.getComponent(ref, this.gravestoneType);
+                if (gravestone != null) {
+                    gravestones.add(gravestone);
+                }
+            }
+        }
+        return gravestones;
+    }
+
+    private void report(long baselineHeap, long intervalNanos, int intervalDeaths) {
+        long reportStart = System.nanoTime();
+        long heap = retainedHeap() - baselineHeap;
+        int live = this.gravestoneWorld.getIndex().size();
+        int loaded = this.gravestoneWorld.getIndex().loadedSize();
+        long savedBytes = this.world.getSavedBytes();
+        System.out.printf(
+                "%,9d deaths | %,8.0f deaths/s | %,7d live (%,d loaded) | retained %,d KiB, %,d B per live, %,d B per loaded excluding saves%n",
+                this.deathCount,
+                intervalDeaths / (intervalNanos / 1e9),
+                live, loaded,
+                heap / 1024,
+                live == 0 ? 0 : heap / live,
+                loaded == 0 ? 0 : Math.max(0, heap - savedBytes) / loaded
+        );
+        this.reportNanos += System.nanoTime() - reportStart;
+    }
+
+    private boolean checkLeftovers() {
+        // Let queued deaths, pending self breaks and the tasks they post finish
+        for (int i = 0; i < SETTLE_TICKS && (this.world.getPendingTaskCount() > 0
+                || !this.gravestoneWorld.getCreationQueue().isEmpty()); i++) {
+            this.tick();
+        }
+
+        int extraListeners = 0;
+        int openWindows = 0;
+        int emptyGraves = 0;
+        int acceptedInserts = 0;
+        List<GravestoneState> gravestones = this.loadedGravestones();
+        for (GravestoneState gravestone : gravestones) {
+            // Opening builds the container of dormant gravestones, every gravestone listens to it exactly once
+            extraListeners += Math.max(0, gravestone.getItemContainer().getListenerCount() - 1);
+            openWindows += gravestone.getWindows().size();
+            if (gravestone.isContainerEmpty()) {
+                emptyGraves++;
+            }
+            if (!rejectsInserts(gravestone)) {
+                acceptedInserts++;
+            }
+        }
+
+        var index = this.gravestoneWorld.getIndex();
+        int live = gravestones.size() + this.world.getSavedStateCount();
+        int indexDrift = Math.abs(index.size() - live);
+        int pendingTasks = this.world.getPendingTaskCount();
+
+        System.out.printf("Leftovers: %d extra listeners, %d open windows, %d empty gravestones, %d accepted inserts, "
+                        + "%d index entries off, %d pending tasks%n",
+                extraListeners, openWindows, emptyGraves, acceptedInserts, indexDrift, pendingTasks);
+        System.out.printf("Index: %d gravestones of %d owners%n", index.size(), index.ownerCount());
+        return extraListeners == 0 && openWindows == 0 && emptyGraves == 0 && acceptedInserts == 0
+                && indexDrift == 0 && pendingTasks == 0;
+    }
+
+    /**
+     * Whether a player putting a stack into the gravestone is refused, as every gravestone must,
+     * whether its container was built when it loaded or only now.
+     * The probes stack onto stored stacks, a full container must not refuse them just for lack of room.
+     */
+    private static boolean rejectsInserts(GravestoneState gravestone) {
+        ItemContainer container = gravestone.getItemContainer();
+        for (short slot = 0; slot < container.getCapacity(); slot++) {
+            ItemStack stored = container.getItemStack(slot);
+            if (!ItemStack.isEmpty(stored) && container.addItemStack(stored.withQuantity(1)).succeeded()) {
+                return false;
+            }
+        }
+        return !container.addItemStack(new ItemStack("Soak_Probe", 1)).succeeded();
+    }
+
+    private static byte[] toBytes(BsonDocument document) {
+        RawBsonDocument raw = new RawBsonDocument(document, new BsonDocumentCodec());
+        byte[] bytes = new byte[raw.getByteBuffer().remaining()];
+        raw.getByteBuffer().get(bytes);
+        return bytes;
+    }
+
+    private static long retainedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Records where gravestones are added to the chunk store, placed or loaded.
+     */
+    private final class GraveTracker extends RefSystem<ChunkStore> {
+
+        @Override
+        public Query<ChunkStore> getQuery() {
+            return SoakSimulator.this.gravestoneType;
+        }
+
+        @Override
+        public void onEntityAdded(Ref<ChunkStore> ref, AddReason reason, Store<ChunkStore> store, CommandBuffer<ChunkStore> commandBuffer) {
+            Vector3i pos = store.getComponent(ref, SoakSimulator.this.gravestoneType).getBlockPosition();
+            SoakSimulator.this.loadedGraves.add(PackedPosition.pack(pos.x, pos.y, pos.z));
+        }
+
+        @Override
+        public void onEntityRemove(Ref<ChunkStore> ref, RemoveReason reason, Store<ChunkStore> store, CommandBuffer<ChunkStore> commandBuffer) {
+            // Dropped lazily by pickLoaded
+        }
+    }
+
+    /**
+     * Counts the stacks dropped as item entities, they are picked up after the tick.
+     */
+    private final class DropTracker extends RefSystem<EntityStore> {
+
+        @Override
+        public Query<EntityStore> getQuery() {
+            return ItemComponent.getComponentType();
+        }
+
+        @Override
+        public void onEntityAdded(Ref<EntityStore> ref, AddReason reason, Store<EntityStore> store, CommandBuffer<EntityStore> commandBuffer) {
+            SoakSimulator.this.droppedStacks++;
+            SoakSimulator.this.drops.add(ref);
+        }
+
+        @Override
+        public void onEntityRemove(Ref<EntityStore> ref, RemoveReason reason, Store<EntityStore> store, CommandBuffer<EntityStore> commandBuffer) {
+        }
+    }
+}
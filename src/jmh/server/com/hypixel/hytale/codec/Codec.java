@@ -0,0 +1,40 @@
+package com.hypixel.hytale.codec;
+
+import org.bson.*;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for the server's BSON codec, values are converted to and from BSON values.
+ */
+public interface Codec<T> {
+
+    Codec<Integer> INTEGER = of(BsonInt32::new, value -> value.asNumber().intValue());
+    Codec<Short> SHORT = of(value -> new BsonInt32(value), value -> (short) value.asNumber().intValue());
+    Codec<Long> LONG = of(BsonInt64::new, value -> value.asNumber().longValue());
+    Codec<Double> DOUBLE = of(BsonDouble::new, value -> value.asNumber().doubleValue());
+    Codec<Boolean> BOOLEAN = of(BsonBoolean::valueOf, value -> value.asBoolean().getValue());
+    Codec<String> STRING = of(BsonString::new, value -> value.asString().getValue());
+    Codec<UUID> UUID_BINARY = of(
+            value -> new BsonBinary(value, UuidRepresentation.STANDARD),
+            value -> value.asBinary().asUuid(UuidRepresentation.STANDARD)
+    );
+
+    T decode(BsonValue value, ExtraInfo extraInfo);
+
+    BsonValue encode(T value, ExtraInfo extraInfo);
+
+    private static <T> Codec<T> of(java.util.function.Function<T, BsonValue> encoder, java.util.function.Function<BsonValue, T> decoder) {
+        return new Codec<>() {
+            @Override
+            public T decode(BsonValue value, ExtraInfo extraInfo) {
+                return decoder.apply(value);
+            }
+
+            @Override
+            public BsonValue encode(T value, ExtraInfo extraInfo) {
+                return encoder.apply(value);
+            }
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.hypixel.hytale.codec;
+
+/**
+ * Stand-in for the context used outside of asset loading.
+ */
+public class EmptyExtraInfo extends ExtraInfo {
+
+    public static final EmptyExtraInfo EMPTY = new EmptyExtraInfo();
+}
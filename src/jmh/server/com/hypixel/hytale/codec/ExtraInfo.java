@@ -0,0 +1,7 @@
+package com.hypixel.hytale.codec;
+
+/**
+ * Stand-in for the codec context passed through encode and decode.
+ */
+public class ExtraInfo {
+}
@@ -0,0 +1,23 @@
+package com.hypixel.hytale.codec;
+
+/**
+ * Stand-in for a codec stored under a key of a document.
+ */
+public class KeyedCodec<T> {
+
+    private final String key;
+    private final Codec<T> codec;
+
+    public KeyedCodec(String key, Codec<T> codec) {
+        this.key = key;
+        this.codec = codec;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public Codec<T> getChildCodec() {
+        return this.codec;
+    }
+}
@@ -0,0 +1,135 @@
+package com.hypixel.hytale.codec.builder;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.ExtraInfo;
+import com.hypixel.hytale.codec.KeyedCodec;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Stand-in for the server's object codec: a document with one key per appended field.
+ * Fields whose getter returns null are left out, missing keys leave the field as constructed.
+ * Fields of the parent codec come first. Abstract codecs have no constructor, they only pass their fields on.
+ */
+public class BuilderCodec<T> implements Codec<T> {
+
+    @Nullable
+    private final Supplier<T> constructor;
+    private final List<Field<T, ?>> fields;
+
+    private BuilderCodec(@Nullable Supplier<T> constructor, List<Field<T, ?>> fields) {
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> constructor) {
+        return new Builder<>(constructor, null);
+    }
+
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> constructor, BuilderCodec<? super T> parent) {
+        return new Builder<>(constructor, parent);
+    }
+
+    public static <T> Builder<T> abstractBuilder(Class<T> type) {
+        return new Builder<>(null, null);
+    }
+
+    @Override
+    public T decode(BsonValue value, ExtraInfo extraInfo) {
+        if (this.constructor == null) {
+            throw new IllegalStateException("Abstract codec, decode with a codec built on it");
+        }
+        T object = this.constructor.get();
+        this.decodeInto(value.asDocument(), object, extraInfo);
+        return object;
+    }
+
+    @Override
+    public BsonValue encode(T value, ExtraInfo extraInfo) {
+        BsonDocument document = new BsonDocument();
+        for (Field<T, ?> field : this.fields) {
+            field.encode(value, document, extraInfo);
+        }
+        return document;
+    }
+
+    public void decodeInto(BsonDocument document, T object, ExtraInfo extraInfo) {
+        for (Field<T, ?> field : this.fields) {
+            field.decode(document, object, extraInfo);
+        }
+    }
+
+    private record Field<T, F>(KeyedCodec<F> codec, BiConsumer<T, F> setter, Function<T, F> getter) {
+
+        @SuppressWarnings("unchecked")
+        private static <T, F> Field<T, F> inherited(Field<? super T, F> field) {
+            return (Field<T, F>) field;
+        }
+
+        void encode(T object, BsonDocument document, ExtraInfo extraInfo) {
+            F value = this.getter.apply(object);
+            if (value != null) {
+                document.put(this.codec.getKey(), this.codec.getChildCodec().encode(value, extraInfo));
+            }
+        }
+
+        void decode(BsonDocument document, T object, ExtraInfo extraInfo) {
+            BsonValue value = document.get(this.codec.getKey());
+            if (value != null && !value.isNull()) {
+                this.setter.accept(object, this.codec.getChildCodec().decode(value, extraInfo));
+            }
+        }
+    }
+
+    public static class Builder<T> {
+
+        @Nullable
+        private final Supplier<T> constructor;
+        private final List<Field<T, ?>> fields = new ArrayList<>();
+
+        private Builder(@Nullable Supplier<T> constructor, @Nullable BuilderCodec<? super T> parent) {
+            this.constructor = constructor;
+            if (parent != null) {
+                for (Field<? super T, ?> field : parent.fields) {
+                    this.fields.add(Field.inherited(field));
+                }
+            }
+        }
+
+        public <F> FieldBuilder<T, F> append(KeyedCodec<F> codec, BiConsumer<T, F> setter, Function<T, F> getter) {
+            return new FieldBuilder<>(this, new Field<>(codec, setter, getter));
+        }
+
+        public <F> FieldBuilder<T, F> appendInherited(
+                KeyedCodec<F> codec, BiConsumer<T, F> setter, Function<T, F> getter, BiConsumer<T, T> inherit) {
+            return this.append(codec, setter, getter);
+        }
+
+        public BuilderCodec<T> build() {
+            return new BuilderCodec<>(this.constructor, List.copyOf(this.fields));
+        }
+    }
+
+    public static class FieldBuilder<T, F> {
+
+        private final Builder<T> builder;
+        private final Field<T, F> field;
+
+        private FieldBuilder(Builder<T> builder, Field<T, F> field) {
+            this.builder = builder;
+            this.field = field;
+        }
+
+        public Builder<T> add() {
+            this.builder.fields.add(this.field);
+            return this.builder;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hypixel.hytale.codec.codecs.array;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.ExtraInfo;
+import org.bson.BsonArray;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+
+import java.util.function.IntFunction;
+
+/**
+ * Stand-in for the array codec, elements are written to a BSON array in order, null ones as BSON null.
+ */
+public class ArrayCodec<T> implements Codec<T[]> {
+
+    private final Codec<T> codec;
+    private final IntFunction<T[]> factory;
+
+    public ArrayCodec(Codec<T> codec, IntFunction<T[]> factory) {
+        this.codec = codec;
+        this.factory = factory;
+    }
+
+    @Override
+    public T[] decode(BsonValue value, ExtraInfo extraInfo) {
+        BsonArray array = value.asArray();
+        T[] result = this.factory.apply(array.size());
+        for (int i = 0; i < result.length; i++) {
+            BsonValue element = array.get(i);
+            result[i] = element.isNull() ? null : this.codec.decode(element, extraInfo);
+        }
+        return result;
+    }
+
+    @Override
+    public BsonValue encode(T[] value, ExtraInfo extraInfo) {
+        BsonArray array = new BsonArray(value.length);
+        for (T element : value) {
+            array.add(element == null ? BsonNull.VALUE : this.codec.encode(element, extraInfo));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,6 @@
+package com.hypixel.hytale.component;
+
+public enum AddReason {
+    SPAWN,
+    LOAD
+}
@@ -0,0 +1,18 @@
+package com.hypixel.hytale.component;
+
+/**
+ * Stand-in for the deferred changes of a system, reads go straight to the store.
+ */
+public class CommandBuffer<ECS> implements ComponentAccessor<ECS> {
+
+    private final Store<ECS> store;
+
+    public CommandBuffer(Store<ECS> store) {
+        this.store = store;
+    }
+
+    @Override
+    public <T> T getComponent(Ref<ECS> ref, ComponentType<ECS, T> componentType) {
+        return this.store.getComponent(ref, componentType);
+    }
+}
@@ -0,0 +1,9 @@
+package com.hypixel.hytale.component;
+
+/**
+ * Stand-in for read access to the components of an entity.
+ */
+public interface ComponentAccessor<ECS> {
+
+    <T> T getComponent(Ref<ECS> ref, ComponentType<ECS, T> componentType);
+}
@@ -0,0 +1,27 @@
+package com.hypixel.hytale.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for the component and system registry of a store type.
+ * Systems registered before a store is created are installed into it.
+ */
+public class ComponentRegistry<ECS> {
+
+    private final List<Object> systems = new ArrayList<>();
+
+    public Holder<ECS> newHolder() {
+        return new Holder<>();
+    }
+
+    public void registerSystem(Object system) {
+        this.systems.add(system);
+    }
+
+    public void install(Store<ECS> store) {
+        for (Object system : this.systems) {
+            store.registerSystem(system);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hypixel.hytale.component;
+
+import com.hypixel.hytale.component.query.Query;
+
+import java.util.function.Supplier;
+
+/**
+ * Stand-in for a registered component type, also usable as the query for entities that have it.
+ */
+public class ComponentType<ECS, T> implements Query<ECS> {
+
+    private final String name;
+    private final Supplier<T> factory;
+
+    public ComponentType(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public T create() {
+        return this.factory.get();
+    }
+
+    @Override
+    public boolean test(Holder<ECS> holder) {
+        return holder.getComponent(this) != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentType{" + this.name + "}";
+    }
+}
@@ -0,0 +1,34 @@
+package com.hypixel.hytale.component;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for the components of one entity, before and after it is added to a store.
+ */
+public class Holder<ECS> {
+
+    private final Map<ComponentType<ECS, ?>, Object> components = new IdentityHashMap<>(4);
+
+    public <T> void addComponent(ComponentType<ECS, T> componentType, T component) {
+        this.components.put(componentType, component);
+    }
+
+    public <T> T ensureComponent(ComponentType<ECS, T> componentType) {
+        T component = this.getComponent(componentType);
+        if (component == null) {
+            component = componentType.create();
+            this.components.put(componentType, component);
+        }
+        return component;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getComponent(ComponentType<ECS, T> componentType) {
+        return (T) this.components.get(componentType);
+    }
+
+    public <T> void removeComponent(ComponentType<ECS, T> componentType) {
+        this.components.remove(componentType);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hypixel.hytale.component;
+
+/**
+ * Stand-in for a reference to an entity of a store, invalid once the entity is removed.
+ */
+public class Ref<ECS> {
+
+    private final Store<ECS> store;
+    final Holder<ECS> holder;
+    boolean valid = true;
+
+    Ref(Store<ECS> store, Holder<ECS> holder) {
+        this.store = store;
+        this.holder = holder;
+    }
+
+    public boolean isValid() {
+        return this.valid;
+    }
+
+    public Store<ECS> getStore() {
+        return this.store;
+    }
+}
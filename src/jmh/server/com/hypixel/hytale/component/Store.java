@@ -0,0 +1,110 @@
+package com.hypixel.hytale.component;
+
+import com.hypixel.hytale.component.system.RefChangeSystem;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stand-in for an entity store. Entities are holders behind refs,
+ * registered ref systems hear about the entities matching their query as they are added and removed.
+ */
+public class Store<ECS> implements ComponentAccessor<ECS> {
+
+    private final ECS externalData;
+    private final List<RefSystem<ECS>> refSystems = new ArrayList<>();
+    private final List<RefChangeSystem<ECS, ?>> refChangeSystems = new ArrayList<>();
+    private final List<TickingSystem<ECS>> tickingSystems = new ArrayList<>();
+    private final Set<Ref<ECS>> entities = Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+
+    public Store(ECS externalData) {
+        this.externalData = externalData;
+    }
+
+    public ECS getExternalData() {
+        return this.externalData;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void registerSystem(Object system) {
+        if (system instanceof RefSystem<?> refSystem) {
+            this.refSystems.add((RefSystem<ECS>) refSystem);
+        } else if (system instanceof RefChangeSystem<?, ?> refChangeSystem) {
+            this.refChangeSystems.add((RefChangeSystem<ECS, ?>) refChangeSystem);
+        } else if (system instanceof TickingSystem<?> tickingSystem) {
+            this.tickingSystems.add((TickingSystem<ECS>) tickingSystem);
+        } else {
+            throw new IllegalArgumentException("Unsupported system " + system);
+        }
+    }
+
+    /**
+     * Runs the ticking systems once.
+     */
+    public void tick(float dt) {
+        for (int i = 0; i < this.tickingSystems.size(); i++) {
+            this.tickingSystems.get(i).tick(dt, i, this);
+        }
+    }
+
+    /**
+     * Adds a component to an entity, the ref change systems of its type react to it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addComponent(Ref<ECS> ref, ComponentType<ECS, T> componentType, T component) {
+        ref.holder.addComponent(componentType, component);
+        for (RefChangeSystem<ECS, ?> system : this.refChangeSystems) {
+            if (system.componentType() == componentType && system.getQuery().test(ref.holder)) {
+                ((RefChangeSystem<ECS, T>) system).onComponentAdded(ref, component, this, new CommandBuffer<>(this));
+            }
+        }
+    }
+
+    public <T> void removeComponent(Ref<ECS> ref, ComponentType<ECS, T> componentType) {
+        ref.holder.removeComponent(componentType);
+    }
+
+    @Override
+    public <T> T getComponent(Ref<ECS> ref, ComponentType<ECS, T> componentType) {
+        return ref.valid ? ref.holder.getComponent(componentType) : null;
+    }
+
+    public Ref<ECS> addEntity(Holder<ECS> holder, AddReason reason) {
+        Ref<ECS> ref = new Ref<>(this, holder);
+        this.entities.add(ref);
+        for (RefSystem<ECS> system : this.refSystems) {
+            if (system.getQuery().test(holder)) {
+                system.onEntityAdded(ref, reason, this, new CommandBuffer<>(this));
+            }
+        }
+        return ref;
+    }
+
+    public void addEntities(Holder<ECS>[] holders, AddReason reason) {
+        for (Holder<ECS> holder : holders) {
+            this.addEntity(holder, reason);
+        }
+    }
+
+    public void removeEntity(Ref<ECS> ref, RemoveReason reason) {
+        if (!ref.valid) {
+            throw new IllegalStateException("Entity already removed");
+        }
+
+        for (RefSystem<ECS> system : this.refSystems) {
+            if (system.getQuery().test(ref.holder)) {
+                system.onEntityRemove(ref, reason, this, new CommandBuffer<>(this));
+            }
+        }
+        ref.valid = false;
+        this.entities.remove(ref);
+    }
+
+    public Set<Ref<ECS>> getEntities() {
+        return Collections.unmodifiableSet(this.entities);
+    }
+}
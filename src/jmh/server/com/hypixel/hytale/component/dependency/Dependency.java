@@ -0,0 +1,10 @@
+package com.hypixel.hytale.component.dependency;
+
+/**
+ * Stand-in for an ordering constraint between systems.
+ */
+public abstract class Dependency<ECS> {
+
+    protected Dependency(Order order) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.hypixel.hytale.component.dependency;
+
+public enum Order {
+    BEFORE,
+    AFTER
+}
@@ -0,0 +1,11 @@
+package com.hypixel.hytale.component.dependency;
+
+/**
+ * Stand-in for running before or after another system, systems run in the order they were registered.
+ */
+public class SystemDependency<ECS, S> extends Dependency<ECS> {
+
+    public SystemDependency(Order order, Class<S> system) {
+        super(order);
+    }
+}
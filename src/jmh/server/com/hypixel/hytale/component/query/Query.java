@@ -0,0 +1,23 @@
+package com.hypixel.hytale.component.query;
+
+import com.hypixel.hytale.component.Holder;
+
+/**
+ * Stand-in for an entity query.
+ */
+public interface Query<ECS> {
+
+    boolean test(Holder<ECS> holder);
+
+    @SafeVarargs
+    static <ECS> Query<ECS> and(Query<ECS>... queries) {
+        return holder -> {
+            for (Query<ECS> query : queries) {
+                if (!query.test(holder)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.hypixel.hytale.component.system;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.dependency.Dependency;
+import com.hypixel.hytale.component.query.Query;
+
+import java.util.Set;
+
+/**
+ * Stand-in for a system told when a component is added to an entity matching its query.
+ */
+public abstract class RefChangeSystem<ECS, T> {
+
+    public abstract Query<ECS> getQuery();
+
+    public abstract ComponentType<ECS, T> componentType();
+
+    public Set<Dependency<ECS>> getDependencies() {
+        return Set.of();
+    }
+
+    public abstract void onComponentAdded(Ref<ECS> ref, T component, Store<ECS> store, CommandBuffer<ECS> commandBuffer);
+}
@@ -0,0 +1,20 @@
+package com.hypixel.hytale.component.system;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+
+/**
+ * Stand-in for a system told about entities matching its query as they are added and removed.
+ */
+public abstract class RefSystem<ECS> {
+
+    public abstract Query<ECS> getQuery();
+
+    public abstract void onEntityAdded(Ref<ECS> ref, AddReason reason, Store<ECS> store, CommandBuffer<ECS> commandBuffer);
+
+    public abstract void onEntityRemove(Ref<ECS> ref, RemoveReason reason, Store<ECS> store, CommandBuffer<ECS> commandBuffer);
+}
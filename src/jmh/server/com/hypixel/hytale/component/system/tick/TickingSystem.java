@@ -0,0 +1,11 @@
+package com.hypixel.hytale.component.system.tick;
+
+import com.hypixel.hytale.component.Store;
+
+/**
+ * Stand-in for a system ticked once per store tick.
+ */
+public abstract class TickingSystem<ECS> {
+
+    public abstract void tick(float dt, int systemIndex, Store<ECS> store);
+}
@@ -0,0 +1,9 @@
+package com.hypixel.hytale.event;
+
+public enum EventPriority {
+    FIRST,
+    EARLY,
+    NORMAL,
+    LATE,
+    LAST
+}
@@ -0,0 +1,39 @@
+package com.hypixel.hytale.logger;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stand-in for the server's fluent logger on top of java.util.logging.
+ */
+public class HytaleLogger {
+
+    private static final HytaleLogger GLOBAL = new HytaleLogger(Logger.getLogger("Hytale"));
+
+    private final Logger logger;
+
+    public HytaleLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static HytaleLogger getLogger() {
+        return GLOBAL;
+    }
+
+    public Api at(Level level) {
+        return new Api(this.logger, level, null);
+    }
+
+    public record Api(Logger logger, Level level, Throwable cause) {
+
+        public Api withCause(Throwable cause) {
+            return new Api(this.logger, this.level, cause);
+        }
+
+        public void log(String message, Object... args) {
+            if (this.logger.isLoggable(this.level)) {
+                this.logger.log(this.level, args.length == 0 ? message : String.format(message, args), this.cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hypixel.hytale.math.util;
+
+/**
+ * Stand-in for the chunk index math, chunks are 32 blocks wide.
+ */
+public final class ChunkUtil {
+
+    public static final int BITS = 5;
+    public static final int SIZE = 1 << BITS;
+
+    private ChunkUtil() {
+    }
+
+    public static long indexChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static long indexChunkFromBlock(int x, int z) {
+        return indexChunk(x >> BITS, z >> BITS);
+    }
+
+    public static int xOfChunkIndex(long index) {
+        return (int) (index >> 32);
+    }
+
+    public static int zOfChunkIndex(long index) {
+        return (int) index;
+    }
+}
@@ -0,0 +1,14 @@
+package com.hypixel.hytale.math.util;
+
+/**
+ * Stand-in for the server's math helpers.
+ */
+public final class MathUtil {
+
+    private MathUtil() {
+    }
+
+    public static int floor(double value) {
+        return (int) Math.floor(value);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hypixel.hytale.math.vector;
+
+/**
+ * Stand-in for the server's mutable double vector.
+ */
+public class Vector3d {
+
+    public double x;
+    public double y;
+    public double z;
+
+    public Vector3d() {
+    }
+
+    public Vector3d(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public Vector3d add(double x, double y, double z) {
+        this.x += x;
+        this.y += y;
+        this.z += z;
+        return this;
+    }
+
+    @Override
+    public Vector3d clone() {
+        return new Vector3d(this.x, this.y, this.z);
+    }
+}
@@ -0,0 +1,27 @@
+package com.hypixel.hytale.math.vector;
+
+/**
+ * Stand-in for the server's mutable float vector.
+ */
+public class Vector3f {
+
+    public static final Vector3f ZERO = new Vector3f();
+
+    public float x;
+    public float y;
+    public float z;
+
+    public Vector3f() {
+    }
+
+    public Vector3f(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    @Override
+    public Vector3f clone() {
+        return new Vector3f(this.x, this.y, this.z);
+    }
+}
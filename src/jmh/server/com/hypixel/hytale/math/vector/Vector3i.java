@@ -0,0 +1,21 @@
+package com.hypixel.hytale.math.vector;
+
+/**
+ * Stand-in for the server's mutable int vector.
+ */
+public class Vector3i {
+
+    public int x;
+    public int y;
+    public int z;
+
+    public Vector3i(int x, int y, int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public Vector3d toVector3d() {
+        return new Vector3d(this.x, this.y, this.z);
+    }
+}
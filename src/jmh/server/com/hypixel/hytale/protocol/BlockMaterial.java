@@ -0,0 +1,6 @@
+package com.hypixel.hytale.protocol;
+
+public enum BlockMaterial {
+    Empty,
+    Solid
+}
@@ -0,0 +1,19 @@
+package com.hypixel.hytale.server.core;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Stand-in for the server's shared scheduler.
+ */
+public final class HytaleServer {
+
+    public static final ScheduledExecutorService SCHEDULED_EXECUTOR = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "HytaleServer-Scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HytaleServer() {
+    }
+}
@@ -0,0 +1,51 @@
+package com.hypixel.hytale.server.core;
+
+import java.awt.Color;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for a chat message, raw text or a translation key with parameters. Colors are not kept.
+ * Every change returns a copy, so shared constants stay untouched.
+ */
+public class Message {
+
+    private final String text;
+    private final Map<String, Object> params;
+
+    private Message(String text, Map<String, Object> params) {
+        this.text = text;
+        this.params = params;
+    }
+
+    public static Message raw(String text) {
+        return new Message(text, Map.of());
+    }
+
+    public static Message translation(String key) {
+        return new Message(key, Map.of());
+    }
+
+    public Message param(String key, String value) {
+        return this.withParam(key, value);
+    }
+
+    public Message param(String key, int value) {
+        return this.withParam(key, value);
+    }
+
+    public Message color(Color color) {
+        return new Message(this.text, this.params);
+    }
+
+    private Message withParam(String key, Object value) {
+        Map<String, Object> params = new LinkedHashMap<>(this.params);
+        params.put(key, value);
+        return new Message(this.text, params);
+    }
+
+    @Override
+    public String toString() {
+        return this.params.isEmpty() ? this.text : this.text + " " + this.params;
+    }
+}
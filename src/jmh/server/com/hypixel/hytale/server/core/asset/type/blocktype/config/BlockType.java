@@ -0,0 +1,85 @@
+package com.hypixel.hytale.server.core.asset.type.blocktype.config;
+
+import com.hypixel.hytale.protocol.BlockMaterial;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for a block type asset: empty, a solid ground block, a replaceable plant and the gravestone.
+ */
+public class BlockType {
+
+    public static final int EMPTY_ID = 0;
+    public static final int ROCK_ID = 1;
+    public static final int GRASS_ID = 2;
+
+    private static final AssetMap ASSET_MAP = new AssetMap();
+
+    static {
+        ASSET_MAP.register(new BlockType("Empty", BlockMaterial.Empty, null));
+        ASSET_MAP.register(new BlockType("Rock_Stone", BlockMaterial.Solid, null));
+        ASSET_MAP.register(new BlockType("Plant_Grass", BlockMaterial.Empty, null));
+        ASSET_MAP.register(new BlockType("Gravestone", BlockMaterial.Solid, "Gravestone"));
+    }
+
+    private final String id;
+    private final BlockMaterial material;
+    @Nullable
+    private final String stateId;
+
+    public BlockType(String id, BlockMaterial material, @Nullable String stateId) {
+        this.id = id;
+        this.material = material;
+        this.stateId = stateId;
+    }
+
+    public static AssetMap getAssetMap() {
+        return ASSET_MAP;
+    }
+
+    public BlockMaterial getMaterial() {
+        return this.material;
+    }
+
+    /**
+     * Name of the block state created with the block, null for plain blocks.
+     */
+    @Nullable
+    public String getStateId() {
+        return this.stateId;
+    }
+
+    @Nullable
+    public StateData getState() {
+        return null;
+    }
+
+    public static class AssetMap {
+
+        private final List<BlockType> byIndex = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        public int register(BlockType blockType) {
+            this.byIndex.add(blockType);
+            this.indexes.put(blockType.id, this.byIndex.size() - 1);
+            return this.byIndex.size() - 1;
+        }
+
+        @Nullable
+        public BlockType getAsset(int index) {
+            return index >= 0 && index < this.byIndex.size() ? this.byIndex.get(index) : null;
+        }
+
+        public int getIndex(String id) {
+            Integer index = this.indexes.get(id);
+            if (index == null) {
+                throw new IllegalArgumentException("Unknown block type " + id);
+            }
+            return index;
+        }
+    }
+}
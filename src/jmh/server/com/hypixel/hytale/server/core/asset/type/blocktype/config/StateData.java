@@ -0,0 +1,19 @@
+package com.hypixel.hytale.server.core.asset.type.blocktype.config;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+/**
+ * Stand-in for the block state settings of a block type asset.
+ */
+public class StateData {
+
+    public static final BuilderCodec<StateData> DEFAULT_CODEC = BuilderCodec.builder(StateData.class, StateData::new).build();
+
+    protected StateData() {
+    }
+
+    @Override
+    public String toString() {
+        return "StateData{}";
+    }
+}
@@ -0,0 +1,13 @@
+package com.hypixel.hytale.server.core.asset.type.gameplay;
+
+/**
+ * Stand-in for the death settings of a world.
+ */
+public class DeathConfig {
+
+    public enum ItemsLossMode {
+        NONE,
+        ALL,
+        CONFIGURED
+    }
+}
@@ -0,0 +1,40 @@
+package com.hypixel.hytale.server.core.asset.type.item.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for an item asset. Items that were not registered stack to {@link #DEFAULT_MAX_STACK} and drop on death.
+ */
+public class Item {
+
+    public static final int DEFAULT_MAX_STACK = 100;
+
+    private static final Map<String, Item> ITEMS = new ConcurrentHashMap<>();
+
+    private final String id;
+    private final int maxStack;
+    private final boolean dropsOnDeath;
+
+    public Item(String id, int maxStack, boolean dropsOnDeath) {
+        this.id = id;
+        this.maxStack = maxStack;
+        this.dropsOnDeath = dropsOnDeath;
+    }
+
+    public static void register(Item item) {
+        ITEMS.put(item.id, item);
+    }
+
+    public static Item get(String id) {
+        return ITEMS.computeIfAbsent(id, key -> new Item(key, DEFAULT_MAX_STACK, true));
+    }
+
+    public int getMaxStack() {
+        return this.maxStack;
+    }
+
+    public boolean dropsOnDeath() {
+        return this.dropsOnDeath;
+    }
+}
@@ -0,0 +1,25 @@
+package com.hypixel.hytale.server.core.command.system;
+
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+/**
+ * Stand-in for the base of every command, the benchmarks don't run commands.
+ */
+public abstract class AbstractCommand {
+
+    protected AbstractCommand(String name, String description) {
+    }
+
+    protected void requirePermission(String permission) {
+    }
+
+    protected <T> RequiredArg<T> withRequiredArg(String name, String description, ArgumentType<T> type) {
+        return new RequiredArg<>(name, type);
+    }
+
+    protected <T> OptionalArg<T> withOptionalArg(String name, String description, ArgumentType<T> type) {
+        return new OptionalArg<>(name, type);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hypixel.hytale.server.core.command.system;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.arguments.system.Argument;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stand-in for the context of one command run, the benchmarks don't run commands.
+ */
+public class CommandContext {
+
+    public boolean provided(Argument<?> argument) {
+        return false;
+    }
+
+    @Nullable
+    public String getInput(String name) {
+        return null;
+    }
+
+    public void sendMessage(Message message) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.hypixel.hytale.server.core.command.system.arguments.system;
+
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+/**
+ * Stand-in for a declared command argument.
+ */
+public abstract class Argument<T> {
+
+    private final String name;
+    private final ArgumentType<T> type;
+
+    protected Argument(String name, ArgumentType<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public T get(CommandContext context) {
+        String input = context.getInput(this.name);
+        return input != null ? this.type.parse(input) : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.hypixel.hytale.server.core.command.system.arguments.system;
+
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+/**
+ * Stand-in for an optional command argument.
+ */
+public class OptionalArg<T> extends Argument<T> {
+
+    public OptionalArg(String name, ArgumentType<T> type) {
+        super(name, type);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hypixel.hytale.server.core.command.system.arguments.system;
+
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+/**
+ * Stand-in for a required command argument.
+ */
+public class RequiredArg<T> extends Argument<T> {
+
+    public RequiredArg(String name, ArgumentType<T> type) {
+        super(name, type);
+    }
+}
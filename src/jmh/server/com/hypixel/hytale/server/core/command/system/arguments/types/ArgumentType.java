@@ -0,0 +1,10 @@
+package com.hypixel.hytale.server.core.command.system.arguments.types;
+
+/**
+ * Stand-in for the parser of an argument value.
+ */
+@FunctionalInterface
+public interface ArgumentType<T> {
+
+    T parse(String input);
+}
@@ -0,0 +1,16 @@
+package com.hypixel.hytale.server.core.command.system.basecommands;
+
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+
+/**
+ * Stand-in for a command made of subcommands.
+ */
+public abstract class AbstractCommandCollection extends AbstractCommand {
+
+    protected AbstractCommandCollection(String name, String description) {
+        super(name, description);
+    }
+
+    protected void addSubCommand(AbstractCommand command) {
+    }
+}
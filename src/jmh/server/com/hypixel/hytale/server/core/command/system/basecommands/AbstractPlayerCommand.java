@@ -0,0 +1,27 @@
+package com.hypixel.hytale.server.core.command.system.basecommands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for commands run by a player on the thread of their world.
+ */
+public abstract class AbstractPlayerCommand extends AbstractCommand {
+
+    protected AbstractPlayerCommand(String name, String description) {
+        super(name, description);
+    }
+
+    protected abstract void execute(
+            CommandContext context, Store<EntityStore> store, Ref<EntityStore> ref, PlayerRef playerRef, World world);
+
+    public void run(CommandContext context, PlayerRef playerRef, World world) {
+        Ref<EntityStore> ref = playerRef.getReference();
+        world.execute(() -> this.execute(context, world.getEntityStore().getStore(), ref, playerRef, world));
+    }
+}
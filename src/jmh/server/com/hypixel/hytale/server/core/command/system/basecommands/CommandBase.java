@@ -0,0 +1,20 @@
+package com.hypixel.hytale.server.core.command.system.basecommands;
+
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+/**
+ * Stand-in for commands run synchronously on the command thread.
+ */
+public abstract class CommandBase extends AbstractCommand {
+
+    protected CommandBase(String name, String description) {
+        super(name, description);
+    }
+
+    protected abstract void executeSync(CommandContext context);
+
+    public void run(CommandContext context) {
+        this.executeSync(context);
+    }
+}
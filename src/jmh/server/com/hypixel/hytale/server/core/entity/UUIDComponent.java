@@ -0,0 +1,33 @@
+package com.hypixel.hytale.server.core.entity;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for the persistent UUID of an entity.
+ */
+public class UUIDComponent {
+
+    private static final ComponentType<EntityStore, UUIDComponent> TYPE =
+            new ComponentType<>("UUID", UUIDComponent::new);
+
+    private final UUID uuid;
+
+    public UUIDComponent() {
+        this(UUID.randomUUID());
+    }
+
+    public UUIDComponent(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public static ComponentType<EntityStore, UUIDComponent> getComponentType() {
+        return TYPE;
+    }
+
+    public UUID getUuid() {
+        return this.uuid;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hypixel.hytale.server.core.entity.entities;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the player component: game mode, inventory and chat.
+ */
+public class Player {
+
+    private static final ComponentType<EntityStore, Player> TYPE =
+            new ComponentType<>("Player", () -> new Player(GameMode.Adventure, new Inventory((short) 36)));
+
+    private final GameMode gameMode;
+    private final Inventory inventory;
+
+    public Player(GameMode gameMode, Inventory inventory) {
+        this.gameMode = gameMode;
+        this.inventory = inventory;
+    }
+
+    public static ComponentType<EntityStore, Player> getComponentType() {
+        return TYPE;
+    }
+
+    public GameMode getGameMode() {
+        return this.gameMode;
+    }
+
+    public Inventory getInventory() {
+        return this.inventory;
+    }
+
+    public void sendMessage(Message message) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.hypixel.hytale.server.core.entity.entities.player.windows;
+
+/**
+ * Stand-in for the window a player has open on a container block.
+ */
+public class ContainerBlockWindow {
+
+    public void close() {
+    }
+}
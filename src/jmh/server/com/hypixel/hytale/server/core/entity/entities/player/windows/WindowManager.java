@@ -0,0 +1,20 @@
+package com.hypixel.hytale.server.core.entity.entities.player.windows;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stand-in for the window manager of players.
+ */
+public final class WindowManager {
+
+    private WindowManager() {
+    }
+
+    public static void closeAndRemoveAll(Map<UUID, ContainerBlockWindow> windows) {
+        for (ContainerBlockWindow window : windows.values()) {
+            window.close();
+        }
+        windows.clear();
+    }
+}
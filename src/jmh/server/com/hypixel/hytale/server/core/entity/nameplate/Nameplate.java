@@ -0,0 +1,27 @@
+package com.hypixel.hytale.server.core.entity.nameplate;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the floating text of an entity.
+ */
+public class Nameplate {
+
+    private static final ComponentType<EntityStore, Nameplate> TYPE =
+            new ComponentType<>("Nameplate", () -> new Nameplate(""));
+
+    private String text;
+
+    public Nameplate(String text) {
+        this.text = text;
+    }
+
+    public static ComponentType<EntityStore, Nameplate> getComponentType() {
+        return TYPE;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
@@ -0,0 +1,7 @@
+package com.hypixel.hytale.server.core.event.events.permissions;
+
+/**
+ * Stand-in for a permission change of a whole group.
+ */
+public class GroupPermissionChangeEvent {
+}
@@ -0,0 +1,19 @@
+package com.hypixel.hytale.server.core.event.events.permissions;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for a change of the groups of one player.
+ */
+public class PlayerGroupEvent {
+
+    private final UUID playerUuid;
+
+    public PlayerGroupEvent(UUID playerUuid) {
+        this.playerUuid = playerUuid;
+    }
+
+    public UUID getPlayerUuid() {
+        return this.playerUuid;
+    }
+}
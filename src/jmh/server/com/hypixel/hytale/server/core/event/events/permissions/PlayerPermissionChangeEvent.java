@@ -0,0 +1,19 @@
+package com.hypixel.hytale.server.core.event.events.permissions;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for a permission change of one player.
+ */
+public class PlayerPermissionChangeEvent {
+
+    private final UUID playerUuid;
+
+    public PlayerPermissionChangeEvent(UUID playerUuid) {
+        this.playerUuid = playerUuid;
+    }
+
+    public UUID getPlayerUuid() {
+        return this.playerUuid;
+    }
+}
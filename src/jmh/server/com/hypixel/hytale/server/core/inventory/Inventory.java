@@ -0,0 +1,26 @@
+package com.hypixel.hytale.server.core.inventory;
+
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import java.util.List;
+
+/**
+ * Stand-in for a player's inventory, one container standing in for all of its sections.
+ */
+public class Inventory {
+
+    private final SimpleItemContainer combined;
+
+    public Inventory(short capacity) {
+        this.combined = new SimpleItemContainer(capacity);
+    }
+
+    public ItemContainer getCombinedEverything() {
+        return this.combined;
+    }
+
+    public List<ItemStack> dropAllItemStacks() {
+        return this.combined.dropAllItemStacks();
+    }
+}
@@ -0,0 +1,95 @@
+package com.hypixel.hytale.server.core.inventory;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Stand-in for the server's immutable item stack, encoded with the same keys.
+ */
+public class ItemStack {
+
+    public static final BuilderCodec<ItemStack> CODEC = BuilderCodec.builder(ItemStack.class, ItemStack::new)
+            .append(new KeyedCodec<>("Id", Codec.STRING), (stack, id) -> stack.itemId = id, stack -> stack.itemId)
+            .add()
+            .append(new KeyedCodec<>("Quantity", Codec.INTEGER), (stack, quantity) -> stack.quantity = quantity, stack -> stack.quantity)
+            .add()
+            .append(new KeyedCodec<>("Durability", Codec.DOUBLE), (stack, durability) -> stack.durability = durability,
+                    stack -> stack.maxDurability > 0.0 ? stack.durability : null)
+            .add()
+            .append(new KeyedCodec<>("MaxDurability", Codec.DOUBLE), (stack, durability) -> stack.maxDurability = durability,
+                    stack -> stack.maxDurability > 0.0 ? stack.maxDurability : null)
+            .add()
+            .append(new KeyedCodec<>("Metadata", Codec.STRING), (stack, metadata) -> stack.metadata = metadata, stack -> stack.metadata)
+            .add()
+            .build();
+
+    private String itemId;
+    private int quantity = 1;
+    private double durability;
+    private double maxDurability;
+    @Nullable
+    private String metadata;
+
+    protected ItemStack() {
+    }
+
+    public ItemStack(String itemId, int quantity) {
+        this(itemId, quantity, 0.0, 0.0, null);
+    }
+
+    public ItemStack(String itemId, int quantity, double durability, double maxDurability, @Nullable String metadata) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.durability = durability;
+        this.maxDurability = maxDurability;
+        this.metadata = metadata;
+    }
+
+    public static boolean isEmpty(@Nullable ItemStack itemStack) {
+        return itemStack == null || itemStack.quantity <= 0;
+    }
+
+    public String getItemId() {
+        return this.itemId;
+    }
+
+    public Item getItem() {
+        return Item.get(this.itemId);
+    }
+
+    public int getQuantity() {
+        return this.quantity;
+    }
+
+    public ItemStack withQuantity(int quantity) {
+        return new ItemStack(this.itemId, quantity, this.durability, this.maxDurability, this.metadata);
+    }
+
+    public boolean isStackableWith(@Nullable ItemStack other) {
+        return other != null
+                && this.itemId.equals(other.itemId)
+                && this.durability == other.durability
+                && this.maxDurability == other.maxDurability
+                && Objects.equals(this.metadata, other.metadata);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ItemStack other && this.quantity == other.quantity && this.isStackableWith(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.itemId, this.quantity, this.durability, this.maxDurability, this.metadata);
+    }
+
+    @Override
+    public String toString() {
+        return this.quantity + "x " + this.itemId;
+    }
+}
@@ -0,0 +1,180 @@
+package com.hypixel.hytale.server.core.inventory.container;
+
+import com.hypixel.hytale.event.EventPriority;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.filter.FilterType;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.ListTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.SlotTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.Transaction;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for the server's item container: slots that report every change as a transaction
+ * to the registered change listeners. The global filter applies to stacks put in by players,
+ * {@code filter = false} bypasses it.
+ */
+public abstract class ItemContainer {
+
+    public record ItemContainerChangeEvent(ItemContainer container, Transaction transaction) {
+    }
+
+    @FunctionalInterface
+    public interface ShortFunction<T> {
+        T apply(short value);
+    }
+
+    private final List<Consumer<ItemContainerChangeEvent>> listeners = new ArrayList<>(1);
+    private FilterType globalFilter = FilterType.ALLOW_ALL;
+
+    public abstract short getCapacity();
+
+    @Nullable
+    public abstract ItemStack getItemStack(short slot);
+
+    protected abstract void setItemStack(short slot, @Nullable ItemStack itemStack);
+
+    /**
+     * Returns the container if it has the capacity, otherwise a new one with the stacks that fit,
+     * the others are added to the remainder.
+     */
+    public static <T extends ItemContainer> T ensureContainerCapacity(
+            @Nullable T existing, short capacity, ShortFunction<T> factory, List<ItemStack> remainder) {
+        if (existing != null && existing.getCapacity() == capacity) {
+            return existing;
+        }
+
+        T container = factory.apply(capacity);
+        if (existing != null) {
+            for (short i = 0; i < existing.getCapacity(); i++) {
+                ItemStack itemStack = existing.getItemStack(i);
+                if (ItemStack.isEmpty(itemStack)) {
+                    continue;
+                }
+                if (i < capacity) {
+                    container.setItemStack(i, itemStack);
+                } else {
+                    remainder.add(itemStack);
+                }
+            }
+        }
+        return container;
+    }
+
+    public void setGlobalFilter(FilterType filter) {
+        this.globalFilter = filter;
+    }
+
+    public void registerChangeEvent(EventPriority priority, Consumer<ItemContainerChangeEvent> listener) {
+        this.listeners.add(listener);
+    }
+
+    public int getListenerCount() {
+        return this.listeners.size();
+    }
+
+    public SlotTransaction addItemStackToSlot(short slot, ItemStack itemStack) {
+        return this.addItemStackToSlot(slot, itemStack, false, true);
+    }
+
+    public SlotTransaction addItemStackToSlot(short slot, ItemStack itemStack, boolean allOrNothing, boolean filter) {
+        ItemStack before = this.getItemStack(slot);
+        if ((filter && !this.globalFilter.allowInput()) || !ItemStack.isEmpty(before)) {
+            return this.changed(new SlotTransaction(false, slot, before, before));
+        }
+        this.setItemStack(slot, itemStack);
+        return this.changed(new SlotTransaction(true, slot, before, itemStack));
+    }
+
+    public SlotTransaction replaceItemStackInSlot(short slot, @Nullable ItemStack expected, @Nullable ItemStack itemStack) {
+        ItemStack before = this.getItemStack(slot);
+        if (before != expected) {
+            return this.changed(new SlotTransaction(false, slot, before, before));
+        }
+        this.setItemStack(slot, itemStack);
+        return this.changed(new SlotTransaction(true, slot, before, itemStack));
+    }
+
+    public SlotTransaction removeItemStackFromSlot(short slot) {
+        ItemStack before = this.getItemStack(slot);
+        this.setItemStack(slot, null);
+        return this.changed(new SlotTransaction(!ItemStack.isEmpty(before), slot, before, null));
+    }
+
+    /**
+     * Merges the stack into stackable slots first, then into empty ones.
+     */
+    public ItemStackTransaction addItemStack(ItemStack itemStack) {
+        return this.changed(this.add(itemStack));
+    }
+
+    public ListTransaction<ItemStackTransaction> addItemStacks(List<ItemStack> itemStacks) {
+        List<ItemStackTransaction> transactions = new ArrayList<>(itemStacks.size());
+        for (ItemStack itemStack : itemStacks) {
+            transactions.add(this.add(itemStack));
+        }
+        return this.changed(new ListTransaction<>(transactions));
+    }
+
+    public List<ItemStack> dropAllItemStacks() {
+        List<ItemStack> dropped = new ArrayList<>();
+        List<SlotTransaction> transactions = new ArrayList<>();
+        for (short i = 0; i < this.getCapacity(); i++) {
+            ItemStack itemStack = this.getItemStack(i);
+            if (!ItemStack.isEmpty(itemStack)) {
+                dropped.add(itemStack);
+                this.setItemStack(i, null);
+                transactions.add(new SlotTransaction(true, i, itemStack, null));
+            }
+        }
+        this.changed(new ListTransaction<>(transactions));
+        return dropped;
+    }
+
+    private ItemStackTransaction add(ItemStack itemStack) {
+        if (!this.globalFilter.allowInput()) {
+            return new ItemStackTransaction(false, itemStack, List.of());
+        }
+
+        List<SlotTransaction> slots = new ArrayList<>(1);
+        int maxStack = itemStack.getItem().getMaxStack();
+        int remaining = itemStack.getQuantity();
+        for (int pass = 0; pass < 2 && remaining > 0; pass++) {
+            for (short i = 0; i < this.getCapacity() && remaining > 0; i++) {
+                ItemStack current = this.getItemStack(i);
+                ItemStack after;
+                if (pass == 0 && !ItemStack.isEmpty(current) && current.isStackableWith(itemStack) && current.getQuantity() < maxStack) {
+                    int moved = Math.min(remaining, maxStack - current.getQuantity());
+                    after = current.withQuantity(current.getQuantity() + moved);
+                    remaining -= moved;
+                } else if (pass == 1 && ItemStack.isEmpty(current)) {
+                    int moved = Math.min(remaining, maxStack);
+                    after = itemStack.withQuantity(moved);
+                    remaining -= moved;
+                } else {
+                    continue;
+                }
+                this.setItemStack(i, after);
+                slots.add(new SlotTransaction(true, i, current, after));
+            }
+        }
+
+        ItemStack remainder = remaining == 0 ? null
+                : remaining == itemStack.getQuantity() ? itemStack : itemStack.withQuantity(remaining);
+        return new ItemStackTransaction(remaining < itemStack.getQuantity(), remainder, slots);
+    }
+
+    private <T extends Transaction> T changed(T transaction) {
+        if (!this.listeners.isEmpty()) {
+            var event = new ItemContainerChangeEvent(this, transaction);
+            for (int i = 0; i < this.listeners.size(); i++) {
+                this.listeners.get(i).accept(event);
+            }
+        }
+        return transaction;
+    }
+}
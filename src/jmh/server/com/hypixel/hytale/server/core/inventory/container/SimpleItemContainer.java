@@ -0,0 +1,64 @@
+package com.hypixel.hytale.server.core.inventory.container;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.ExtraInfo;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Stand-in for a container backed by a slot array.
+ * Encoded as its capacity and a document of the occupied slots keyed by slot number.
+ */
+public class SimpleItemContainer extends ItemContainer {
+
+    public static final Codec<SimpleItemContainer> CODEC = new Codec<>() {
+        @Override
+        public SimpleItemContainer decode(BsonValue value, ExtraInfo extraInfo) {
+            BsonDocument document = value.asDocument();
+            var container = new SimpleItemContainer((short) document.getInt32("Capacity").getValue());
+            for (Map.Entry<String, BsonValue> entry : document.getDocument("Items", new BsonDocument()).entrySet()) {
+                container.setItemStack(Short.parseShort(entry.getKey()), ItemStack.CODEC.decode(entry.getValue(), extraInfo));
+            }
+            return container;
+        }
+
+        @Override
+        public BsonValue encode(SimpleItemContainer container, ExtraInfo extraInfo) {
+            BsonDocument items = new BsonDocument();
+            for (short i = 0; i < container.getCapacity(); i++) {
+                ItemStack itemStack = container.getItemStack(i);
+                if (!ItemStack.isEmpty(itemStack)) {
+                    items.put(Short.toString(i), ItemStack.CODEC.encode(itemStack, extraInfo));
+                }
+            }
+            return new BsonDocument("Capacity", new BsonInt32(container.getCapacity())).append("Items", items);
+        }
+    };
+
+    private final ItemStack[] slots;
+
+    public SimpleItemContainer(short capacity) {
+        this.slots = new ItemStack[capacity];
+    }
+
+    @Override
+    public short getCapacity() {
+        return (short) this.slots.length;
+    }
+
+    @Nullable
+    @Override
+    public ItemStack getItemStack(short slot) {
+        return this.slots[slot];
+    }
+
+    @Override
+    protected void setItemStack(short slot, @Nullable ItemStack itemStack) {
+        this.slots[slot] = itemStack;
+    }
+}
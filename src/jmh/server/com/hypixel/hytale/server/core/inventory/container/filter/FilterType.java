@@ -0,0 +1,12 @@
+package com.hypixel.hytale.server.core.inventory.container.filter;
+
+public enum FilterType {
+    ALLOW_ALL,
+    ALLOW_INPUT_ONLY,
+    ALLOW_OUTPUT_ONLY,
+    DENY_ALL;
+
+    public boolean allowInput() {
+        return this == ALLOW_ALL || this == ALLOW_INPUT_ONLY;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hypixel.hytale.server.core.inventory.transaction;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Stand-in for adding a stack wherever it fits, with the slots it changed and what didn't fit.
+ */
+public class ItemStackTransaction implements Transaction {
+
+    private final boolean succeeded;
+    @Nullable
+    private final ItemStack remainder;
+
+    public ItemStackTransaction(boolean succeeded, @Nullable ItemStack remainder, List<SlotTransaction> slotTransactions) {
+        this.succeeded = succeeded;
+        this.remainder = remainder;
+    }
+
+    @Override
+    public boolean succeeded() {
+        return this.succeeded;
+    }
+
+    @Nullable
+    public ItemStack getRemainder() {
+        return this.remainder;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hypixel.hytale.server.core.inventory.transaction;
+
+import java.util.List;
+
+/**
+ * Stand-in for several changes made at once.
+ */
+public class ListTransaction<T extends Transaction> implements Transaction {
+
+    private final List<T> list;
+
+    public ListTransaction(List<T> list) {
+        this.list = list;
+    }
+
+    @Override
+    public boolean succeeded() {
+        for (T transaction : this.list) {
+            if (!transaction.succeeded()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<T> getList() {
+        return this.list;
+    }
+}
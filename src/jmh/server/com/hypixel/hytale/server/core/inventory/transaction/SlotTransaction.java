@@ -0,0 +1,38 @@
+package com.hypixel.hytale.server.core.inventory.transaction;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stand-in for a change of a single slot.
+ */
+public class SlotTransaction implements Transaction {
+
+    private final boolean succeeded;
+    @Nullable
+    private final ItemStack slotBefore;
+    @Nullable
+    private final ItemStack slotAfter;
+
+    public SlotTransaction(boolean succeeded, short slot, @Nullable ItemStack slotBefore, @Nullable ItemStack slotAfter) {
+        this.succeeded = succeeded;
+        this.slotBefore = slotBefore;
+        this.slotAfter = slotAfter;
+    }
+
+    @Override
+    public boolean succeeded() {
+        return this.succeeded;
+    }
+
+    @Nullable
+    public ItemStack getSlotBefore() {
+        return this.slotBefore;
+    }
+
+    @Nullable
+    public ItemStack getSlotAfter() {
+        return this.slotAfter;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hypixel.hytale.server.core.inventory.transaction;
+
+/**
+ * Stand-in for the result of a container change.
+ */
+public interface Transaction {
+
+    boolean succeeded();
+}
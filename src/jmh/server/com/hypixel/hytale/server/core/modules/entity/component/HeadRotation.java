@@ -0,0 +1,28 @@
+package com.hypixel.hytale.server.core.modules.entity.component;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the head rotation of an entity.
+ */
+public class HeadRotation {
+
+    private static final ComponentType<EntityStore, HeadRotation> TYPE =
+            new ComponentType<>("HeadRotation", () -> new HeadRotation(Vector3f.ZERO));
+
+    private final Vector3f rotation;
+
+    public HeadRotation(Vector3f rotation) {
+        this.rotation = rotation;
+    }
+
+    public static ComponentType<EntityStore, HeadRotation> getComponentType() {
+        return TYPE;
+    }
+
+    public Vector3f getRotation() {
+        return this.rotation;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hypixel.hytale.server.core.modules.entity.component;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the position and rotation of an entity.
+ */
+public class TransformComponent {
+
+    private static final ComponentType<EntityStore, TransformComponent> TYPE =
+            new ComponentType<>("Transform", () -> new TransformComponent(new Vector3d(0, 0, 0), Vector3f.ZERO));
+
+    private Vector3d position;
+    private final Vector3f rotation;
+
+    public TransformComponent(Vector3d position, Vector3f rotation) {
+        this.position = position;
+        this.rotation = rotation;
+    }
+
+    public static ComponentType<EntityStore, TransformComponent> getComponentType() {
+        return TYPE;
+    }
+
+    public Vector3d getPosition() {
+        return this.position;
+    }
+
+    public void setPosition(Vector3d position) {
+        this.position = position;
+    }
+
+    public Vector3f getRotation() {
+        return this.rotation;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hypixel.hytale.server.core.modules.entity.damage;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.asset.type.gameplay.DeathConfig;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.List;
+
+/**
+ * Stand-in for the component added to an entity when it dies.
+ */
+public class DeathComponent {
+
+    private static final ComponentType<EntityStore, DeathComponent> TYPE =
+            new ComponentType<>("Death", () -> new DeathComponent(DeathConfig.ItemsLossMode.ALL, 0.0));
+
+    private DeathConfig.ItemsLossMode itemsLossMode;
+    private final double itemsAmountLossPercentage;
+    private List<ItemStack> itemsLostOnDeath = List.of();
+
+    public DeathComponent(DeathConfig.ItemsLossMode itemsLossMode, double itemsAmountLossPercentage) {
+        this.itemsLossMode = itemsLossMode;
+        this.itemsAmountLossPercentage = itemsAmountLossPercentage;
+    }
+
+    public static ComponentType<EntityStore, DeathComponent> getComponentType() {
+        return TYPE;
+    }
+
+    public DeathConfig.ItemsLossMode getItemsLossMode() {
+        return this.itemsLossMode;
+    }
+
+    public void setItemsLossMode(DeathConfig.ItemsLossMode itemsLossMode) {
+        this.itemsLossMode = itemsLossMode;
+    }
+
+    public double getItemsAmountLossPercentage() {
+        return this.itemsAmountLossPercentage;
+    }
+
+    public void setItemsLostOnDeath(List<ItemStack> itemsLostOnDeath) {
+        this.itemsLostOnDeath = itemsLostOnDeath;
+    }
+}
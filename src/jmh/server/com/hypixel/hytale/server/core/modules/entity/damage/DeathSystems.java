@@ -0,0 +1,31 @@
+package com.hypixel.hytale.server.core.modules.entity.damage;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.system.RefChangeSystem;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the server's death systems.
+ */
+public final class DeathSystems {
+
+    private DeathSystems() {
+    }
+
+    /**
+     * Systems that react to an entity dying.
+     */
+    public abstract static class OnDeathSystem extends RefChangeSystem<EntityStore, DeathComponent> {
+
+        @Override
+        public ComponentType<EntityStore, DeathComponent> componentType() {
+            return DeathComponent.getComponentType();
+        }
+    }
+
+    /**
+     * Drops the items a player loses on death, only referenced for ordering here.
+     */
+    public abstract static class DropPlayerDeathItems extends OnDeathSystem {
+    }
+}
@@ -0,0 +1,55 @@
+package com.hypixel.hytale.server.core.modules.entity.item;
+
+import com.hypixel.hytale.component.ComponentAccessor;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.List;
+
+/**
+ * Stand-in for a dropped item entity.
+ */
+public class ItemComponent {
+
+    private static final ComponentType<EntityStore, ItemComponent> TYPE =
+            new ComponentType<>("Item", () -> new ItemComponent(null));
+
+    private final ItemStack itemStack;
+
+    public ItemComponent(ItemStack itemStack) {
+        this.itemStack = itemStack;
+    }
+
+    public static ComponentType<EntityStore, ItemComponent> getComponentType() {
+        return TYPE;
+    }
+
+    public ItemStack getItemStack() {
+        return this.itemStack;
+    }
+
+    /**
+     * One item entity per stack at the given position.
+     */
+    @SuppressWarnings("unchecked")
+    public static Holder<EntityStore>[] generateItemDrops(
+            ComponentAccessor<EntityStore> accessor,
+            List<ItemStack> itemStacks,
+            Vector3d position,
+            Vector3f rotation) {
+        Holder<EntityStore>[] holders = (Holder<EntityStore>[]) new Holder<?>[itemStacks.size()];
+        for (int i = 0; i < holders.length; i++) {
+            Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+            holder.addComponent(TYPE, new ItemComponent(itemStacks.get(i)));
+            holder.addComponent(TransformComponent.getComponentType(),
+                    new TransformComponent(position.clone(), rotation.clone()));
+            holders[i] = holder;
+        }
+        return holders;
+    }
+}
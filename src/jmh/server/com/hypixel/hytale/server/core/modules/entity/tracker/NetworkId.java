@@ -0,0 +1,20 @@
+package com.hypixel.hytale.server.core.modules.entity.tracker;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for the id an entity is sent to clients with.
+ */
+public class NetworkId {
+
+    private static final ComponentType<EntityStore, NetworkId> TYPE =
+            new ComponentType<>("NetworkId", () -> new NetworkId(0));
+
+    public NetworkId(int id) {
+    }
+
+    public static ComponentType<EntityStore, NetworkId> getComponentType() {
+        return TYPE;
+    }
+}
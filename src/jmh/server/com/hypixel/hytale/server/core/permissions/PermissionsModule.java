@@ -0,0 +1,19 @@
+package com.hypixel.hytale.server.core.permissions;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for the permissions module, players have no permissions.
+ */
+public class PermissionsModule {
+
+    private static final PermissionsModule INSTANCE = new PermissionsModule();
+
+    public static PermissionsModule get() {
+        return INSTANCE;
+    }
+
+    public boolean hasPermission(UUID uuid, String permission) {
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hypixel.hytale.server.core.plugin;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.component.ComponentRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockStateRegistry;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Stand-in for the base class of plugins. {@link #start()} runs the setup, {@link #stop()} the shutdown.
+ */
+public abstract class JavaPlugin {
+
+    private final Path dataDirectory;
+    private final HytaleLogger logger;
+    private final BlockStateRegistry blockStateRegistry = new BlockStateRegistry();
+    private final EventRegistry eventRegistry = new EventRegistry();
+    private final CommandRegistry commandRegistry = new CommandRegistry();
+
+    protected JavaPlugin(JavaPluginInit init) {
+        this.dataDirectory = init.dataDirectory();
+        this.logger = new HytaleLogger(Logger.getLogger(this.getClass().getSimpleName()));
+    }
+
+    protected void setup() {
+    }
+
+    protected void shutdown() {
+    }
+
+    public void start() {
+        this.setup();
+    }
+
+    public void stop() {
+        this.shutdown();
+    }
+
+    protected <T> Config<T> withConfig(String name, BuilderCodec<T> codec) {
+        return new Config<>(this.dataDirectory, name, codec);
+    }
+
+    public Path getDataDirectory() {
+        return this.dataDirectory;
+    }
+
+    public HytaleLogger getLogger() {
+        return this.logger;
+    }
+
+    public BlockStateRegistry getBlockStateRegistry() {
+        return this.blockStateRegistry;
+    }
+
+    public ComponentRegistry<EntityStore> getEntityStoreRegistry() {
+        return EntityStore.REGISTRY;
+    }
+
+    public ComponentRegistry<ChunkStore> getChunkStoreRegistry() {
+        return ChunkStore.REGISTRY;
+    }
+
+    public EventRegistry getEventRegistry() {
+        return this.eventRegistry;
+    }
+
+    public CommandRegistry getCommandRegistry() {
+        return this.commandRegistry;
+    }
+
+    /**
+     * Stand-in for the event registry, the benchmarks raise no server events.
+     */
+    public static class EventRegistry {
+
+        public <E> void register(Class<E> type, Consumer<? super E> listener) {
+        }
+    }
+
+    /**
+     * Stand-in for the command registry, the benchmarks don't run commands.
+     */
+    public static class CommandRegistry {
+
+        public void registerCommand(AbstractCommand command) {
+        }
+    }
+}
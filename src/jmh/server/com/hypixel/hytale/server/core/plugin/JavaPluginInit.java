@@ -0,0 +1,9 @@
+package com.hypixel.hytale.server.core.plugin;
+
+import java.nio.file.Path;
+
+/**
+ * Stand-in for what the server hands a plugin on construction.
+ */
+public record JavaPluginInit(Path dataDirectory) {
+}
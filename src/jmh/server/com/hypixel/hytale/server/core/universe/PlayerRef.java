@@ -0,0 +1,52 @@
+package com.hypixel.hytale.server.core.universe;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Stand-in for a connected player, also the component linking their entity to the connection.
+ */
+public class PlayerRef {
+
+    private static final ComponentType<EntityStore, PlayerRef> TYPE =
+            new ComponentType<>("PlayerRef", () -> new PlayerRef(UUID.randomUUID(), "Player"));
+
+    private final UUID uuid;
+    private final String username;
+    @Nullable
+    private Ref<EntityStore> reference;
+
+    public PlayerRef(UUID uuid, String username) {
+        this.uuid = uuid;
+        this.username = username;
+    }
+
+    public static ComponentType<EntityStore, PlayerRef> getComponentType() {
+        return TYPE;
+    }
+
+    public UUID getUuid() {
+        return this.uuid;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    @Nullable
+    public Ref<EntityStore> getReference() {
+        return this.reference;
+    }
+
+    public void setReference(@Nullable Ref<EntityStore> reference) {
+        this.reference = reference;
+    }
+
+    public void sendMessage(Message message) {
+    }
+}
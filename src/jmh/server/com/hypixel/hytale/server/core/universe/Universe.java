@@ -0,0 +1,47 @@
+package com.hypixel.hytale.server.core.universe;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for the universe: the worlds and the connected players.
+ */
+public class Universe {
+
+    private static final Universe INSTANCE = new Universe();
+
+    private final Map<String, World> worlds = new ConcurrentHashMap<>();
+    private final List<PlayerRef> players = new CopyOnWriteArrayList<>();
+
+    public static Universe get() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    public World getWorld(String name) {
+        return this.worlds.get(name);
+    }
+
+    public void addWorld(World world) {
+        this.worlds.put(world.getName(), world);
+    }
+
+    public void removeWorld(World world) {
+        this.worlds.remove(world.getName());
+    }
+
+    public Collection<PlayerRef> getPlayers() {
+        return Collections.unmodifiableList(this.players);
+    }
+
+    public void addPlayer(PlayerRef playerRef) {
+        this.players.add(playerRef);
+    }
+}
@@ -0,0 +1,300 @@
+package com.hypixel.hytale.server.core.universe.world;
+
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockStateModule;
+import com.hypixel.hytale.server.core.universe.world.meta.state.DestroyableBlockState;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Stand-in for a world, driven by hand: {@link #tick()} runs the ticking systems, then the tasks queued so far.
+ * <p>
+ * Chunks load on demand. Unloading a chunk encodes its block states with their codec to BSON bytes,
+ * loading it again decodes and initializes them, as a save and load of the real server would.
+ */
+public class World implements Executor {
+
+    private final String name;
+    private final int surfaceY;
+    private final EntityStore entityStore;
+    private final ChunkStore chunkStore;
+    private final Map<Long, WorldChunk> loaded = new HashMap<>();
+    private final Map<Long, SavedChunk> saved = new HashMap<>();
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    public World(String name, int surfaceY) {
+        this.name = name;
+        this.surfaceY = surfaceY;
+        this.entityStore = new EntityStore(this);
+        this.chunkStore = new ChunkStore(this);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Height of the flat terrain, blocks below it are solid.
+     */
+    public int getSurfaceY() {
+        return this.surfaceY;
+    }
+
+    public EntityStore getEntityStore() {
+        return this.entityStore;
+    }
+
+    public ChunkStore getChunkStore() {
+        return this.chunkStore;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+    }
+
+    /**
+     * Runs the ticking systems, then the tasks queued before this tick. Tasks they queue run next tick.
+     */
+    public void tick() {
+        this.entityStore.getStore().tick(1.0F / 30.0F);
+        for (int i = this.tasks.size(); i > 0; i--) {
+            Runnable task = this.tasks.poll();
+            if (task == null) {
+                break;
+            }
+            task.run();
+        }
+    }
+
+    public int getPendingTaskCount() {
+        return this.tasks.size();
+    }
+
+    @Nullable
+    public WorldChunk getChunkIfLoaded(long index) {
+        return this.loaded.get(index);
+    }
+
+    /**
+     * Returns the chunk, loading it right away if needed.
+     */
+    public WorldChunk getChunk(long index) {
+        WorldChunk chunk = this.loaded.get(index);
+        return chunk != null ? chunk : this.loadChunk(index);
+    }
+
+    /**
+     * Completes with the chunk on a later tick.
+     */
+    public CompletableFuture<WorldChunk> getChunkAsync(long index) {
+        CompletableFuture<WorldChunk> future = new CompletableFuture<>();
+        this.execute(() -> future.complete(this.getChunk(index)));
+        return future;
+    }
+
+    public List<Long> getLoadedChunkIndexes() {
+        return new ArrayList<>(this.loaded.keySet());
+    }
+
+    /**
+     * Block states in unloaded chunks.
+     */
+    public int getSavedStateCount() {
+        int count = 0;
+        for (SavedChunk savedChunk : this.saved.values()) {
+            count += savedChunk.states().size();
+        }
+        return count;
+    }
+
+    /**
+     * Bytes held by the saves of block states in unloaded chunks.
+     */
+    public long getSavedBytes() {
+        long bytes = 0;
+        for (SavedChunk savedChunk : this.saved.values()) {
+            for (SavedState savedState : savedChunk.states()) {
+                bytes += savedState.data().length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Sets a block, its block state if it has one is created and initialized.
+     */
+    public boolean setBlock(int x, int y, int z, String blockTypeId) {
+        int id = BlockType.getAssetMap().getIndex(blockTypeId);
+        WorldChunk chunk = this.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
+        this.removeState(chunk, x, y, z, false);
+        this.placeBlock(chunk, x, y, z, id);
+
+        BlockType blockType = BlockType.getAssetMap().getAsset(id);
+        if (blockType.getStateId() == null) {
+            return true;
+        }
+
+        var registration = BlockStateModule.get().getRegistration(blockType.getStateId());
+        if (registration == null) {
+            return true;
+        }
+        this.addState(chunk, x, y, z, blockType, registration.create(), AddReason.SPAWN);
+        return true;
+    }
+
+    /**
+     * Breaks a block, a destroyable block state is told first.
+     */
+    public boolean breakBlock(int x, int y, int z, int settings) {
+        WorldChunk chunk = this.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
+        this.removeState(chunk, x, y, z, true);
+        this.placeBlock(chunk, x, y, z, BlockType.EMPTY_ID);
+        return true;
+    }
+
+    @Nullable
+    public Ref<EntityStore> getEntityRef(UUID uuid) {
+        Store<EntityStore> store = this.entityStore.getStore();
+        for (Ref<EntityStore> ref : store.getEntities()) {
+            UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
+            if (uuidComponent != null && uuidComponent.getUuid().equals(uuid)) {
+                return ref;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves the block states of a chunk and removes them, as the server does when no player is near.
+     * Returns the bytes written for them.
+     */
+    public int unloadChunk(long index) {
+        WorldChunk chunk = this.loaded.remove(index);
+        if (chunk == null) {
+            return 0;
+        }
+
+        SavedChunk savedChunk = new SavedChunk(new HashMap<>(chunk.blocksView()), new ArrayList<>());
+        int bytes = 0;
+        Store<ChunkStore> store = this.chunkStore.getStore();
+        for (var entry : chunk.statesView().entrySet()) {
+            Ref<ChunkStore> ref = entry.getValue();
+            BlockState state = this.getState(ref);
+            var registration = BlockStateModule.get().getRegistration(state);
+            BsonDocument document = registration.codec().encode(state, EmptyExtraInfo.EMPTY).asDocument();
+            RawBsonDocument raw = new RawBsonDocument(document, new BsonDocumentCodec());
+            byte[] data = new byte[raw.getByteBuffer().remaining()];
+            raw.getByteBuffer().get(data);
+            bytes += data.length;
+            savedChunk.states().add(new SavedState(entry.getKey(), registration.id(), data));
+            store.removeEntity(ref, RemoveReason.UNLOAD);
+        }
+        this.saved.put(index, savedChunk);
+        return bytes;
+    }
+
+    private WorldChunk loadChunk(long index) {
+        WorldChunk chunk = new WorldChunk(this, index);
+        this.loaded.put(index, chunk);
+
+        SavedChunk savedChunk = this.saved.remove(index);
+        if (savedChunk == null) {
+            return chunk;
+        }
+
+        chunk.blocksView().putAll(savedChunk.blocks());
+        int baseX = ChunkUtil.xOfChunkIndex(index) << ChunkUtil.BITS;
+        int baseZ = ChunkUtil.zOfChunkIndex(index) << ChunkUtil.BITS;
+        for (SavedState savedState : savedChunk.states()) {
+            var registration = BlockStateModule.get().getRegistration(savedState.stateId());
+            BsonDocument document = new BsonDocumentCodec().decode(
+                    new BsonBinaryReader(ByteBuffer.wrap(savedState.data())), DecoderContext.builder().build());
+            BlockState state = registration.codec().decode(document, EmptyExtraInfo.EMPTY);
+
+            int x = baseX + WorldChunk.localX(savedState.key());
+            int y = WorldChunk.y(savedState.key());
+            int z = baseZ + WorldChunk.localZ(savedState.key());
+            BlockType blockType = BlockType.getAssetMap().getAsset(chunk.getBlock(x, y, z));
+            this.addState(chunk, x, y, z, blockType, state, AddReason.LOAD);
+        }
+        return chunk;
+    }
+
+    private void addState(WorldChunk chunk, int x, int y, int z, BlockType blockType, BlockState state, AddReason reason) {
+        state.setPosition(chunk, new Vector3i(x, y, z));
+        if (!state.initialize(blockType)) {
+            return;
+        }
+
+        var registration = BlockStateModule.get().getRegistration(state);
+        Holder<ChunkStore> holder = ChunkStore.REGISTRY.newHolder();
+        holder.addComponent(registration.componentType(), state);
+        chunk.statesView().put(WorldChunk.key(x, y, z), this.chunkStore.getStore().addEntity(holder, reason));
+    }
+
+    private void removeState(WorldChunk chunk, int x, int y, int z, boolean destroy) {
+        Ref<ChunkStore> ref = chunk.statesView().remove(WorldChunk.key(x, y, z));
+        if (ref == null) {
+            return;
+        }
+
+        if (destroy && this.getState(ref) instanceof DestroyableBlockState destroyable) {
+            destroyable.onDestroy();
+        }
+        this.chunkStore.getStore().removeEntity(ref, RemoveReason.REMOVE);
+    }
+
+    @Nullable
+    private BlockState getState(Ref<ChunkStore> ref) {
+        for (var registration : BlockStateModule.get().getRegistrations()) {
+            BlockState state = this.chunkStore.getStore().getComponent(ref, registration.componentType());
+            if (state != null) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    private void placeBlock(WorldChunk chunk, int x, int y, int z, int id) {
+        int terrain = y < this.surfaceY ? BlockType.ROCK_ID : BlockType.EMPTY_ID;
+        if (id == terrain) {
+            chunk.blocksView().remove(WorldChunk.key(x, y, z));
+        } else {
+            chunk.blocksView().put(WorldChunk.key(x, y, z), id);
+        }
+    }
+
+    private record SavedChunk(Map<Long, Integer> blocks, List<SavedState> states) {
+    }
+
+    private record SavedState(long key, String stateId, byte[] data) {
+    }
+}
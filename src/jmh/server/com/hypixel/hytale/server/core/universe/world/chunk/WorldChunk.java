@@ -0,0 +1,86 @@
+package com.hypixel.hytale.server.core.universe.world.chunk;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for a loaded chunk: flat terrain, solid below the surface of the world,
+ * with the blocks set since and the block state entities. There are no fluids. Takes world coordinates.
+ */
+public class WorldChunk {
+
+    private final World world;
+    private final long index;
+    // Blocks that differ from the terrain by position key
+    private final Map<Long, Integer> blocks = new HashMap<>();
+    private final Map<Long, Ref<ChunkStore>> states = new HashMap<>();
+
+    public WorldChunk(World world, long index) {
+        this.world = world;
+        this.index = index;
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public long getIndex() {
+        return this.index;
+    }
+
+    public int getBlock(int x, int y, int z) {
+        Integer id = this.blocks.get(key(x, y, z));
+        if (id != null) {
+            return id;
+        }
+        return y < this.world.getSurfaceY() ? BlockType.ROCK_ID : BlockType.EMPTY_ID;
+    }
+
+    public int getFluidId(int x, int y, int z) {
+        return 0;
+    }
+
+    @Nullable
+    public Ref<ChunkStore> getBlockComponentEntity(int x, int y, int z) {
+        return this.states.get(key(x, y, z));
+    }
+
+    /**
+     * Blocks that differ from the terrain, for the world.
+     */
+    public Map<Long, Integer> blocksView() {
+        return this.blocks;
+    }
+
+    public Map<Long, Ref<ChunkStore>> statesView() {
+        return this.states;
+    }
+
+    /**
+     * Packs a position within the chunk, y keeps its sign.
+     */
+    public static long key(int x, int y, int z) {
+        return ((long) y << (2 * ChunkUtil.BITS))
+                | ((long) (x & (ChunkUtil.SIZE - 1)) << ChunkUtil.BITS)
+                | (z & (ChunkUtil.SIZE - 1));
+    }
+
+    public static int localX(long key) {
+        return (int) (key >>> ChunkUtil.BITS) & (ChunkUtil.SIZE - 1);
+    }
+
+    public static int y(long key) {
+        return (int) (key >> (2 * ChunkUtil.BITS));
+    }
+
+    public static int localZ(long key) {
+        return (int) key & (ChunkUtil.SIZE - 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hypixel.hytale.server.core.universe.world.meta;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stand-in for the state of a block, a component of the chunk store.
+ * The world sets the position before {@link #initialize(BlockType)}.
+ */
+public abstract class BlockState {
+
+    public static final BuilderCodec<BlockState> BASE_CODEC = BuilderCodec.abstractBuilder(BlockState.class).build();
+
+    @Nullable
+    private WorldChunk chunk;
+    @Nullable
+    private Vector3i position;
+    private int saveRequests;
+
+    public boolean initialize(BlockType blockType) {
+        return true;
+    }
+
+    @Nullable
+    public WorldChunk getChunk() {
+        return this.chunk;
+    }
+
+    public Vector3i getBlockPosition() {
+        return this.position;
+    }
+
+    public void setPosition(WorldChunk chunk, Vector3i position) {
+        this.chunk = chunk;
+        this.position = position;
+    }
+
+    public void markNeedsSave() {
+        this.saveRequests++;
+    }
+
+    /**
+     * How often the state asked for its chunk to be saved.
+     */
+    public int getSaveRequests() {
+        return this.saveRequests;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hypixel.hytale.server.core.universe.world.meta;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import org.bson.BsonDocument;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for the module keeping the registered block state types.
+ */
+public class BlockStateModule {
+
+    private static final BlockStateModule INSTANCE = new BlockStateModule();
+
+    private final Map<Class<?>, Registration<?>> byClass = new ConcurrentHashMap<>();
+    private final Map<String, Registration<?>> byId = new ConcurrentHashMap<>();
+
+    public static BlockStateModule get() {
+        return INSTANCE;
+    }
+
+    public <T extends BlockState> void register(Class<T> type, String id, Codec<T> codec) {
+        Registration<T> registration = new Registration<>(id, codec, new ComponentType<>(id, () -> null));
+        this.byClass.put(type, registration);
+        this.byId.put(id, registration);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T extends BlockState> ComponentType<ChunkStore, T> getComponentType(Class<T> type) {
+        Registration<T> registration = (Registration<T>) this.byClass.get(type);
+        return registration != null ? registration.componentType() : null;
+    }
+
+    public Iterable<Registration<?>> getRegistrations() {
+        return this.byId.values();
+    }
+
+    @Nullable
+    public Registration<?> getRegistration(String id) {
+        return this.byId.get(id);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public Registration<BlockState> getRegistration(BlockState state) {
+        return (Registration<BlockState>) this.byClass.get(state.getClass());
+    }
+
+    public record Registration<T extends BlockState>(String id, Codec<T> codec, ComponentType<ChunkStore, T> componentType) {
+
+        /**
+         * A fresh state as decoded from an empty document.
+         */
+        public T create() {
+            return this.codec.decode(new BsonDocument(), EmptyExtraInfo.EMPTY);
+        }
+    }
+}
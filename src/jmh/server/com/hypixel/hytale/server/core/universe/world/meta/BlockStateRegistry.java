@@ -0,0 +1,16 @@
+package com.hypixel.hytale.server.core.universe.world.meta;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.StateData;
+
+/**
+ * Stand-in for the block state registry of a plugin.
+ */
+public class BlockStateRegistry {
+
+    public <T extends BlockState, D extends StateData> void registerBlockState(
+            Class<T> type, String id, Codec<T> codec, Class<D> dataType, BuilderCodec<D> dataCodec) {
+        BlockStateModule.get().register(type, id, codec);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hypixel.hytale.server.core.universe.world.meta.state;
+
+import com.hypixel.hytale.component.ComponentAccessor;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for block states deciding who may break their block.
+ */
+public interface BreakValidatedBlockState {
+
+    boolean canDestroy(Ref<EntityStore> playerRef, ComponentAccessor<EntityStore> componentAccessor);
+}
@@ -0,0 +1,9 @@
+package com.hypixel.hytale.server.core.universe.world.meta.state;
+
+/**
+ * Stand-in for block states told when their block is broken.
+ */
+public interface DestroyableBlockState {
+
+    void onDestroy();
+}
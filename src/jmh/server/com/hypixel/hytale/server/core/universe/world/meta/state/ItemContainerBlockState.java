@@ -0,0 +1,11 @@
+package com.hypixel.hytale.server.core.universe.world.meta.state;
+
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+
+/**
+ * Stand-in for block states exposing a container.
+ */
+public interface ItemContainerBlockState {
+
+    ItemContainer getItemContainer();
+}
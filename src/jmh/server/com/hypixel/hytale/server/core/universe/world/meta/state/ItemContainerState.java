@@ -0,0 +1,21 @@
+package com.hypixel.hytale.server.core.universe.world.meta.state;
+
+import com.hypixel.hytale.component.ComponentAccessor;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Stand-in for a block state holding a container players can open.
+ */
+public abstract class ItemContainerState extends BlockState implements ItemContainerBlockState {
+
+    public boolean canOpen(Ref<EntityStore> playerRef, ComponentAccessor<EntityStore> componentAccessor) {
+        return true;
+    }
+
+    public void onItemChange(ItemContainer.ItemContainerChangeEvent event) {
+        this.markNeedsSave();
+    }
+}
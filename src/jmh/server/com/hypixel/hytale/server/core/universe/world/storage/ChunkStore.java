@@ -0,0 +1,30 @@
+package com.hypixel.hytale.server.core.universe.world.storage;
+
+import com.hypixel.hytale.component.ComponentRegistry;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * Stand-in for the chunk storage of a world, block states are its entities.
+ */
+public class ChunkStore {
+
+    public static final ComponentRegistry<ChunkStore> REGISTRY = new ComponentRegistry<>();
+
+    private final World world;
+    private final Store<ChunkStore> store;
+
+    public ChunkStore(World world) {
+        this.world = world;
+        this.store = new Store<>(this);
+        REGISTRY.install(this.store);
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public Store<ChunkStore> getStore() {
+        return this.store;
+    }
+}
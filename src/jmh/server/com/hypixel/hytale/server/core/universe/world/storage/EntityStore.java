@@ -0,0 +1,35 @@
+package com.hypixel.hytale.server.core.universe.world.storage;
+
+import com.hypixel.hytale.component.ComponentRegistry;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * Stand-in for the entity storage of a world.
+ */
+public class EntityStore {
+
+    public static final ComponentRegistry<EntityStore> REGISTRY = new ComponentRegistry<>();
+
+    private final World world;
+    private final Store<EntityStore> store;
+    private int nextNetworkId = 1;
+
+    public EntityStore(World world) {
+        this.world = world;
+        this.store = new Store<>(this);
+        REGISTRY.install(this.store);
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public Store<EntityStore> getStore() {
+        return this.store;
+    }
+
+    public int takeNextNetworkId() {
+        return this.nextNetworkId++;
+    }
+}
@@ -0,0 +1,61 @@
+package com.hypixel.hytale.server.core.util;
+
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import org.bson.BsonDocument;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stand-in for a plugin config: a JSON file in the data directory, defaults when it is missing.
+ */
+public class Config<T> {
+
+    private final Path path;
+    private final BuilderCodec<T> codec;
+    private T value;
+
+    public Config(Path dataDirectory, String name, BuilderCodec<T> codec) {
+        this.path = dataDirectory.resolve(name + ".json");
+        this.codec = codec;
+    }
+
+    public T get() {
+        if (this.value == null) {
+            this.value = this.read();
+        }
+        return this.value;
+    }
+
+    public CompletableFuture<T> load() {
+        return CompletableFuture.supplyAsync(() -> {
+            this.value = this.read();
+            return this.value;
+        });
+    }
+
+    public CompletableFuture<Void> save() {
+        try {
+            Files.createDirectories(this.path.getParent());
+            BsonDocument document = this.codec.encode(this.get(), EmptyExtraInfo.EMPTY).asDocument();
+            Files.writeString(this.path, document.toJson(JsonWriterSettings.builder().indent(true).build()));
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private T read() {
+        try {
+            BsonDocument document = Files.exists(this.path) ? BsonDocument.parse(Files.readString(this.path)) : new BsonDocument();
+            return this.codec.decode(document, EmptyExtraInfo.EMPTY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.grule.gravestones;
+
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the gravestone permission decisions per player.
+ * <p>
+ * Entries are dropped when the player's permissions change or they disconnect,
+ * and expire after a short TTL in case a change goes unnoticed.
+ */
+public class GravestonePermissions {
+
+    public static final String ACCESS_ANY = "gravestones.access_any";
+    public static final String DESTROY_ANY = "gravestones.destroy_any";
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<UUID, Decision> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the player may open any gravestone, not just their own.
+     */
+    public boolean canAccessAny(@Nonnull UUID playerUUID) {
+        return this.getDecision(playerUUID).accessAny;
+    }
+
+    /**
+     * Whether the player may break any gravestone, even if it still holds items.
+     */
+    public boolean canDestroyAny(@Nonnull UUID playerUUID) {
+        return this.getDecision(playerUUID).destroyAny;
+    }
+
+    public void invalidate(@Nonnull UUID playerUUID) {
+        this.decisions.remove(playerUUID);
+    }
+
+    public void invalidateAll() {
+        this.decisions.clear();
+    }
+
+    @Nonnull
+    private Decision getDecision(@Nonnull UUID playerUUID) {
+        long now = System.nanoTime();
+        Decision decision = this.decisions.get(playerUUID);
+        if (decision != null && now - decision.checkedAt < TTL_NANOS) {
+            return decision;
+        }
+
+        var permissionsModule = PermissionsModule.get();
+        decision = new Decision(
+                permissionsModule.hasPermission(playerUUID, ACCESS_ANY),
+                permissionsModule.hasPermission(playerUUID, DESTROY_ANY),
+                now
+        );
+        this.decisions.put(playerUUID, decision);
+        return decision;
+    }
+
+    private record Decision(boolean accessAny, boolean destroyAny, long checkedAt) {
+    }
+}
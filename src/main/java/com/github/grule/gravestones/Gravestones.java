@@ -1,21 +1,69 @@
 package com.github.grule.gravestones;
 
+import com.github.grule.gravestones.command.GravestonesCommand;
 import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.event.GravestoneEvents;
+import com.github.grule.gravestones.ledger.GravestoneLedger;
+import com.github.grule.gravestones.metrics.GravestoneMetrics;
+import com.github.grule.gravestones.system.GravestoneChunkSystem;
 import com.github.grule.gravestones.system.GravestoneDeathSystem;
+import com.github.grule.gravestones.system.GravestoneTickSystem;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.event.events.permissions.GroupPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerGroupEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockStateModule;
+import com.hypixel.hytale.server.core.util.Config;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 
 public class Gravestones extends JavaPlugin {
     private static Gravestones instance;
 
+    // Longest the shutdown waits for the worlds to finish the work it hands them
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+
+    private final Config<GravestonesConfig> config;
+    // Current config, swapped whole on reload so readers never see a mix of old and new values
+    private volatile GravestonesConfig settings;
+    private GravestoneDeathSystem deathSystem;
+    private final Map<String, GravestoneWorld> gravestoneWorlds = new ConcurrentHashMap<>();
+    private final GravestonePermissions permissions = new GravestonePermissions();
+    private final GravestoneMetrics metrics = new GravestoneMetrics();
+    @Nullable
+    private ScheduledFuture<?> metricsLogTask;
+    @Nullable
+    private GravestoneLedger ledger;
+    private GravestoneEvents events;
+
     public Gravestones(@Nonnull JavaPluginInit init) {
         super(init);
         instance = this;
+        this.config = this.withConfig("Gravestones", GravestonesConfig.CODEC);
     }
 
     @Override
+    @SuppressWarnings("removal") // Acknowledging BlockStateModule deprecation
     protected void setup() {
         var blockStateRegistry = this.getBlockStateRegistry();
         blockStateRegistry.registerBlockState(
@@ -25,7 +73,176 @@ public class Gravestones extends JavaPlugin {
                 GravestoneState.GravestoneStateData.class,
                 GravestoneState.GravestoneStateData.CODEC
         );
-        this.getEntityStoreRegistry().registerSystem(new GravestoneDeathSystem());
+        this.config.save();
+        this.settings = this.config.get();
+
+        var gravestonesConfig = this.settings;
+        if (gravestonesConfig.isLedgerEnabled()) {
+            var ledger = new GravestoneLedger(
+                    this.getDataDirectory().resolve("ledger"),
+                    gravestonesConfig.getLedgerSegmentMegabytes() << 20,
+                    gravestonesConfig.getLedgerMaxSegments()
+            );
+            try {
+                ledger.start();
+                this.ledger = ledger;
+            } catch (IOException e) {
+                this.getLogger().at(Level.SEVERE).withCause(e).log("Failed to open the gravestone ledger, continuing without it");
+            }
+        }
+
+        this.events = new GravestoneEvents(gravestonesConfig.getEventBufferSize());
+
+        this.deathSystem = new GravestoneDeathSystem();
+        this.getEntityStoreRegistry().registerSystem(this.deathSystem);
+        this.getEntityStoreRegistry().registerSystem(new GravestoneTickSystem());
+
+        var gravestoneComponentType = BlockStateModule.get().getComponentType(GravestoneState.class);
+        this.getChunkStoreRegistry().registerSystem(new GravestoneChunkSystem(gravestoneComponentType));
+
+        // Drop cached permission decisions when they may have changed
+        var eventRegistry = this.getEventRegistry();
+        eventRegistry.register(PlayerDisconnectEvent.class,
+                event -> this.permissions.invalidate(event.getPlayerRef().getUuid()));
+        eventRegistry.register(PlayerPermissionChangeEvent.class,
+                event -> this.permissions.invalidate(event.getPlayerUuid()));
+        eventRegistry.register(PlayerGroupEvent.class,
+                event -> this.permissions.invalidate(event.getPlayerUuid()));
+        eventRegistry.register(GroupPermissionChangeEvent.class,
+                event -> this.permissions.invalidateAll());
+
+        this.getCommandRegistry().registerCommand(new GravestonesCommand());
+
+        this.scheduleMetricsLog(gravestonesConfig.getMetricsLogMinutes());
+    }
+
+    /**
+     * Reads the config file again and swaps it in. Ledger and event buffer settings take effect on the next start.
+     */
+    @Nonnull
+    public CompletableFuture<GravestonesConfig> reload() {
+        return this.config.load().thenApply(loaded -> {
+            int previousLogMinutes = this.settings.getMetricsLogMinutes();
+            this.settings = loaded;
+            if (loaded.getMetricsLogMinutes() != previousLogMinutes) {
+                this.scheduleMetricsLog(loaded.getMetricsLogMinutes());
+            }
+            this.getLogger().at(Level.INFO).log("Reloaded %s", loaded);
+            return loaded;
+        });
+    }
+
+    private synchronized void scheduleMetricsLog(int minutes) {
+        if (this.metricsLogTask != null) {
+            this.metricsLogTask.cancel(false);
+            this.metricsLogTask = null;
+        }
+
+        if (minutes > 0) {
+            this.metricsLogTask = HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+                    this::logMetrics, minutes, minutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private void logMetrics() {
+        for (String line : this.metrics.summarize(this.getGravestoneWorlds(), this.ledger)) {
+            this.getLogger().at(Level.INFO).log(line);
+        }
+    }
+
+    @Override
+    protected void shutdown() {
+        this.scheduleMetricsLog(0);
+
+        // Place gravestones of deaths still waiting in a creation queue, don't leave nameplates behind,
+        // close the files of running exports and imports and save the indexes last.
+        // The world threads run these in order, the shutdown waits for all of them
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        this.gravestoneWorlds.forEach((worldName, gravestoneWorld) -> {
+            World world = Universe.get().getWorld(worldName);
+            if (world == null) {
+                return;
+            }
+
+            if (!gravestoneWorld.getCreationQueue().isEmpty()) {
+                pending.add(gravestoneWorld.flush(world));
+            }
+            pending.add(gravestoneWorld.removeNameplates(world));
+            pending.add(gravestoneWorld.cancelTransfer(world));
+            pending.add(gravestoneWorld.saveIndex(world));
+        });
+
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // The index snapshot saved last while running stays, nameplates left behind go when their chunk loads
+            this.getLogger().at(Level.WARNING).withCause(e).log("Failed to finish the gravestone shutdown work");
+        }
+
+        if (this.ledger != null) {
+            this.ledger.stop();
+            this.ledger = null;
+        }
+        this.events.stop();
+    }
+
+    /**
+     * The current config. Read it once per operation, a reload may swap it in between reads.
+     * Safe to call from any thread.
+     */
+    @Nonnull
+    public GravestonesConfig getGravestonesConfig() {
+        return this.settings;
+    }
+
+    /**
+     * Returns the gravestone runtime state of the given world, creating it on first use.
+     */
+    @Nonnull
+    public GravestoneWorld getGravestoneWorld(@Nonnull World world) {
+        return this.gravestoneWorlds.computeIfAbsent(world.getName(),
+                worldName -> new GravestoneWorld(worldName, this.getDataDirectory().resolve("index")));
+    }
+
+    /**
+     * Gravestone runtime state of every world seen so far.
+     */
+    @Nonnull
+    public Collection<GravestoneWorld> getGravestoneWorlds() {
+        return Collections.unmodifiableCollection(this.gravestoneWorlds.values());
+    }
+
+    @Nonnull
+    public GravestonePermissions getPermissions() {
+        return this.permissions;
+    }
+
+    /**
+     * The gravestone ledger, or null when it is disabled or failed to open.
+     */
+    @Nullable
+    public GravestoneLedger getLedger() {
+        return this.ledger;
+    }
+
+    /**
+     * Lifecycle events of every gravestone, for other plugins to subscribe to from their setup on.
+     */
+    @Nonnull
+    public GravestoneEvents getEvents() {
+        return this.events;
+    }
+
+    @Nonnull
+    public GravestoneMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Nonnull
+    public GravestoneDeathSystem getDeathSystem() {
+        return this.deathSystem;
     }
 
     public static Gravestones get() {
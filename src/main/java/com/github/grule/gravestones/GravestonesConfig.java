@@ -0,0 +1,351 @@
+package com.github.grule.gravestones;
+
+import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.world.GravestoneEviction;
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Server-side tunables of the gravestones plugin.
+ * <p>
+ * Instances are never modified once decoded, a reload decodes a new one and swaps it in,
+ * so a reference read once stays consistent for the whole operation.
+ */
+public class GravestonesConfig {
+
+    // Values are clamped as they are decoded, so a reload can't swap in one that breaks a running world.
+    // Searched positions are tracked in a bitset of (2 * radius + 1)^3 bits
+    private static final int MAX_PLACEMENT_SEARCH_RADIUS = 32;
+    private static final int MAX_PLACEMENT_BLOCKS = 1 << 16;
+    // Segment sizes are passed on in bytes as an int
+    private static final int MAX_LEDGER_SEGMENT_MEGABYTES = 1024;
+    // Rounded up to a power of two, see GravestoneEvents
+    private static final int MIN_EVENT_BUFFER_SIZE = 64;
+    private static final int MAX_EVENT_BUFFER_SIZE = 1 << 20;
+
+    public static final BuilderCodec<GravestonesConfig> CODEC = BuilderCodec
+            .builder(GravestonesConfig.class, GravestonesConfig::new)
+            .append(
+                    new KeyedCodec<>("UnlockAfterMinutes", Codec.INTEGER),
+                    (config, minutes) -> config.unlockAfterMinutes = Math.max(minutes, 0),
+                    config -> config.unlockAfterMinutes
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("RemoveAfterMinutes", Codec.INTEGER),
+                    (config, minutes) -> config.removeAfterMinutes = Math.max(minutes, 0),
+                    config -> config.removeAfterMinutes
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("ExpiryBatchSize", Codec.INTEGER),
+                    (config, size) -> config.expiryBatchSize = Math.max(size, 1),
+                    config -> config.expiryBatchSize
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("CreationBudgetMicros", Codec.INTEGER),
+                    (config, micros) -> config.creationBudgetMicros = Math.max(micros, 1),
+                    config -> config.creationBudgetMicros
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("PlacementSearchRadius", Codec.INTEGER),
+                    (config, radius) -> config.placementSearchRadius = Math.clamp(radius, 0, MAX_PLACEMENT_SEARCH_RADIUS),
+                    config -> config.placementSearchRadius
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("PlacementMaxBlocks", Codec.INTEGER),
+                    (config, blocks) -> config.placementMaxBlocks = Math.clamp(blocks, 1, MAX_PLACEMENT_BLOCKS),
+                    config -> config.placementMaxBlocks
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("MetricsLogMinutes", Codec.INTEGER),
+                    (config, minutes) -> config.metricsLogMinutes = Math.max(minutes, 0),
+                    config -> config.metricsLogMinutes
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("LedgerEnabled", Codec.BOOLEAN),
+                    (config, enabled) -> config.ledgerEnabled = enabled,
+                    config -> config.ledgerEnabled
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("LedgerSegmentMegabytes", Codec.INTEGER),
+                    (config, megabytes) -> config.ledgerSegmentMegabytes = Math.clamp(megabytes, 1, MAX_LEDGER_SEGMENT_MEGABYTES),
+                    config -> config.ledgerSegmentMegabytes
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("LedgerMaxSegments", Codec.INTEGER),
+                    (config, segments) -> config.ledgerMaxSegments = Math.max(segments, 1),
+                    config -> config.ledgerMaxSegments
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("RetrievalTimeoutSeconds", Codec.INTEGER),
+                    (config, seconds) -> config.retrievalTimeoutSeconds = Math.max(seconds, 1),
+                    config -> config.retrievalTimeoutSeconds
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("PageSize", Codec.INTEGER),
+                    (config, size) -> config.pageSize = (short) Math.clamp(size, 1, GravestoneState.PAGE_SIZE),
+                    config -> (int) config.pageSize
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("MinY", Codec.INTEGER),
+                    (config, y) -> config.minY = y,
+                    config -> config.minY
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("MaxY", Codec.INTEGER),
+                    (config, y) -> config.maxY = y,
+                    config -> config.maxY
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("CreativeGravestones", Codec.BOOLEAN),
+                    (config, enabled) -> config.creativeGravestones = enabled,
+                    config -> config.creativeGravestones
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("DebugMode", Codec.BOOLEAN),
+                    (config, enabled) -> config.debugMode = enabled,
+                    config -> config.debugMode
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("MaxGravesPerPlayer", Codec.INTEGER),
+                    (config, max) -> config.maxGravesPerPlayer = Math.max(max, 0),
+                    config -> config.maxGravesPerPlayer
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("EvictionPolicy", Codec.STRING),
+                    (config, policy) -> config.evictionPolicy = GravestoneEviction.Policy.parse(policy),
+                    config -> config.evictionPolicy.getConfigName()
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("NameplateRadius", Codec.INTEGER),
+                    (config, radius) -> config.nameplateRadius = Math.max(radius, 0),
+                    config -> config.nameplateRadius
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("NameplatePoolSize", Codec.INTEGER),
+                    (config, size) -> config.nameplatePoolSize = Math.max(size, 0),
+                    config -> config.nameplatePoolSize
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("BreakToInventory", Codec.BOOLEAN),
+                    (config, enabled) -> config.breakToInventory = enabled,
+                    config -> config.breakToInventory
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("MergeDeaths", Codec.BOOLEAN),
+                    (config, enabled) -> config.mergeDeaths = enabled,
+                    config -> config.mergeDeaths
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("EventBufferSize", Codec.INTEGER),
+                    (config, size) -> config.eventBufferSize = Math.clamp(size, MIN_EVENT_BUFFER_SIZE, MAX_EVENT_BUFFER_SIZE),
+                    config -> config.eventBufferSize
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("TransferBudgetMicros", Codec.INTEGER),
+                    (config, micros) -> config.transferBudgetMicros = Math.max(micros, 1),
+                    config -> config.transferBudgetMicros
+            )
+            .add()
+            .build();
+
+    // Minutes after death until anyone may loot a gravestone, 0 disables unlocking
+    private int unlockAfterMinutes = 0;
+    // Minutes after death until a gravestone and its contents are removed, 0 disables removal
+    private int removeAfterMinutes = 0;
+    // Maximum amount of expired gravestones handled per world tick
+    private int expiryBatchSize = 64;
+    // Time per world tick spent placing queued gravestones
+    private int creationBudgetMicros = 2000;
+    // Maximum distance on every axis searched for a safe gravestone position
+    private int placementSearchRadius = 4;
+    // Maximum amount of positions examined per gravestone placement
+    private int placementMaxBlocks = 256;
+    // Minutes between metrics summaries in the log, 0 disables them
+    private int metricsLogMinutes = 15;
+    // Whether gravestone events are recorded in the ledger
+    private boolean ledgerEnabled = true;
+    // Size of one ledger segment file
+    private int ledgerSegmentMegabytes = 16;
+    // Ledger segments kept, the oldest are deleted beyond this
+    private int ledgerMaxSegments = 32;
+    // Time a remote retrieval waits for the gravestone's chunk to load
+    private int retrievalTimeoutSeconds = 10;
+    // Slots shown at once, the rest goes to overflow pages, capped at GravestoneState.PAGE_SIZE
+    private short pageSize = GravestoneState.PAGE_SIZE;
+    // Gravestones are placed between these layers, above bedrock and below the world top
+    private int minY = 3;
+    private int maxY = 319;
+    // Whether players in creative mode get gravestones
+    private boolean creativeGravestones = false;
+    // Logs every step of the death path, off in production
+    private boolean debugMode = false;
+    // Locked gravestones kept per player and world, 0 disables the cap
+    private int maxGravesPerPlayer = 0;
+    // What happens to the oldest gravestone once a player goes over the cap
+    private GravestoneEviction.Policy evictionPolicy = GravestoneEviction.Policy.MERGE;
+    // Distance from a player within which gravestones show a nameplate, 0 disables nameplates
+    private int nameplateRadius = 16;
+    // Hidden nameplate entities kept per world for reuse
+    private int nameplatePoolSize = 16;
+    // Whether breaking a gravestone puts its items into the breaker's inventory instead of dropping them
+    private boolean breakToInventory = true;
+    // Whether a death on the player's own locked gravestone adds to it instead of placing another one
+    private boolean mergeDeaths = true;
+    // Events kept for slow event subscribers, rounded up to a power of two
+    private int eventBufferSize = 4096;
+    // Time per world tick an export or import of gravestones may take
+    private int transferBudgetMicros = 2000;
+
+    public int getUnlockAfterMinutes() {
+        return this.unlockAfterMinutes;
+    }
+
+    public int getRemoveAfterMinutes() {
+        return this.removeAfterMinutes;
+    }
+
+    public int getExpiryBatchSize() {
+        return this.expiryBatchSize;
+    }
+
+    public int getCreationBudgetMicros() {
+        return this.creationBudgetMicros;
+    }
+
+    public int getPlacementSearchRadius() {
+        return this.placementSearchRadius;
+    }
+
+    public int getPlacementMaxBlocks() {
+        return this.placementMaxBlocks;
+    }
+
+    public int getMetricsLogMinutes() {
+        return this.metricsLogMinutes;
+    }
+
+    public boolean isLedgerEnabled() {
+        return this.ledgerEnabled;
+    }
+
+    public int getLedgerSegmentMegabytes() {
+        return this.ledgerSegmentMegabytes;
+    }
+
+    public int getLedgerMaxSegments() {
+        return this.ledgerMaxSegments;
+    }
+
+    public int getRetrievalTimeoutSeconds() {
+        return this.retrievalTimeoutSeconds;
+    }
+
+    public short getPageSize() {
+        return this.pageSize;
+    }
+
+    // Swapped when given the wrong way round, Math.clamp throws on min > max
+    public int getMinY() {
+        return Math.min(this.minY, this.maxY);
+    }
+
+    public int getMaxY() {
+        return Math.max(this.minY, this.maxY);
+    }
+
+    public boolean isCreativeGravestones() {
+        return this.creativeGravestones;
+    }
+
+    public boolean isDebugMode() {
+        return this.debugMode;
+    }
+
+    public int getMaxGravesPerPlayer() {
+        return this.maxGravesPerPlayer;
+    }
+
+    @Nonnull
+    public GravestoneEviction.Policy getEvictionPolicy() {
+        return this.evictionPolicy;
+    }
+
+    public int getNameplateRadius() {
+        return this.nameplateRadius;
+    }
+
+    public int getNameplatePoolSize() {
+        return this.nameplatePoolSize;
+    }
+
+    public boolean isBreakToInventory() {
+        return this.breakToInventory;
+    }
+
+    public boolean isMergeDeaths() {
+        return this.mergeDeaths;
+    }
+
+    public int getEventBufferSize() {
+        return this.eventBufferSize;
+    }
+
+    public int getTransferBudgetMicros() {
+        return this.transferBudgetMicros;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "GravestonesConfig{unlockAfterMinutes=" + this.unlockAfterMinutes
+                + ", removeAfterMinutes=" + this.removeAfterMinutes
+                + ", expiryBatchSize=" + this.expiryBatchSize
+                + ", creationBudgetMicros=" + this.creationBudgetMicros
+                + ", placementSearchRadius=" + this.placementSearchRadius
+                + ", placementMaxBlocks=" + this.placementMaxBlocks
+                + ", metricsLogMinutes=" + this.metricsLogMinutes
+                + ", ledgerEnabled=" + this.ledgerEnabled
+                + ", ledgerSegmentMegabytes=" + this.ledgerSegmentMegabytes
+                + ", ledgerMaxSegments=" + this.ledgerMaxSegments
+                + ", retrievalTimeoutSeconds=" + this.retrievalTimeoutSeconds
+                + ", pageSize=" + this.pageSize
+                + ", minY=" + this.minY
+                + ", maxY=" + this.maxY
+                + ", creativeGravestones=" + this.creativeGravestones
+                + ", debugMode=" + this.debugMode
+                + ", maxGravesPerPlayer=" + this.maxGravesPerPlayer
+                + ", evictionPolicy=" + this.evictionPolicy
+                + ", nameplateRadius=" + this.nameplateRadius
+                + ", nameplatePoolSize=" + this.nameplatePoolSize
+                + ", breakToInventory=" + this.breakToInventory
+                + ", mergeDeaths=" + this.mergeDeaths
+                + ", eventBufferSize=" + this.eventBufferSize
+                + ", transferBudgetMicros=" + this.transferBudgetMicros + "}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.transfer.GravestoneExporter;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * {@code /gravestones export <world> <file>}, writes every gravestone of a world with its items
+ * to a file in the plugin's exports folder, in the background. The sender is told once it is done,
+ * and how many chunks the export could not cover.
+ */
+public class GravestoneExportCommand extends CommandBase {
+
+    private final RequiredArg<String> worldArg;
+    private final RequiredArg<String> fileArg;
+
+    public GravestoneExportCommand() {
+        super("export", "Exports every gravestone of a world to a file");
+        this.requirePermission(GravestonesCommand.ADMIN_PERMISSION);
+        this.worldArg = this.withRequiredArg("world", "World to export", ArgTypes.STRING);
+        this.fileArg = this.withRequiredArg("file", "File name in the exports folder", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        String worldName = this.worldArg.get(context);
+        World world = Universe.get().getWorld(worldName);
+        if (world == null) {
+            context.sendMessage(Message.raw("Unknown world " + worldName));
+            return;
+        }
+
+        Path path = GravestonesCommand.resolveTransferFile(this.fileArg.get(context));
+        if (path == null) {
+            context.sendMessage(Message.raw("File names may only contain letters, digits, '-', '_' and '.'"));
+            return;
+        }
+
+        // The chunks to visit are taken from the index on the world thread
+        world.execute(() -> {
+            var gravestoneWorld = Gravestones.get().getGravestoneWorld(world);
+            // Checked before the file is created, so a running transfer's file is never touched
+            if (gravestoneWorld.isTransferRunning()) {
+                context.sendMessage(Message.raw("An export or import of " + world.getName() + " is already running"));
+                return;
+            }
+
+            GravestoneExporter exporter;
+            try {
+                Files.createDirectories(path.getParent());
+                exporter = new GravestoneExporter(path, world.getName(), gravestoneWorld.getIndex().getChunks());
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Could not create " + path.getFileName() + ": " + e.getMessage()));
+                return;
+            }
+
+            if (!gravestoneWorld.startTransfer(exporter)) {
+                exporter.cancel();
+                context.sendMessage(Message.raw("An export or import of " + world.getName() + " is already running"));
+                return;
+            }
+
+            var index = gravestoneWorld.getIndex();
+            context.sendMessage(Message.raw("Exporting " + index.size() + " gravestones in " + index.chunkCount()
+                    + " chunks of " + world.getName() + "..."));
+            // The index only learns of graves from before it existed as their chunks load
+            context.sendMessage(Message.raw("Gravestones in chunks that haven't loaded since "
+                    + Instant.ofEpochMilli(gravestoneWorld.getIndexFile().getTrackingSince()).truncatedTo(ChronoUnit.SECONDS)
+                    + " are not known to the index and not covered"));
+            exporter.getCompletion().thenAccept(done -> context.sendMessage(Message.raw(done.describe())));
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.ledger.LedgerEntry;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * {@code /gravestones history <player>}, prints the latest ledger records of a player's gravestones.
+ * Reads the ledger only, so it also covers gravestones that are gone or in unloaded chunks.
+ */
+public class GravestoneHistoryCommand extends CommandBase {
+
+    private static final int MAX_ENTRIES = 10;
+    private static final int MAX_ITEMS_SHOWN = 8;
+
+    private final RequiredArg<String> playerArg;
+
+    public GravestoneHistoryCommand() {
+        super("history", "Shows the latest gravestone records of a player");
+        this.requirePermission(GravestonesCommand.ADMIN_PERMISSION);
+        this.playerArg = this.withRequiredArg("player", "Online player name or UUID", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        var ledger = Gravestones.get().getLedger();
+        if (ledger == null) {
+            context.sendMessage(Message.raw("The gravestone ledger is disabled"));
+            return;
+        }
+
+        String player = this.playerArg.get(context);
+        UUID ownerUUID = GravestonesCommand.resolvePlayer(player);
+        if (ownerUUID == null) {
+            context.sendMessage(Message.raw("Unknown player " + player + ", offline players need their UUID"));
+            return;
+        }
+
+        var entries = ledger.lookup(ownerUUID, MAX_ENTRIES);
+        if (entries.isEmpty()) {
+            context.sendMessage(Message.raw("No gravestone records of " + player));
+            return;
+        }
+
+        for (LedgerEntry entry : entries) {
+            context.sendMessage(Message.raw(format(entry)));
+        }
+    }
+
+    @Nonnull
+    private static String format(@Nonnull LedgerEntry entry) {
+        StringBuilder line = new StringBuilder()
+                .append(Instant.ofEpochMilli(entry.time()).truncatedTo(ChronoUnit.SECONDS))
+                .append(' ').append(entry.event())
+                .append(" in ").append(entry.worldName())
+                .append(" at ").append(entry.x()).append(", ").append(entry.y()).append(", ").append(entry.z());
+
+        if (entry.actorUUID() != null) {
+            line.append(" by ").append(entry.actorUUID());
+        }
+
+        var items = entry.items();
+        for (int i = 0; i < items.size() && i < MAX_ITEMS_SHOWN; i++) {
+            line.append(i == 0 ? ": " : ", ").append(items.get(i).quantity()).append("x ").append(items.get(i).itemId());
+        }
+        if (items.size() > MAX_ITEMS_SHOWN) {
+            line.append(" and ").append(items.size() - MAX_ITEMS_SHOWN).append(" more");
+        }
+        return line.toString();
+    }
+}
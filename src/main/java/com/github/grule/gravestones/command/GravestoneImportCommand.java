@@ -0,0 +1,69 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.transfer.GravestoneImporter;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * {@code /gravestones import <world> <file>}, recreates the gravestones of an export file in a world
+ * in the background. Spots that already hold a gravestone or another block are skipped. The sender is told once it is done.
+ */
+public class GravestoneImportCommand extends CommandBase {
+
+    private final RequiredArg<String> worldArg;
+    private final RequiredArg<String> fileArg;
+
+    public GravestoneImportCommand() {
+        super("import", "Recreates the gravestones of an export file in a world");
+        this.requirePermission(GravestonesCommand.ADMIN_PERMISSION);
+        this.worldArg = this.withRequiredArg("world", "World to place the gravestones in", ArgTypes.STRING);
+        this.fileArg = this.withRequiredArg("file", "File name in the exports folder", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        String worldName = this.worldArg.get(context);
+        World world = Universe.get().getWorld(worldName);
+        if (world == null) {
+            context.sendMessage(Message.raw("Unknown world " + worldName));
+            return;
+        }
+
+        Path path = GravestonesCommand.resolveTransferFile(this.fileArg.get(context));
+        if (path == null) {
+            context.sendMessage(Message.raw("File names may only contain letters, digits, '-', '_' and '.'"));
+            return;
+        }
+
+        // Opened here, so a missing or foreign file is reported right away
+        GravestoneImporter importer;
+        try {
+            importer = new GravestoneImporter(path);
+        } catch (IOException e) {
+            context.sendMessage(Message.raw("Could not read " + path.getFileName() + ": " + e.getMessage()));
+            return;
+        }
+
+        world.execute(() -> {
+            if (!Gravestones.get().getGravestoneWorld(world).startTransfer(importer)) {
+                importer.cancel();
+                context.sendMessage(Message.raw("An export or import of " + world.getName() + " is already running"));
+                return;
+            }
+
+            context.sendMessage(Message.raw("Importing gravestones of " + importer.getSourceWorld()
+                    + " into " + world.getName() + "..."));
+            importer.getCompletion().thenAccept(done -> context.sendMessage(Message.raw(done.describe())));
+        });
+    }
+}
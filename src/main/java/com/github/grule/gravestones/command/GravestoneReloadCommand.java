@@ -0,0 +1,30 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@code /gravestones reload}, reads {@code Gravestones.json} again without a restart.
+ */
+public class GravestoneReloadCommand extends CommandBase {
+
+    public GravestoneReloadCommand() {
+        super("reload", "Reloads the gravestones config");
+        this.requirePermission(GravestonesCommand.ADMIN_PERMISSION);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        Gravestones.get().reload().whenComplete((config, error) -> {
+            if (error != null) {
+                context.sendMessage(Message.raw("Failed to reload the gravestones config: " + error.getMessage()));
+            } else {
+                context.sendMessage(Message.raw("Reloaded the gravestones config"));
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /gravestones retrieve [player]}, moves the newest gravestone of a player in the current world
+ * into the sender's inventory, loading its chunk if needed.
+ * Other players' gravestones need {@code gravestones.access_any}, as they would to open them.
+ */
+public class GravestoneRetrieveCommand extends AbstractPlayerCommand {
+
+    public static final String RETRIEVE_PERMISSION = "gravestones.retrieve";
+
+    private final OptionalArg<String> playerArg;
+
+    public GravestoneRetrieveCommand() {
+        super("retrieve", "Moves your newest gravestone into your inventory");
+        this.requirePermission(RETRIEVE_PERMISSION);
+        this.playerArg = this.withOptionalArg("player", "Owner of the gravestone, online player name or UUID", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(
+            @Nonnull CommandContext context,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull PlayerRef playerRef,
+            @Nonnull World world) {
+        var plugin = Gravestones.get();
+        UUID ownerUUID = playerRef.getUuid();
+
+        if (context.provided(this.playerArg)) {
+            String player = this.playerArg.get(context);
+            ownerUUID = GravestonesCommand.resolvePlayer(player);
+            if (ownerUUID == null) {
+                context.sendMessage(Message.raw("Unknown player " + player + ", offline players need their UUID"));
+                return;
+            }
+
+            // Checked up front so chunks are not loaded for nothing, the gravestone checks again
+            if (!ownerUUID.equals(playerRef.getUuid()) && !plugin.getPermissions().canAccessAny(playerRef.getUuid())) {
+                context.sendMessage(Message.translation("gravestones.messages.retrieve.not_owner"));
+                return;
+            }
+        }
+
+        var gravestoneWorld = plugin.getGravestoneWorld(world);
+        var result = gravestoneWorld.getRetrieval().retrieve(
+                world,
+                gravestoneWorld.getIndex(),
+                playerRef,
+                ownerUUID,
+                TimeUnit.SECONDS.toMillis(plugin.getGravestonesConfig().getRetrievalTimeoutSeconds())
+        );
+
+        switch (result) {
+            case STARTED -> context.sendMessage(Message.translation("gravestones.messages.retrieve.started"));
+            case NOT_FOUND -> context.sendMessage(Message.translation("gravestones.messages.retrieve.not_found"));
+            case IN_PROGRESS -> context.sendMessage(Message.translation("gravestones.messages.retrieve.in_progress"));
+        }
+    }
+}
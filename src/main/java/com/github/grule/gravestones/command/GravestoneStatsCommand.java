@@ -0,0 +1,33 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@code /gravestones stats}, prints the runtime metrics of the plugin.
+ */
+public class GravestoneStatsCommand extends CommandBase {
+
+    public GravestoneStatsCommand() {
+        super("stats", "Shows gravestone counters and latencies");
+        this.requirePermission(GravestonesCommand.ADMIN_PERMISSION);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        var plugin = Gravestones.get();
+        for (String line : plugin.getMetrics().summarize(plugin.getGravestoneWorlds(), plugin.getLedger())) {
+            context.sendMessage(Message.raw(line));
+        }
+
+        for (var subscription : plugin.getEvents().getSubscriptions()) {
+            context.sendMessage(Message.raw(String.format("Event subscription %s (%s): %d delivered, %d behind, %d dropped",
+                    subscription.getName(), subscription.getPolicy(), subscription.getDelivered(),
+                    subscription.getLag(), subscription.getDropped())));
+        }
+    }
+}
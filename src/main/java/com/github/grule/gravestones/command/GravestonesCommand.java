@@ -0,0 +1,64 @@
+package com.github.grule.gravestones.command;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Root of the {@code /gravestones} commands, each subcommand requires its own permission.
+ */
+public class GravestonesCommand extends AbstractCommandCollection {
+
+    public static final String ADMIN_PERMISSION = "gravestones.admin";
+
+    // Export files stay in the exports folder, no paths
+    private static final Pattern TRANSFER_FILE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+
+    public GravestonesCommand() {
+        super("gravestones", "Gravestones commands");
+        this.addSubCommand(new GravestoneStatsCommand());
+        this.addSubCommand(new GravestoneHistoryCommand());
+        this.addSubCommand(new GravestoneRetrieveCommand());
+        this.addSubCommand(new GravestoneReloadCommand());
+        this.addSubCommand(new GravestoneExportCommand());
+        this.addSubCommand(new GravestoneImportCommand());
+    }
+
+    /**
+     * Resolves a UUID, or the name of an online player.
+     */
+    @Nullable
+    static UUID resolvePlayer(@Nonnull String player) {
+        try {
+            return UUID.fromString(player);
+        } catch (IllegalArgumentException ignored) {
+            // Not a UUID, try online players
+        }
+
+        for (PlayerRef playerRef : Universe.get().getPlayers()) {
+            if (playerRef.getUsername().equalsIgnoreCase(player)) {
+                return playerRef.getUuid();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves an export file name in the plugin's exports folder, null if it isn't a plain file name.
+     */
+    @Nullable
+    static Path resolveTransferFile(@Nonnull String name) {
+        if (!TRANSFER_FILE_NAME.matcher(name).matches()) {
+            return null;
+        }
+
+        return Gravestones.get().getDataDirectory().resolve("exports").resolve(name);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.grule.gravestones.data;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges partial stacks of lost items before they are stored in a gravestone,
+ * so every slot holds as much as the item allows.
+ */
+public final class GravestoneCompactor {
+
+    private GravestoneCompactor() {
+    }
+
+    /**
+     * Returns the non-empty items merged into as few stacks as possible, in first-seen order.
+     * Stacks only merge when {@link ItemStack#isStackableWith} agrees, so differing
+     * metadata or durability never merges.
+     * <p>
+     * Runs in a single pass. Output stacks are chained per item id hash through an int map
+     * and an int array, so no keys are boxed.
+     */
+    @Nonnull
+    public static List<ItemStack> compact(@Nonnull List<ItemStack> items) {
+        ObjectArrayList<ItemStack> out = new ObjectArrayList<>(items.size());
+        // item id hash -> index of the most recent output stack with that hash
+        Int2IntOpenHashMap heads = new Int2IntOpenHashMap(items.size());
+        heads.defaultReturnValue(-1);
+        // output index -> previous output index with the same hash
+        int[] chain = new int[Math.max(items.size(), 1)];
+
+        for (ItemStack item : items) {
+            if (ItemStack.isEmpty(item)) {
+                continue;
+            }
+
+            int maxStack = item.getItem().getMaxStack();
+            int remaining = item.getQuantity();
+            int hash = item.getItemId().hashCode();
+
+            for (int i = heads.get(hash); i != -1 && remaining > 0; i = chain[i]) {
+                ItemStack target = out.get(i);
+                int space = maxStack - target.getQuantity();
+                if (space <= 0 || !target.isStackableWith(item)) {
+                    continue;
+                }
+
+                int moved = Math.min(space, remaining);
+                out.set(i, target.withQuantity(target.getQuantity() + moved));
+                remaining -= moved;
+            }
+
+            if (remaining > 0) {
+                int index = out.size();
+                out.add(remaining == item.getQuantity() ? item : item.withQuantity(remaining));
+                if (index == chain.length) {
+                    chain = Arrays.copyOf(chain, index << 1);
+                }
+                chain[index] = heads.put(hash, index);
+            }
+        }
+
+        return out;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.grule.gravestones.data;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything a new gravestone is built from, handed to {@link GravestoneState#initialize}
+ * through {@link GravestoneState#place} so the state is created fully populated.
+ */
+public class GravestoneSeed {
+
+    private final UUID ownerUUID;
+    private final String ownerName;
+    private final long deathTime;
+    // Non-empty items only, the first `capacity` go on the visible page
+    private final List<ItemStack> items;
+    private final short capacity;
+    private boolean consumed;
+
+    public GravestoneSeed(
+            @Nonnull UUID ownerUUID,
+            @Nonnull String ownerName,
+            long deathTime,
+            @Nonnull List<ItemStack> items,
+            int maxCapacity) {
+        this.ownerUUID = ownerUUID;
+        this.ownerName = ownerName;
+        this.deathTime = deathTime;
+        this.items = items;
+        this.capacity = (short) Math.min(maxCapacity, items.size());
+    }
+
+    @Nonnull
+    public UUID getOwnerUUID() {
+        return this.ownerUUID;
+    }
+
+    @Nonnull
+    public String getOwnerName() {
+        return this.ownerName;
+    }
+
+    public long getDeathTime() {
+        return this.deathTime;
+    }
+
+    @Nonnull
+    public List<ItemStack> getItems() {
+        return this.items;
+    }
+
+    public short getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Items beyond the visible page, stored in the overflow pages.
+     */
+    @Nonnull
+    public List<ItemStack> getOverflow() {
+        return this.capacity >= this.items.size() ? List.of() : this.items.subList(this.capacity, this.items.size());
+    }
+
+    /**
+     * Whether a gravestone has been built from this seed.
+     */
+    public boolean isConsumed() {
+        return this.consumed;
+    }
+
+    /**
+     * Marks the items as stored, by a new gravestone or when they are added to an existing one.
+     */
+    public void markConsumed() {
+        this.consumed = true;
+    }
+}
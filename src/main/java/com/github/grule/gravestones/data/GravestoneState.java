@@ -1,11 +1,17 @@
 package com.github.grule.gravestones.data;
 
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.event.GravestoneEventType;
+import com.github.grule.gravestones.ledger.LedgerEvent;
+import com.github.grule.gravestones.world.PackedPosition;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 import com.hypixel.hytale.component.*;
 import com.hypixel.hytale.event.EventPriority;
-import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.server.core.Message;
@@ -18,12 +24,18 @@ import com.hypixel.hytale.server.core.entity.entities.player.windows.WindowManag
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.filter.FilterType;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.ListTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.SlotTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.Transaction;
 import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
-import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockStateModule;
 import com.hypixel.hytale.server.core.universe.world.meta.state.*;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
@@ -32,11 +44,12 @@ import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.awt.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
 
 /**
  * A custom gravestone block that stores items and is owned by a specific player.
@@ -47,7 +60,18 @@ public class GravestoneState extends ItemContainerState
         implements ItemContainerBlockState, DestroyableBlockState, BreakValidatedBlockState {
 
     /**
-     * Codec for serializing/deserializing GravestoneState
+     * Version of the compact encoding, written under "V".
+     * States saved without it use the legacy keyed layout.
+     */
+    public static final int ENCODING_VERSION = 2;
+
+    /**
+     * Codec for serializing/deserializing GravestoneState.
+     * <p>
+     * Writes the compact layout: short keys, default values skipped and only occupied
+     * slots as sparse pairs of parallel arrays, stacks under "I" and their slots under "S".
+     * "S" is left out when the stacks fill the first slots without gaps.
+     * The legacy keys are still read, so old saves migrate the next time their chunk is saved.
      */
     public static final Codec<GravestoneState> CODEC = BuilderCodec
             .builder(
@@ -55,57 +79,127 @@ public class GravestoneState extends ItemContainerState
                     GravestoneState::new,
                     BlockState.BASE_CODEC
             )
+            // ===== Compact layout =====
             .append(
-                    new KeyedCodec<>("OwnerUUID", Codec.UUID_BINARY),
+                    new KeyedCodec<>("V", Codec.INTEGER),
+                    (state, version) -> state.encodingVersion = version,
+                    state -> ENCODING_VERSION
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("O", Codec.UUID_BINARY),
                     (state, uuid) -> state.ownerUUID = uuid,
                     state -> state.ownerUUID
             )
             .add()
             .append(
-                    new KeyedCodec<>("GravestoneUUID", Codec.UUID_BINARY),
+                    new KeyedCodec<>("G", Codec.UUID_BINARY),
                     (state, uuid) -> state.gravestoneUUID = uuid,
                     state -> state.gravestoneUUID
             )
             .add()
             .append(
-                    new KeyedCodec<>("OwnerName", Codec.STRING),
-                    (state, name) -> state.ownerName = name,
+                    new KeyedCodec<>("N", Codec.STRING),
+                    (state, name) -> state.ownerName = name.intern(),
                     state -> state.ownerName
             )
             .add()
             .append(
-                    new KeyedCodec<>("DeathTime", Codec.LONG),
+                    new KeyedCodec<>("T", Codec.LONG),
                     (state, time) -> state.deathTime = time,
                     state -> state.deathTime
             )
             .add()
+            .append(
+                    new KeyedCodec<>("A", Codec.BOOLEAN),
+                    (state, allow) -> state.allowOthersAccess = allow,
+                    state -> state.allowOthersAccess ? Boolean.TRUE : null
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("C", Codec.SHORT),
+                    (state, capacity) -> state.dynamicCapacity = capacity,
+                    state -> state.dynamicCapacity > 0 ? state.dynamicCapacity : null
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("I", new ArrayCodec<>(ItemStack.CODEC, ItemStack[]::new)),
+                    (state, items) -> state.decodedItems = items,
+                    GravestoneState::encodeItems
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("S", new ArrayCodec<>(Codec.SHORT, Short[]::new)),
+                    (state, slots) -> state.decodedSlots = slots,
+                    GravestoneState::encodeSlots
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("X", new ArrayCodec<>(ItemStack.CODEC, ItemStack[]::new)),
+                    (state, items) -> state.overflow = new ObjectArrayList<>(items),
+                    state -> state.overflow.isEmpty() ? null : state.overflow.toArray(ItemStack[]::new)
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("P", Codec.UUID_BINARY),
+                    (state, uuid) -> state.nameplateUUID = uuid,
+                    state -> state.nameplateUUID
+            )
+            .add()
+            // ===== Legacy layout, read only =====
+            .append(
+                    new KeyedCodec<>("OwnerUUID", Codec.UUID_BINARY),
+                    (state, uuid) -> state.ownerUUID = uuid,
+                    state -> null
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("GravestoneUUID", Codec.UUID_BINARY),
+                    (state, uuid) -> state.gravestoneUUID = uuid,
+                    state -> null
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("OwnerName", Codec.STRING),
+                    (state, name) -> state.ownerName = name.intern(),
+                    state -> null
+            )
+            .add()
+            .append(
+                    new KeyedCodec<>("DeathTime", Codec.LONG),
+                    (state, time) -> state.deathTime = time,
+                    state -> null
+            )
+            .add()
             .append(
                     new KeyedCodec<>("AllowOthersAccess", Codec.BOOLEAN),
                     (state, allow) -> state.allowOthersAccess = allow,
-                    state -> state.allowOthersAccess
+                    state -> null
             )
             .add()
             .append(
                     new KeyedCodec<>("ItemContainer", SimpleItemContainer.CODEC),
                     (state, container) -> state.itemContainer = container,
-                    state -> state.itemContainer
+                    state -> null
             )
             .add()
             .append(
                     new KeyedCodec<>("DynamicCapacity", Codec.SHORT),
                     (state, capacity) -> state.dynamicCapacity = capacity,
-                    state -> state.dynamicCapacity
+                    state -> null
             )
             .add()
             .append(
                     new KeyedCodec<>("NameplateUUID", Codec.UUID_BINARY),
                     (state, uuid) -> state.nameplateUUID = uuid,
-                    state -> state.nameplateUUID
+                    state -> null
             )
             .add()
             .build();
 
-    private final Map<UUID, ContainerBlockWindow> windows = new ConcurrentHashMap<>();
+    // Created on first open, most gravestones are never opened after they load
+    @Nullable
+    private volatile Map<UUID, ContainerBlockWindow> windows;
     // Owner's UUID - only this player can access the gravestone
     @Nullable
     protected UUID ownerUUID;
@@ -117,10 +211,53 @@ public class GravestoneState extends ItemContainerState
     protected boolean allowOthersAccess = false;
     // Dynamic capacity - set based on number of items stored
     protected short dynamicCapacity = 0;
+    // The visible page, at most PAGE_SIZE slots
     @Nullable
     protected SimpleItemContainer itemContainer;
+    // Stacks beyond the visible page, moved into the container page by page as it empties
+    protected ObjectArrayList<ItemStack> overflow = new ObjectArrayList<>();
     @Nullable
     protected UUID nameplateUUID;
+    // Version the state was decoded from, 0 for the legacy layout
+    private int encodingVersion;
+    // Sparse slots from the compact layout, kept as they are until hydrate() turns them into the container
+    @Nullable
+    private ItemStack[] decodedItems;
+    @Nullable
+    private Short[] decodedSlots;
+    // Capacity of the container hydrate() builds, -1 once there is a container
+    private short pendingCapacity = -1;
+    // Set when the gravestone is removed by expiry, its contents are discarded instead of dropped
+    private boolean expired;
+    // Set when another gravestone absorbed the contents, breaking it is recorded as a merge
+    private boolean merged;
+    // Number of non-empty slots, kept up to date from container change events
+    private int occupiedSlots;
+    // Set once a self-break has been scheduled, so it is only scheduled once
+    private boolean breakPending;
+
+    // Set once onItemChange is registered on the current container, see getItemContainer()
+    private boolean listening;
+    // Open beginBatch() scopes, changes inside them are settled once the outermost one ends
+    private int batchDepth;
+    // Set when a change happened inside the open batch
+    private boolean batchChanged;
+    // Set when a change inside the open batch needs the occupied slots recounted
+    private boolean batchRecount;
+    // Last players allowed to open and to break this gravestone, recorded in the ledger
+    @Nullable
+    private UUID lastOpenedBy;
+    @Nullable
+    private UUID destroyedBy;
+
+    // Seed of the gravestone currently being placed by place(), consumed by initialize()
+    private static final ThreadLocal<GravestoneSeed> PENDING_SEED = new ThreadLocal<>();
+
+    /**
+     * Most slots shown at once, more would overflow the window on screen.
+     * The page size actually used comes from the config.
+     */
+    public static final short PAGE_SIZE = 63;
 
     private static final Message NOT_OWNER_MESSAGE = Message.translation("gravestones.messages.access.not_owner").color(Color.RED);
     private static final Message NOT_EMPTY_MESSAGE = Message.translation("gravestones.messages.access.not_empty").color(Color.RED);
@@ -135,23 +272,173 @@ public class GravestoneState extends ItemContainerState
 
     @Override
     public void onItemChange(ItemContainer.ItemContainerChangeEvent event) {
-        // Check if container is now empty
-        if (this.itemContainer == null || this.itemContainer.isEmpty() || this.itemContainer.countItemStacks(item -> !item.isEmpty()) == 0) {
-            WorldChunk chunk = this.getChunk();
-            if (chunk == null) return;
+        this.applyTransaction(event.transaction());
 
-            World world = chunk.getWorld();
-            Vector3i pos = this.getBlockPosition();
+        if (this.batchDepth > 0) {
+            this.batchChanged = true;
+            return;
+        }
 
-            // Execute on world thread for safety
-            world.execute(() -> world.breakBlock(pos.x, pos.y, pos.z, 0));
+        this.settle();
+    }
+
+    /**
+     * Reacts to changed contents: shows the next page once the current one has been emptied,
+     * breaks the gravestone once it is empty and marks it for saving.
+     */
+    private void settle() {
+        if (this.occupiedSlots == 0 && !this.overflow.isEmpty()) {
+            this.loadNextPage();
+        }
+
+        if (this.isContainerEmpty()) {
+            this.scheduleSelfBreak();
         }
 
         this.markNeedsSave();
     }
 
+    /**
+     * Opens a scope in which reactions to changed contents are deferred.
+     * The container still fires an event per changed slot and each is counted as it comes,
+     * but paging, the emptiness check and the save mark run once when the outermost scope ends,
+     * instead of once per slot.
+     * Changes to the overflow pages don't fire container events, callers report them with {@link #markBatchChanged()}.
+     * Must be called on the world thread, followed by {@link #endBatch()} in a finally block.
+     */
+    public void beginBatch() {
+        this.ensureListening();
+        this.batchDepth++;
+    }
+
+    /**
+     * Records a change the container doesn't report, settled when the open batch ends.
+     */
+    public void markBatchChanged() {
+        this.batchChanged = true;
+    }
+
+    /**
+     * Ends the scope opened by {@link #beginBatch()}, settling its changes if it is the outermost one.
+     */
+    public void endBatch() {
+        if (--this.batchDepth > 0 || !this.batchChanged) {
+            return;
+        }
+
+        this.batchChanged = false;
+        if (this.batchRecount) {
+            this.batchRecount = false;
+            this.recountOccupiedSlots();
+        }
+        this.settle();
+    }
+
+    /**
+     * Moves up to one page of overflow stacks into the empty slots of the container.
+     */
+    private void loadNextPage() {
+        if (this.itemContainer == null) {
+            return;
+        }
+
+        this.beginBatch();
+        try {
+            int taken = 0;
+            for (short slot = 0; slot < this.itemContainer.getCapacity() && taken < this.overflow.size(); slot++) {
+                if (ItemStack.isEmpty(this.itemContainer.getItemStack(slot))) {
+                    // Bypass the extraction-only filter, this is not a player storing items
+                    this.itemContainer.addItemStackToSlot(slot, this.overflow.get(taken++), true, false);
+                }
+            }
+            this.overflow.removeElements(0, taken);
+        } finally {
+            this.endBatch();
+        }
+    }
+
+    /**
+     * Updates the occupied slot count from a container transaction.
+     * Transactions that don't describe their slots fall back to a recount.
+     */
+    private void applyTransaction(Transaction transaction) {
+        if (transaction instanceof SlotTransaction slotTransaction) {
+            if (!slotTransaction.succeeded()) {
+                return;
+            }
+
+            boolean wasOccupied = !ItemStack.isEmpty(slotTransaction.getSlotBefore());
+            boolean isOccupied = !ItemStack.isEmpty(slotTransaction.getSlotAfter());
+            if (wasOccupied != isOccupied) {
+                this.occupiedSlots += isOccupied ? 1 : -1;
+            }
+
+            if (this.occupiedSlots < 0) {
+                this.recountLater();
+            }
+        } else if (transaction instanceof ListTransaction<?> listTransaction) {
+            for (Transaction child : listTransaction.getList()) {
+                this.applyTransaction(child);
+            }
+        } else {
+            this.recountLater();
+        }
+    }
+
+    /**
+     * Recounts the occupied slots, inside a batch only once when it ends.
+     */
+    private void recountLater() {
+        if (this.batchDepth > 0) {
+            this.batchRecount = true;
+        } else {
+            this.recountOccupiedSlots();
+        }
+    }
+
+    private void recountOccupiedSlots() {
+        int occupied = 0;
+        if (this.itemContainer != null) {
+            for (short i = 0; i < this.itemContainer.getCapacity(); i++) {
+                if (!ItemStack.isEmpty(this.itemContainer.getItemStack(i))) {
+                    occupied++;
+                }
+            }
+        }
+
+        this.occupiedSlots = occupied;
+    }
+
+    /**
+     * Whether the gravestone holds no items, overflow included.
+     */
+    public boolean isContainerEmpty() {
+        return this.occupiedSlots == 0 && this.overflow.isEmpty();
+    }
+
+    /**
+     * Places a gravestone block that is initialized straight from the seed:
+     * one container at the exact capacity, one listener and a single save mark.
+     * Must be called on the world thread.
+     */
+    public static void place(@Nonnull World world, int x, int y, int z, @Nonnull GravestoneSeed seed) {
+        PENDING_SEED.set(seed);
+        try {
+            world.setBlock(x, y, z, "Gravestone");
+        } finally {
+            PENDING_SEED.remove();
+        }
+    }
+
     @Override
     public boolean initialize(@Nonnull BlockType blockType) {
+        GravestoneSeed seed = PENDING_SEED.get();
+        if (seed != null) {
+            PENDING_SEED.remove();
+            this.initializeFromSeed(seed);
+            return true;
+        }
+
         // Determine capacity: use dynamic if set, otherwise use StateData
         short capacity;
         if (this.dynamicCapacity > 0) {
@@ -166,49 +453,240 @@ public class GravestoneState extends ItemContainerState
             }
         }
 
-        // Ensure container has correct capacity
-        List<ItemStack> remainder = new ObjectArrayList<>();
-        this.itemContainer = ItemContainer.ensureContainerCapacity(
-                this.itemContainer,
-                capacity,
-                SimpleItemContainer::new,
-                remainder
-        );
+        // Rewrite legacy saves in the compact layout with the next chunk save
+        if (this.ownerUUID != null && this.encodingVersion < ENCODING_VERSION) {
+            this.markNeedsSave();
+        }
 
-        this.itemContainer.registerChangeEvent(EventPriority.LAST, this::onItemChange);
+        // Compact saves stay as decoded until first access, most gravestones are never opened before they unload
+        int occupied = this.itemContainer == null ? this.countDecodedSlots(capacity) : -1;
+        if (occupied >= 0) {
+            this.pendingCapacity = capacity;
+            this.occupiedSlots = occupied;
+            this.listening = false;
+            return true;
+        }
 
-        // Handle excess items (drop them if capacity is exceeded)
+        List<ItemStack> remainder = new ObjectArrayList<>();
+        this.itemContainer = this.buildContainer(capacity, remainder);
+        this.listening = false;
+        this.recountOccupiedSlots();
+
+        // Excess items move to the overflow pages instead of being dropped
         if (!remainder.isEmpty()) {
-            WorldChunk chunk = this.getChunk();
-            assert chunk != null;
-            World world = chunk.getWorld();
-            Store<EntityStore> store = world.getEntityStore().getStore();
-
-            HytaleLogger.getLogger()
-                    .at(Level.WARNING)
-                    .withCause(new Throwable())
-                    .log(
-                            "Dropping %d excess items from gravestone: %s at world: %s, chunk: %s, block: %s",
-                            remainder.size(),
-                            blockType.getId(),
-                            chunk.getWorld().getName(),
-                            chunk,
-                            this.getPosition()
-                    );
-
-            Vector3i blockPosition = this.getBlockPosition();
-            Holder<EntityStore>[] itemEntityHolders = ItemComponent.generateItemDrops(
-                    store,
-                    remainder,
-                    blockPosition.toVector3d(),
-                    Vector3f.ZERO
-            );
-            store.addEntities(itemEntityHolders, AddReason.SPAWN);
+            this.overflow.addAll(remainder);
+            this.markNeedsSave();
         }
 
         return true;
     }
 
+    /**
+     * Counts the stacks of the compact layout, -1 if one of them lies beyond the capacity
+     * and has to move to the overflow pages right away.
+     */
+    private int countDecodedSlots(short capacity) {
+        if (this.decodedItems == null) {
+            return 0;
+        }
+
+        int occupied = 0;
+        for (int i = 0; i < this.decodedItems.length; i++) {
+            if (ItemStack.isEmpty(this.decodedItems[i])) {
+                continue;
+            }
+
+            short slot = this.decodedSlots != null && i < this.decodedSlots.length ? this.decodedSlots[i] : (short) i;
+            if (slot < 0 || slot >= capacity) {
+                return -1;
+            }
+            occupied++;
+        }
+        return occupied;
+    }
+
+    /**
+     * Builds the container from the stacks kept since loading, on first access.
+     * Every stack fits, initialize() checked that.
+     */
+    private void hydrate() {
+        if (this.pendingCapacity < 0) {
+            return;
+        }
+
+        short capacity = this.pendingCapacity;
+        this.pendingCapacity = -1;
+        this.itemContainer = this.buildContainer(capacity, new ObjectArrayList<>(0));
+        this.listening = false;
+    }
+
+    /**
+     * Builds the container of a loaded gravestone from what was decoded, the legacy container or the sparse slots.
+     * initialize() and hydrate() both build it here, so a container built on first access is the one
+     * initialize() would have built. Stacks beyond the capacity go to the remainder.
+     */
+    @Nonnull
+    private SimpleItemContainer buildContainer(short capacity, @Nonnull List<ItemStack> remainder) {
+        SimpleItemContainer container = this.decodedItems != null
+                ? this.restoreDecodedSlots(capacity, remainder)
+                : this.itemContainer;
+        return extractionOnly(ItemContainer.ensureContainerCapacity(container, capacity, SimpleItemContainer::new, remainder));
+    }
+
+    /**
+     * Adds every stored stack to the list without taking it out, the visible page in slot order
+     * and then the overflow pages. Doesn't build a container that isn't there yet.
+     */
+    public void collectContents(@Nonnull List<ItemStack> into) {
+        ItemStack[] items = this.encodeItems();
+        if (items != null) {
+            for (ItemStack itemStack : items) {
+                if (!ItemStack.isEmpty(itemStack)) {
+                    into.add(itemStack);
+                }
+            }
+        }
+        into.addAll(this.overflow);
+    }
+
+    /**
+     * Takes every stack out of the visible page, without building a container that isn't there yet.
+     */
+    private void drainSlots(@Nonnull List<ItemStack> into) {
+        if (this.itemContainer != null) {
+            into.addAll(this.itemContainer.dropAllItemStacks());
+        } else if (this.decodedItems != null) {
+            for (ItemStack itemStack : this.decodedItems) {
+                if (!ItemStack.isEmpty(itemStack)) {
+                    into.add(itemStack);
+                }
+            }
+            this.decodedItems = null;
+            this.decodedSlots = null;
+        }
+        this.occupiedSlots = 0;
+    }
+
+    /**
+     * Builds the container from the sparse slots of the compact layout.
+     * Slots beyond the capacity go to the remainder.
+     */
+    @Nonnull
+    private SimpleItemContainer restoreDecodedSlots(short capacity, @Nonnull List<ItemStack> remainder) {
+        var container = new SimpleItemContainer(capacity);
+        for (int i = 0; i < this.decodedItems.length; i++) {
+            ItemStack itemStack = this.decodedItems[i];
+            if (ItemStack.isEmpty(itemStack)) {
+                continue;
+            }
+
+            short slot = this.decodedSlots != null && i < this.decodedSlots.length ? this.decodedSlots[i] : (short) i;
+            if (slot >= 0 && slot < capacity) {
+                container.addItemStackToSlot(slot, itemStack);
+            } else {
+                remainder.add(itemStack);
+            }
+        }
+
+        this.decodedItems = null;
+        this.decodedSlots = null;
+        return container;
+    }
+
+    /**
+     * Stacks of the occupied slots in slot order, null when there are none.
+     */
+    @Nullable
+    private ItemStack[] encodeItems() {
+        if (this.itemContainer == null) {
+            return this.decodedItems;
+        }
+
+        if (this.occupiedSlots == 0) {
+            return null;
+        }
+
+        ItemStack[] items = new ItemStack[this.occupiedSlots];
+        int count = 0;
+        for (short i = 0; i < this.itemContainer.getCapacity() && count < items.length; i++) {
+            ItemStack itemStack = this.itemContainer.getItemStack(i);
+            if (!ItemStack.isEmpty(itemStack)) {
+                items[count++] = itemStack;
+            }
+        }
+
+        return count == items.length ? items : Arrays.copyOf(items, count);
+    }
+
+    /**
+     * Slots of the stacks written by {@link #encodeItems()}, null when they are the first slots without gaps.
+     */
+    @Nullable
+    private Short[] encodeSlots() {
+        if (this.itemContainer == null) {
+            return this.decodedSlots;
+        }
+
+        if (this.occupiedSlots == 0) {
+            return null;
+        }
+
+        short capacity = this.itemContainer.getCapacity();
+        boolean dense = true;
+        for (short i = 0; i < capacity; i++) {
+            if (ItemStack.isEmpty(this.itemContainer.getItemStack(i)) == (i < this.occupiedSlots)) {
+                dense = false;
+                break;
+            }
+        }
+
+        if (dense) {
+            return null;
+        }
+
+        Short[] slots = new Short[this.occupiedSlots];
+        int count = 0;
+        for (short i = 0; i < capacity && count < slots.length; i++) {
+            if (!ItemStack.isEmpty(this.itemContainer.getItemStack(i))) {
+                slots[count++] = i;
+            }
+        }
+
+        return count == slots.length ? slots : Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Makes a freshly filled container extraction-only, so players can't use gravestones as storage chests.
+     * Every container of a gravestone goes through here, the plugin itself adds stacks with the filter bypassed.
+     */
+    @Nonnull
+    private static SimpleItemContainer extractionOnly(@Nonnull SimpleItemContainer container) {
+        container.setGlobalFilter(FilterType.ALLOW_OUTPUT_ONLY);
+        return container;
+    }
+
+    private void initializeFromSeed(@Nonnull GravestoneSeed seed) {
+        this.ownerUUID = seed.getOwnerUUID();
+        this.ownerName = seed.getOwnerName().intern();
+        this.deathTime = seed.getDeathTime();
+        this.dynamicCapacity = seed.getCapacity();
+
+        // The listener is registered once something outside asks for the container
+        var items = seed.getItems();
+        this.pendingCapacity = -1;
+        this.itemContainer = new SimpleItemContainer(this.dynamicCapacity);
+        for (short slot = 0; slot < this.dynamicCapacity; slot++) {
+            this.itemContainer.addItemStackToSlot(slot, items.get(slot));
+        }
+        this.occupiedSlots = this.dynamicCapacity;
+        this.overflow.addAll(seed.getOverflow());
+        extractionOnly(this.itemContainer);
+        this.listening = false;
+
+        seed.markConsumed();
+        this.markNeedsSave();
+    }
+
     /**
      * Check if a player can open this gravestone.
      * Only the owner can access their gravestone by default.
@@ -218,109 +696,235 @@ public class GravestoneState extends ItemContainerState
             @Nonnull Ref<EntityStore> playerRef,
             @Nonnull ComponentAccessor<EntityStore> componentAccessor
     ) {
-        var player = playerRef.getStore().getComponent(playerRef, Player.getComponentType());
-        assert player != null;
         var uuidComponent = componentAccessor.getComponent(
                 playerRef,
                 UUIDComponent.getComponentType()
         );
         assert uuidComponent != null;
+        UUID playerUUID = uuidComponent.getUuid();
 
-        if (PermissionsModule.get().hasPermission(uuidComponent.getUuid(), "gravestones.access_any")) {
+        // The owner never needs a permission lookup
+        boolean isOwner = playerUUID.equals(this.ownerUUID);
+        if (!isOwner && Gravestones.get().getPermissions().canAccessAny(playerUUID)) {
+            this.lastOpenedBy = playerUUID;
             return true;
         }
 
         // check if container is empty
-        if (this.itemContainer == null || this.itemContainer.isEmpty() || this.itemContainer.countItemStacks(item -> !item.isEmpty()) == 0) {
+        if (this.isContainerEmpty()) {
             this.destroyBlockWhenEmpty();
             return false;
         }
 
-        if (this.ownerUUID == null) {
-            return true;
-        }
-
-        if (uuidComponent.getUuid().equals(this.ownerUUID)) {
-            return true;
-        }
-
-        if (this.allowOthersAccess) {
+        if (this.ownerUUID == null || isOwner || this.allowOthersAccess) {
+            this.lastOpenedBy = playerUUID;
             return true;
         }
 
+        var player = componentAccessor.getComponent(playerRef, Player.getComponentType());
+        assert player != null;
         player.sendMessage(NOT_OWNER_MESSAGE.param("owner", this.ownerName != null ? this.ownerName : "someone else"));
         return false;
     }
 
     @Override
     public boolean canDestroy(@NonNullDecl Ref<EntityStore> playerRef, @NonNullDecl ComponentAccessor<EntityStore> componentAccessor) {
-        var player = playerRef.getStore().getComponent(playerRef, Player.getComponentType());
-        assert player != null;
         var uuidComponent = componentAccessor.getComponent(
                 playerRef,
                 UUIDComponent.getComponentType()
         );
         assert uuidComponent != null;
+        UUID playerUUID = uuidComponent.getUuid();
 
-        if (PermissionsModule.get().hasPermission(uuidComponent.getUuid(), "gravestones.destroy_any")) {
-            this.destroyBlockWhenEmpty();
+        // Owner, unowned, unlocked and empty gravestones never need a permission lookup
+        if (this.ownerUUID == null || playerUUID.equals(this.ownerUUID) || this.allowOthersAccess || this.isContainerEmpty()) {
+            this.destroyedBy = playerUUID;
             return true;
         }
 
-        // check if container is empty
-        if (this.itemContainer == null || this.itemContainer.isEmpty() || this.itemContainer.countItemStacks(item -> !item.isEmpty()) == 0) {
+        if (Gravestones.get().getPermissions().canDestroyAny(playerUUID)) {
+            this.destroyedBy = playerUUID;
+            this.destroyBlockWhenEmpty();
             return true;
         }
 
-        if (this.ownerUUID == null) {
-            return true;
+        var player = componentAccessor.getComponent(playerRef, Player.getComponentType());
+        assert player != null;
+        player.sendMessage(NOT_EMPTY_MESSAGE);
+        return false;
+    }
+
+    /**
+     * Whether the player may take items out of this gravestone, the ownership rules of {@link #canOpen}.
+     */
+    public boolean isAccessibleBy(@Nonnull UUID playerUUID) {
+        return this.ownerUUID == null || playerUUID.equals(this.ownerUUID) || this.allowOthersAccess
+                || Gravestones.get().getPermissions().canAccessAny(playerUUID);
+    }
+
+    /**
+     * Moves as many stacks as fit into the target container, the overflow pages first, then the visible page.
+     * Whatever doesn't fit stays in the gravestone, which breaks itself once empty as with looting.
+     * Must be called on the world thread.
+     *
+     * @param playerUUID player the items go to, recorded as the looter
+     * @return the number of stacks moved fully or partially
+     */
+    public int transferTo(@Nonnull ItemContainer target, @Nonnull UUID playerUUID) {
+        this.lastOpenedBy = playerUUID;
+        int moved = 0;
+
+        // The next page and the break wait until the batch ends,
+        // a partially moved stack leaves its slot empty until the remainder is put back
+        this.beginBatch();
+        try {
+            // Overflow stacks are not in the container, no change events involved
+            for (int i = 0; i < this.overflow.size(); ) {
+                ItemStack itemStack = this.overflow.get(i);
+                ItemStack remainder = target.addItemStack(itemStack).getRemainder();
+                if (ItemStack.isEmpty(remainder)) {
+                    this.overflow.remove(i);
+                    this.markBatchChanged();
+                    moved++;
+                    continue;
+                }
+
+                if (remainder.getQuantity() != itemStack.getQuantity()) {
+                    this.overflow.set(i, remainder);
+                    this.markBatchChanged();
+                    moved++;
+                }
+                i++;
+            }
+
+            if (this.itemContainer != null) {
+                for (short slot = 0; slot < this.itemContainer.getCapacity(); slot++) {
+                    ItemStack itemStack = this.itemContainer.getItemStack(slot);
+                    if (ItemStack.isEmpty(itemStack)) {
+                        continue;
+                    }
+
+                    ItemStack remainder = target.addItemStack(itemStack).getRemainder();
+                    if (!ItemStack.isEmpty(remainder) && remainder.getQuantity() == itemStack.getQuantity()) {
+                        continue;
+                    }
+
+                    this.itemContainer.removeItemStackFromSlot(slot);
+                    if (!ItemStack.isEmpty(remainder)) {
+                        // Bypass the extraction-only filter, the remainder goes back where it was
+                        this.itemContainer.addItemStackToSlot(slot, remainder, true, false);
+                    }
+                    moved++;
+                }
+            }
+        } finally {
+            this.endBatch();
         }
 
-        if (uuidComponent.getUuid().equals(this.ownerUUID)) {
-            return true;
+        return moved;
+    }
+
+    /**
+     * Moves every stack of the source gravestone into the overflow pages of this one, leaving the source empty.
+     * The caller breaks the source afterwards. Must be called on the world thread.
+     */
+    public void absorb(@Nonnull GravestoneState source) {
+        // The caller breaks the source, emptying it must not schedule a second break
+        source.breakPending = true;
+        source.merged = true;
+
+        List<ItemStack> items = new ObjectArrayList<>(source.getStoredStackCount());
+        source.drainSlots(items);
+        items.addAll(source.overflow);
+        source.overflow.clear();
+        source.markNeedsSave();
+
+        // Ending the batch shows the new stacks if the visible page is empty
+        this.beginBatch();
+        try {
+            this.overflow.addAll(GravestoneCompactor.compact(items));
+            this.markBatchChanged();
+        } finally {
+            this.endBatch();
         }
+    }
 
-        if (this.allowOthersAccess) {
-            return true;
+    /**
+     * Adds the items of a later death of the owner at the same spot, instead of placing another gravestone.
+     * The visible page grows up to the page size, the rest goes to the overflow pages merged with what is there.
+     * The death time moves to the new death, so the new items get the full protection.
+     * Must be called on the world thread.
+     */
+    public void append(@Nonnull List<ItemStack> items, short pageSize, long deathTime) {
+        this.hydrate();
+        this.deathTime = deathTime;
+
+        int wanted = Math.min(pageSize, this.occupiedSlots + this.overflow.size() + items.size());
+        if (this.itemContainer == null || wanted > this.itemContainer.getCapacity()) {
+            // Windows show the container that is about to be replaced
+            if (this.windows != null) {
+                WindowManager.closeAndRemoveAll(this.windows);
+            }
+            this.setDynamicCapacity((short) Math.max(wanted, this.occupiedSlots));
         }
 
-        player.sendMessage(NOT_EMPTY_MESSAGE);
-        return false;
+        this.beginBatch();
+        try {
+            List<ItemStack> overflow = new ObjectArrayList<>(this.overflow.size() + items.size());
+            overflow.addAll(this.overflow);
+            overflow.addAll(items);
+            this.overflow.clear();
+            this.overflow.addAll(GravestoneCompactor.compact(overflow));
+
+            // Fill the empty slots right away, not only once the page is empty
+            this.loadNextPage();
+            this.markBatchChanged();
+        } finally {
+            this.endBatch();
+        }
     }
 
     /**
      * Called when the gravestone block is destroyed.
-     * Drops all items and closes all windows.
+     * Gives all items to the player who broke it when allowed, otherwise drops them, and closes all windows.
      */
     @Override
     public void onDestroy() {
         // Close all open windows
-        WindowManager.closeAndRemoveAll(this.windows);
+        if (this.windows != null) {
+            WindowManager.closeAndRemoveAll(this.windows);
+        }
 
         var chunk = this.getChunk();
         assert chunk != null;
         var world = chunk.getWorld();
         var store = world.getEntityStore().getStore();
 
-        // Drop all items
-        if (this.itemContainer != null && !this.itemContainer.isEmpty()) {
-            var allItemStacks = this.itemContainer.dropAllItemStacks();
-            var dropPosition = this.getBlockPosition().toVector3d().add(0.5, 0.5, 0.5);
+        var blockPosition = this.getBlockPosition();
+        var gravestoneWorld = Gravestones.get().getGravestoneWorld(world);
+        gravestoneWorld.getIndex().remove(blockPosition.x, blockPosition.y, blockPosition.z);
+        gravestoneWorld.getExpiry().cancel(blockPosition.x, blockPosition.y, blockPosition.z);
 
-            Holder<EntityStore>[] itemEntityHolders = ItemComponent.generateItemDrops(
-                    store,
-                    allItemStacks,
-                    dropPosition,
-                    Vector3f.ZERO
-            );
+        this.recordEnd(world, blockPosition.x, blockPosition.y, blockPosition.z);
 
-            if (itemEntityHolders.length > 0) {
-                world.execute(() -> store.addEntities(itemEntityHolders, AddReason.SPAWN));
-            }
+        // Give all items to the player who broke the gravestone, drop what doesn't fit
+        if (!this.expired && !this.isContainerEmpty()) {
+            List<ItemStack> allItemStacks = new ObjectArrayList<>(this.overflow);
+            this.overflow.clear();
+            this.drainSlots(allItemStacks);
+
+            var dropPosition = this.getBlockPosition().toVector3d().add(0.5, 0.5, 0.5);
+            UUID receiver = this.destroyedBy != null
+                    && Gravestones.get().getGravestonesConfig().isBreakToInventory()
+                    && this.isAccessibleBy(this.destroyedBy) ? this.destroyedBy : null;
+
+            world.execute(() -> deliver(world, receiver, allItemStacks, dropPosition));
         }
 
+        // Remove the nameplate if it is shown, otherwise the pooled or stale entity the gravestone recorded
+        long pos = PackedPosition.pack(blockPosition.x, blockPosition.y, blockPosition.z);
         world.execute(() -> {
-            if (this.nameplateUUID == null) {
+            if (gravestoneWorld.getNameplates().discard(world, pos) || this.nameplateUUID == null) {
                 return;
             }
 
@@ -333,20 +937,150 @@ public class GravestoneState extends ItemContainerState
         });
     }
 
+    /**
+     * Adds the stacks of a broken gravestone to the receiver's inventory in one transaction,
+     * then spawns what doesn't fit, merged into as few item entities as possible.
+     * Without a receiver, or once they are gone, everything is spawned.
+     */
+    private static void deliver(
+            @Nonnull World world,
+            @Nullable UUID receiver,
+            @Nonnull List<ItemStack> itemStacks,
+            @Nonnull Vector3d dropPosition) {
+        var store = world.getEntityStore().getStore();
+        List<ItemStack> remainder = GravestoneCompactor.compact(itemStacks);
+
+        Ref<EntityStore> ref = receiver != null ? world.getEntityRef(receiver) : null;
+        Player player = ref != null && ref.isValid() ? store.getComponent(ref, Player.getComponentType()) : null;
+        if (player != null) {
+            ListTransaction<ItemStackTransaction> transaction = player.getInventory()
+                    .getCombinedEverything()
+                    .addItemStacks(remainder);
+
+            remainder = new ObjectArrayList<>();
+            for (ItemStackTransaction stackTransaction : transaction.getList()) {
+                if (!ItemStack.isEmpty(stackTransaction.getRemainder())) {
+                    remainder.add(stackTransaction.getRemainder());
+                }
+            }
+        }
+
+        if (remainder.isEmpty()) {
+            return;
+        }
+
+        Holder<EntityStore>[] itemEntityHolders = ItemComponent.generateItemDrops(
+                store,
+                remainder,
+                dropPosition,
+                Vector3f.ZERO
+        );
+        store.addEntities(itemEntityHolders, AddReason.SPAWN);
+    }
+
+    /**
+     * Records how this gravestone ended in the ledger and the event stream: looted when empty,
+     * otherwise expired or destroyed together with the contents that are discarded or dropped.
+     */
+    private void recordEnd(@Nonnull World world, int x, int y, int z) {
+        var ledger = Gravestones.get().getLedger();
+        var events = Gravestones.get().getEvents();
+        if ((ledger == null && !events.hasSubscribers()) || this.ownerUUID == null || this.gravestoneUUID == null) {
+            return;
+        }
+
+        GravestoneEventType event;
+        UUID actorUUID;
+        List<ItemStack> contents;
+        if (this.merged) {
+            // Nobody took the items, whoever opened it last has nothing to do with it
+            event = GravestoneEventType.MERGED;
+            actorUUID = null;
+            contents = List.of();
+        } else if (this.isContainerEmpty()) {
+            event = GravestoneEventType.LOOTED;
+            actorUUID = this.destroyedBy != null ? this.destroyedBy : this.lastOpenedBy;
+            contents = List.of();
+        } else {
+            event = this.expired ? GravestoneEventType.EXPIRED : GravestoneEventType.DESTROYED;
+            actorUUID = this.expired ? null : this.destroyedBy;
+            contents = new ObjectArrayList<>(this.occupiedSlots + this.overflow.size());
+            ItemStack[] slots = this.encodeItems();
+            if (slots != null) {
+                for (ItemStack itemStack : slots) {
+                    if (!ItemStack.isEmpty(itemStack)) {
+                        contents.add(itemStack);
+                    }
+                }
+            }
+            contents.addAll(this.overflow);
+        }
+
+        if (ledger != null) {
+            ledger.append(LedgerEvent.of(event), world.getName(), x, y, z, this.ownerUUID, this.gravestoneUUID, actorUUID, contents);
+        }
+        events.publish(event, world.getName(), x, y, z, this.ownerUUID, this.gravestoneUUID, actorUUID, contents);
+    }
+
     private void destroyBlockWhenEmpty() {
+        this.scheduleSelfBreak();
+        this.markNeedsSave();
+    }
+
+    /**
+     * Schedules breaking this gravestone on the world thread.
+     * Idempotent, repeated calls while a break is pending do nothing.
+     */
+    private void scheduleSelfBreak() {
+        if (this.breakPending) {
+            return;
+        }
+
         WorldChunk chunk = this.getChunk();
         if (chunk == null) return;
 
         World world = chunk.getWorld();
         Vector3i pos = this.getBlockPosition();
 
+        this.breakPending = true;
         world.execute(() -> {
             // Even though the block is indestructible,
             // you can still destroy it programmatically
             world.breakBlock(pos.x, pos.y, pos.z, 0);
         });
+    }
 
-        this.markNeedsSave();
+    /**
+     * Marks this gravestone as expired, so breaking it discards the contents.
+     */
+    public void markExpired() {
+        this.expired = true;
+    }
+
+    /**
+     * Returns the gravestone at the given position if its chunk is loaded.
+     * Never loads the chunk. Must be called on the world thread.
+     */
+    @Nullable
+    @SuppressWarnings("removal") // Acknowledging BlockStateModule deprecation
+    public static GravestoneState getLoaded(@Nonnull World world, int x, int y, int z) {
+        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
+        if (chunk == null) {
+            return null;
+        }
+
+        Ref<ChunkStore> blockRef = chunk.getBlockComponentEntity(x, y, z);
+        if (blockRef == null) {
+            return null;
+        }
+
+        ComponentType<ChunkStore, GravestoneState> gravestoneComponentType = BlockStateModule.get()
+                .getComponentType(GravestoneState.class);
+        if (gravestoneComponentType == null) {
+            return null;
+        }
+
+        return world.getChunkStore().getStore().getComponent(blockRef, gravestoneComponentType);
     }
 
     // ===== GETTERS AND SETTERS =====
@@ -366,6 +1100,14 @@ public class GravestoneState extends ItemContainerState
         return this.gravestoneUUID;
     }
 
+    /**
+     * Used by imports, so ledger records of the gravestone keep matching it.
+     */
+    public void setGravestoneUUID(@Nonnull UUID gravestoneUUID) {
+        this.gravestoneUUID = gravestoneUUID;
+        this.markNeedsSave();
+    }
+
     @Nullable
     public String getOwnerName() {
         return this.ownerName;
@@ -394,12 +1136,31 @@ public class GravestoneState extends ItemContainerState
         this.markNeedsSave();
     }
 
+    /**
+     * Number of stacks stored, on the visible page and in the overflow pages.
+     */
+    public int getStoredStackCount() {
+        return this.occupiedSlots + this.overflow.size();
+    }
+
+    /**
+     * Encoding version this state was loaded from, 0 for the legacy layout
+     * and for gravestones created since the last load.
+     */
+    public int getEncodingVersion() {
+        return this.encodingVersion;
+    }
+
     public short getDynamicCapacity() {
         return this.dynamicCapacity;
     }
 
     public void setNameplateUUID(@NullableDecl UUID nameplateUUID) {
-        this.nameplateUUID = nameplateUUID;
+        if (!Objects.equals(this.nameplateUUID, nameplateUUID)) {
+            this.nameplateUUID = nameplateUUID;
+            // Saved so a nameplate left behind by a crash can be found when the chunk loads again
+            this.markNeedsSave();
+        }
     }
 
     @Nullable
@@ -412,7 +1173,8 @@ public class GravestoneState extends ItemContainerState
      * This should be called AFTER the block is placed but BEFORE items are added.
      */
     public void setDynamicCapacity(short capacity) {
-        if (this.itemContainer != null && !this.itemContainer.isEmpty() && capacity < this.itemContainer.countItemStacks(item -> item.isValid() && !item.isEmpty())) {
+        this.hydrate();
+        if (this.itemContainer != null && capacity < this.occupiedSlots) {
             throw new IllegalStateException("Cannot reduce capacity below current item count");
         }
 
@@ -420,7 +1182,7 @@ public class GravestoneState extends ItemContainerState
 
         // Recreate the container with the new capacity
         List<ItemStack> existingItems = new ObjectArrayList<>();
-        if (this.itemContainer != null && !this.itemContainer.isEmpty()) {
+        if (this.itemContainer != null && this.occupiedSlots > 0) {
             // Save existing items
             for (short i = 0; i < this.itemContainer.getCapacity(); i++) {
                 ItemStack item = this.itemContainer.getItemStack(i);
@@ -432,30 +1194,61 @@ public class GravestoneState extends ItemContainerState
 
         // Create new container with exact capacity
         this.itemContainer = new SimpleItemContainer(capacity);
-        this.itemContainer.registerChangeEvent(EventPriority.LAST, this::onItemChange);
+        this.listening = false;
 
         // Restore items if any
         for (int i = 0; i < existingItems.size() && i < capacity; i++) {
             this.itemContainer.addItemStackToSlot((short) i, existingItems.get(i));
         }
+        extractionOnly(this.itemContainer);
+        this.occupiedSlots = Math.min(existingItems.size(), capacity);
 
         this.markNeedsSave();
     }
 
+    /**
+     * Everything outside this class that changes the contents gets the container from here,
+     * so the container of a loaded gravestone is built and the change listener registered on first call.
+     * Dormant gravestones never get either.
+     */
     @Override
     @Nullable
     public ItemContainer getItemContainer() {
+        this.ensureListening();
         return this.itemContainer;
     }
 
+    private void ensureListening() {
+        this.hydrate();
+        if (!this.listening && this.itemContainer != null) {
+            this.itemContainer.registerChangeEvent(EventPriority.LAST, this::onItemChange);
+            this.listening = true;
+        }
+    }
+
     public void setItemContainer(@Nonnull SimpleItemContainer itemContainer) {
-        this.itemContainer = itemContainer;
+        this.pendingCapacity = -1;
+        this.decodedItems = null;
+        this.decodedSlots = null;
+        this.itemContainer = extractionOnly(itemContainer);
+        this.listening = false;
+        this.recountOccupiedSlots();
         this.markNeedsSave();
     }
 
     @Nonnull
     public Map<UUID, ContainerBlockWindow> getWindows() {
-        return this.windows;
+        Map<UUID, ContainerBlockWindow> windows = this.windows;
+        if (windows == null) {
+            synchronized (this) {
+                windows = this.windows;
+                if (windows == null) {
+                    windows = new ConcurrentHashMap<>(2);
+                    this.windows = windows;
+                }
+            }
+        }
+        return windows;
     }
 
     public static class GravestoneStateData extends StateData {
@@ -0,0 +1,113 @@
+package com.github.grule.gravestones.event;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Something that happened to a gravestone, as handed to a {@link GravestoneEventListener}.
+ * <p>
+ * Instances are reused, one per subscription. An event is only valid during the
+ * {@link GravestoneEventListener#onEvent} call it is passed to, copy whatever is kept beyond it.
+ */
+public final class GravestoneEvent {
+
+    GravestoneEventType type;
+    long sequence;
+    long time;
+    String worldName;
+    int x;
+    int y;
+    int z;
+    UUID ownerUUID;
+    UUID gravestoneUUID;
+    @Nullable
+    UUID actorUUID;
+    List<ItemStack> items;
+
+    GravestoneEvent() {
+    }
+
+    void copyFrom(@Nonnull GravestoneEvent other) {
+        this.type = other.type;
+        this.sequence = other.sequence;
+        this.time = other.time;
+        this.worldName = other.worldName;
+        this.x = other.x;
+        this.y = other.y;
+        this.z = other.z;
+        this.ownerUUID = other.ownerUUID;
+        this.gravestoneUUID = other.gravestoneUUID;
+        this.actorUUID = other.actorUUID;
+        this.items = other.items;
+    }
+
+    @Nonnull
+    public GravestoneEventType getType() {
+        return this.type;
+    }
+
+    /**
+     * Position of the event in the stream, gaps mean events were dropped for this subscription.
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public long getTime() {
+        return this.time;
+    }
+
+    @Nonnull
+    public String getWorldName() {
+        return this.worldName;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    public int getZ() {
+        return this.z;
+    }
+
+    @Nonnull
+    public UUID getOwnerUUID() {
+        return this.ownerUUID;
+    }
+
+    @Nonnull
+    public UUID getGravestoneUUID() {
+        return this.gravestoneUUID;
+    }
+
+    /**
+     * Player who looted or destroyed the gravestone, null when unknown or not caused by a player.
+     */
+    @Nullable
+    public UUID getActorUUID() {
+        return this.actorUUID;
+    }
+
+    /**
+     * Items the gravestone was filled with, or held when it expired or was destroyed. Must not be modified.
+     */
+    @Nonnull
+    public List<ItemStack> getItems() {
+        return this.items;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "GravestoneEvent{" + this.type + " #" + this.sequence + " " + this.worldName
+                + " " + this.x + ", " + this.y + ", " + this.z + " owner=" + this.ownerUUID + "}";
+    }
+}
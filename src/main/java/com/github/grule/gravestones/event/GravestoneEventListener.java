@@ -0,0 +1,16 @@
+package com.github.grule.gravestones.event;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives gravestone events, see {@link GravestoneEvents#subscribe}.
+ * Called on the subscription's own thread, never on a world thread.
+ */
+@FunctionalInterface
+public interface GravestoneEventListener {
+
+    /**
+     * @param event only valid during this call
+     */
+    void onEvent(@Nonnull GravestoneEvent event);
+}
@@ -0,0 +1,17 @@
+package com.github.grule.gravestones.event;
+
+/**
+ * What happened to a gravestone, see {@link GravestoneEvent#getType()}.
+ */
+public enum GravestoneEventType {
+    // Placed for a death, or a later death added to it at the same spot, items are what it was filled with
+    CREATED,
+    // Emptied by players and broken, no items
+    LOOTED,
+    // Removed by expiry, items are the discarded contents
+    EXPIRED,
+    // Broken while not empty, items are what was dropped
+    DESTROYED,
+    // Emptied into the owner's newer gravestone by the per-player cap, no items and no actor
+    MERGED
+}
@@ -0,0 +1,320 @@
+package com.github.grule.gravestones.event;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Stream of gravestone lifecycle events for other plugins: created, looted, expired and destroyed.
+ * <p>
+ * Events go into a bounded ring of preallocated slots. {@link #publish} takes a sequence with one atomic
+ * increment, then claims its slot by swapping the slot's published sequence for a writing mark and copies
+ * the fields into it. It never allocates, locks or waits, so world threads can publish from anywhere.
+ * Once the ring is full the oldest events are overwritten. A writer whose slot is still being written
+ * by one a lap behind gives up its event rather than write over it, readers count it as dropped.
+ * <p>
+ * Every subscription reads the ring at its own pace on its own thread. A slot is read like a seqlock:
+ * its published sequence is checked before and after copying, an event overwritten in between counts as dropped.
+ * Each subscription tracks how far behind it is and how many events it lost, see {@link Subscription}.
+ */
+public class GravestoneEvents {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // Sequence of a slot that is being written
+    private static final long WRITING = -1L;
+    // Sequence of a slot that was never written
+    private static final long EMPTY = -2L;
+
+    private final GravestoneEvent[] slots;
+    private final AtomicLongArray published;
+    // Highest sequence per slot whose writer gave up, so readers don't wait for it
+    private final AtomicLongArray abandoned;
+    private final int mask;
+    // Next sequence to claim
+    private final AtomicLong claimed = new AtomicLong();
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param capacity events kept for slow subscriptions, rounded up to a power of two
+     */
+    public GravestoneEvents(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 1;
+        this.slots = new GravestoneEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.abandoned = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new GravestoneEvent();
+            this.published.set(i, EMPTY);
+            this.abandoned.set(i, EMPTY);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * What a subscription does when it can't keep up. Publishers are never slowed down by either,
+     * a subscription that falls further behind than the buffer holds loses events whatever its policy.
+     */
+    public enum Policy {
+        // Skips to the newest events once it is more than half the buffer behind, the ones in between are dropped
+        DROP,
+        // Works through the events in order for as long as the buffer holds them, the ones overwritten first are dropped
+        CATCH_UP
+    }
+
+    /**
+     * Starts delivering events published from now on to the listener, on a thread of its own.
+     *
+     * @param name shown in the thread name and the stats
+     */
+    @Nonnull
+    public Subscription subscribe(@Nonnull String name, @Nonnull GravestoneEventListener listener, @Nonnull Policy policy) {
+        Subscription subscription = new Subscription(name, listener, policy);
+        Thread thread = new Thread(subscription::run, "Gravestones-Events-" + name);
+        thread.setDaemon(true);
+        this.subscriptions.add(subscription);
+        thread.start();
+        return subscription;
+    }
+
+    /**
+     * Starts delivering events published from now on to the listener, draining on the given executor.
+     * The drain loop holds one executor thread until the subscription is closed.
+     */
+    @Nonnull
+    public Subscription subscribe(
+            @Nonnull String name,
+            @Nonnull GravestoneEventListener listener,
+            @Nonnull Policy policy,
+            @Nonnull Executor executor) {
+        Subscription subscription = new Subscription(name, listener, policy);
+        this.subscriptions.add(subscription);
+        executor.execute(subscription::run);
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    @Nonnull
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(this.subscriptions);
+    }
+
+    /**
+     * Puts an event into the ring, safe to call from any thread and never blocks or allocates.
+     * Does nothing without subscriptions. The items list must not be modified afterwards.
+     */
+    public void publish(
+            @Nonnull GravestoneEventType type,
+            @Nonnull String worldName,
+            int x, int y, int z,
+            @Nonnull UUID ownerUUID,
+            @Nonnull UUID gravestoneUUID,
+            @Nullable UUID actorUUID,
+            @Nonnull List<ItemStack> items) {
+        if (this.subscriptions.isEmpty()) {
+            return;
+        }
+
+        long sequence = this.claimed.getAndIncrement();
+        int index = (int) (sequence & this.mask);
+        long current = this.published.get(index);
+        while (true) {
+            // A writer a lap behind still in the slot, or one a lap ahead already through it,
+            // writing now would tear their event
+            if (current == WRITING || current > sequence) {
+                this.abandoned.accumulateAndGet(index, sequence, Math::max);
+                return;
+            }
+            long witness = this.published.compareAndExchange(index, current, WRITING);
+            if (witness == current) {
+                break;
+            }
+            current = witness;
+        }
+        // Readers must see the slot as being written before any of its fields change
+        VarHandle.storeStoreFence();
+
+        GravestoneEvent slot = this.slots[index];
+        slot.type = type;
+        slot.sequence = sequence;
+        slot.time = System.currentTimeMillis();
+        slot.worldName = worldName;
+        slot.x = x;
+        slot.y = y;
+        slot.z = z;
+        slot.ownerUUID = ownerUUID;
+        slot.gravestoneUUID = gravestoneUUID;
+        slot.actorUUID = actorUUID;
+        slot.items = items;
+
+        this.published.setRelease(index, sequence);
+    }
+
+    /**
+     * Closes every subscription, their threads finish the event they are delivering and stop.
+     */
+    public void stop() {
+        for (Subscription subscription : this.subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * A listener with its own read position in the ring.
+     */
+    public final class Subscription {
+
+        private final String name;
+        private final GravestoneEventListener listener;
+        private final Policy policy;
+        // Copy of the slot being delivered, reused
+        private final GravestoneEvent event = new GravestoneEvent();
+
+        // Written by the drain thread only
+        private volatile long next;
+        private volatile long delivered;
+        private volatile long dropped;
+        private volatile boolean active = true;
+        @Nullable
+        private volatile Thread thread;
+
+        private Subscription(@Nonnull String name, @Nonnull GravestoneEventListener listener, @Nonnull Policy policy) {
+            this.name = name;
+            this.listener = listener;
+            this.policy = policy;
+            this.next = GravestoneEvents.this.claimed.get();
+        }
+
+        @Nonnull
+        public String getName() {
+            return this.name;
+        }
+
+        @Nonnull
+        public Policy getPolicy() {
+            return this.policy;
+        }
+
+        /**
+         * Events published but not yet delivered to this subscription.
+         */
+        public long getLag() {
+            return Math.max(0, GravestoneEvents.this.claimed.get() - this.next);
+        }
+
+        public long getDelivered() {
+            return this.delivered;
+        }
+
+        /**
+         * Events this subscription never got, skipped or overwritten before it read them.
+         */
+        public long getDropped() {
+            return this.dropped;
+        }
+
+        public boolean isActive() {
+            return this.active;
+        }
+
+        /**
+         * Stops delivering, the event being delivered is finished first. Safe to call from any thread.
+         */
+        public void close() {
+            this.active = false;
+            GravestoneEvents.this.subscriptions.remove(this);
+            Thread current = this.thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+
+        private void run() {
+            this.thread = Thread.currentThread();
+            try {
+                while (this.active) {
+                    if (!this.drain()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            } finally {
+                this.thread = null;
+            }
+        }
+
+        /**
+         * Delivers the events published so far. Returns false if there were none.
+         */
+        private boolean drain() {
+            int capacity = GravestoneEvents.this.slots.length;
+            long next = this.next;
+            boolean any = false;
+
+            while (this.active) {
+                long head = GravestoneEvents.this.claimed.get();
+                if (next >= head) {
+                    break;
+                }
+
+                // Behind by more than the ring holds, or more than DROP tolerates: skip ahead
+                long maxLag = this.policy == Policy.DROP ? capacity >>> 1 : capacity;
+                if (head - next > maxLag) {
+                    long skipTo = head - maxLag;
+                    this.dropped += skipTo - next;
+                    next = skipTo;
+                }
+
+                int index = (int) (next & GravestoneEvents.this.mask);
+                long before = GravestoneEvents.this.published.getAcquire(index);
+                if (before != next) {
+                    if (before > next || GravestoneEvents.this.abandoned.get(index) >= next
+                            || GravestoneEvents.this.claimed.get() - next > capacity) {
+                        // Overwritten before it could be read, or never written
+                        this.dropped++;
+                        next++;
+                        continue;
+                    }
+                    // Claimed but not published yet, delivered once it is
+                    break;
+                }
+
+                this.event.copyFrom(GravestoneEvents.this.slots[index]);
+                // The copy must be done before the sequence is checked again
+                VarHandle.loadLoadFence();
+                if (GravestoneEvents.this.published.get(index) != next) {
+                    this.dropped++;
+                    next++;
+                    continue;
+                }
+
+                next++;
+                this.next = next;
+                any = true;
+                try {
+                    this.listener.onEvent(this.event);
+                } catch (RuntimeException e) {
+                    HytaleLogger.getLogger().at(Level.WARNING).withCause(e).log(
+                            "Gravestone event subscription %s failed on %s", this.name, this.event);
+                }
+                this.delivered++;
+            }
+
+            this.next = next;
+            return any;
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.github.grule.gravestones.ledger;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record of what happened to every gravestone, kept outside the chunks,
+ * so lost items can be looked up after the gravestone is gone or while its chunk is unloaded.
+ * <p>
+ * Records go to fixed size memory-mapped segment files that are rotated when full,
+ * the oldest segments are deleted beyond the configured count.
+ * {@link #append} only puts the record on a lock-free queue, a single writer thread encodes and writes it.
+ * The queue is bounded, records appended while the writer is {@link #MAX_QUEUED} behind are dropped and counted.
+ * On start the segments are replayed to rebuild the per-owner index, reading only record headers.
+ * <p>
+ * Record layout: length (int), CRC32 of the body (int), then the body:
+ * event (byte), time (long), owner (2 longs), gravestone (2 longs), actor (2 longs, zero if unknown),
+ * x, y, z (ints), world name and the item summary as count (short) followed by id and quantity pairs.
+ * Strings are a short length followed by UTF-8 bytes. A length of 0 marks the end of a segment.
+ */
+public class GravestoneLedger {
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    // Offset of the owner UUID in a record, read on replay without decoding the rest
+    private static final int OWNER_OFFSET = HEADER_BYTES + 1 + 8;
+    // Caps the item summary of one record, a full gravestone stays far below it
+    private static final int MAX_SUMMARY_ITEMS = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Records waiting for the writer thread at most, a stalled disk must not grow the heap without bound
+    private static final int MAX_QUEUED = 1 << 16;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    // Filled by any thread, drained by the writer thread
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running;
+    @Nullable
+    private Thread writer;
+
+    // Everything below is guarded by this, only the writer thread and lookups take the lock
+    private final ObjectArrayList<Segment> segments = new ObjectArrayList<>();
+    // owner -> (segment id << 32 | offset) of their records, oldest first
+    private final Object2ObjectOpenHashMap<UUID, LongArrayList> byOwner = new Object2ObjectOpenHashMap<>();
+    private long records;
+
+    // Writer thread only
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private boolean dirty;
+    private long lastForce;
+
+    public GravestoneLedger(@Nonnull Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(segmentBytes, 1 << 20);
+        this.maxSegments = Math.max(maxSegments, 1);
+    }
+
+    /**
+     * Replays the existing segments and starts the writer thread.
+     */
+    public synchronized void start() throws IOException {
+        Files.createDirectories(this.directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(this.directory)) {
+            files = stream
+                    .filter(path -> segmentId(path) >= 0)
+                    .sorted((a, b) -> Integer.compare(segmentId(a), segmentId(b)))
+                    .toList();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = this.openSegment(segmentId(files.get(i)), files.get(i));
+            // Only the segment written last can end in a torn record, the others were flushed before rotating
+            this.replay(segment, i == files.size() - 1);
+            this.segments.add(segment);
+        }
+
+        if (this.segments.isEmpty()) {
+            this.rotate();
+        }
+
+        HytaleLogger.getLogger().at(Level.INFO).log(
+                "Replayed %d ledger records of %d owners from %d segments in %d ms",
+                this.records, this.byOwner.size(), this.segments.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+
+        this.running = true;
+        this.lastForce = System.nanoTime();
+        this.writer = new Thread(this::runWriter, "Gravestones-Ledger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Writes everything still queued, flushes the segments and stops the writer thread.
+     */
+    public void stop() {
+        this.running = false;
+        Thread thread = this.writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            for (Segment segment : this.segments) {
+                segment.close();
+            }
+            this.segments.clear();
+            this.byOwner.clear();
+        }
+    }
+
+    /**
+     * Queues a record, safe to call from any thread and never blocks.
+     * The items are summarized on the writer thread, the list must not be modified afterwards.
+     * The record is dropped and counted when the queue is full.
+     */
+    public void append(
+            @Nonnull LedgerEvent event,
+            @Nonnull String worldName,
+            int x, int y, int z,
+            @Nonnull UUID ownerUUID,
+            @Nonnull UUID gravestoneUUID,
+            @Nullable UUID actorUUID,
+            @Nonnull List<ItemStack> items) {
+        if (!this.running) {
+            return;
+        }
+
+        if (this.queued.incrementAndGet() > MAX_QUEUED) {
+            this.queued.decrementAndGet();
+            this.dropped.increment();
+            return;
+        }
+
+        this.queue.offer(new Pending(event, System.currentTimeMillis(), worldName, x, y, z,
+                ownerUUID, gravestoneUUID, actorUUID, items));
+    }
+
+    /**
+     * Returns the most recent records of an owner, newest first. Never touches chunks.
+     */
+    @Nonnull
+    public synchronized List<LedgerEntry> lookup(@Nonnull UUID ownerUUID, int limit) {
+        LongArrayList locations = this.byOwner.get(ownerUUID);
+        if (locations == null || this.segments.isEmpty()) {
+            return List.of();
+        }
+
+        List<LedgerEntry> entries = new ObjectArrayList<>(Math.min(limit, locations.size()));
+        for (int i = locations.size() - 1; i >= 0 && entries.size() < limit; i--) {
+            long location = locations.getLong(i);
+            Segment segment = this.findSegment((int) (location >>> 32));
+            if (segment != null) {
+                entries.add(read(segment.buffer, (int) location));
+            }
+        }
+        return entries;
+    }
+
+    @Nullable
+    private Segment findSegment(int id) {
+        int low = 0;
+        int high = this.segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = this.segments.get(mid).id;
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return this.segments.get(mid);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Amount of records waiting for the writer thread.
+     */
+    public int getQueued() {
+        return this.queued.get();
+    }
+
+    /**
+     * Amount of records dropped since start because the queue was full.
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Amount of records currently kept in the segments.
+     */
+    public synchronized long getRecordCount() {
+        return this.records;
+    }
+
+    private void runWriter() {
+        while (this.running || !this.queue.isEmpty()) {
+            Pending pending = this.queue.poll();
+            if (pending == null) {
+                this.forceIfDue(false);
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            this.queued.decrementAndGet();
+
+            try {
+                this.write(pending);
+            } catch (IOException | RuntimeException e) {
+                HytaleLogger.getLogger()
+                        .at(Level.SEVERE)
+                        .withCause(e)
+                        .log("Failed to write %s ledger record of gravestone %s", pending.event, pending.gravestoneUUID);
+            }
+        }
+
+        this.forceIfDue(true);
+    }
+
+    private void forceIfDue(boolean always) {
+        long now = System.nanoTime();
+        if (!this.dirty || (!always && now - this.lastForce < FORCE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!this.segments.isEmpty()) {
+                this.segments.top().buffer.force();
+            }
+        }
+        this.dirty = false;
+        this.lastForce = now;
+    }
+
+    private void write(@Nonnull Pending pending) throws IOException {
+        ByteBuffer body = this.encode(pending);
+        int length = body.position();
+
+        this.crc.reset();
+        this.crc.update(body.array(), 0, length);
+        int checksum = (int) this.crc.getValue();
+
+        synchronized (this) {
+            Segment segment = this.segments.top();
+            if (segment.end + HEADER_BYTES + length > this.segmentBytes) {
+                segment.buffer.force();
+                segment = this.rotate();
+            }
+
+            int offset = segment.end;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putInt(offset + 4, checksum);
+            buffer.put(offset + HEADER_BYTES, body.array(), 0, length);
+            // Length last, a record is only visible to replay once it is complete
+            buffer.putInt(offset, length);
+            segment.end = offset + HEADER_BYTES + length;
+
+            this.index(pending.ownerUUID, segment.id, offset);
+        }
+        this.dirty = true;
+    }
+
+    @Nonnull
+    private ByteBuffer encode(@Nonnull Pending pending) {
+        // Merge stacks per item id, the summary only needs totals
+        Object2IntLinkedOpenHashMap<String> summary = new Object2IntLinkedOpenHashMap<>();
+        for (ItemStack item : pending.items) {
+            if (!ItemStack.isEmpty(item) && (summary.size() < MAX_SUMMARY_ITEMS || summary.containsKey(item.getItemId()))) {
+                summary.addTo(item.getItemId(), item.getQuantity());
+            }
+        }
+
+        ByteBuffer body = this.scratch.clear();
+        body = this.ensureScratch(body, 1 + 8 + 16 * 3 + 12);
+        body.put((byte) pending.event.ordinal());
+        body.putLong(pending.time);
+        putUUID(body, pending.ownerUUID);
+        putUUID(body, pending.gravestoneUUID);
+        if (pending.actorUUID != null) {
+            putUUID(body, pending.actorUUID);
+        } else {
+            body.putLong(0L).putLong(0L);
+        }
+        body.putInt(pending.x).putInt(pending.y).putInt(pending.z);
+        body = this.putString(body, pending.worldName);
+
+        body = this.ensureScratch(body, 2);
+        body.putShort((short) summary.size());
+        for (var entry : summary.object2IntEntrySet()) {
+            body = this.putString(body, entry.getKey());
+            body = this.ensureScratch(body, 4);
+            body.putInt(entry.getIntValue());
+        }
+        return body;
+    }
+
+    @Nonnull
+    private ByteBuffer putString(@Nonnull ByteBuffer body, @Nonnull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Short.MAX_VALUE);
+        body = this.ensureScratch(body, 2 + length);
+        body.putShort((short) length);
+        body.put(bytes, 0, length);
+        return body;
+    }
+
+    @Nonnull
+    private ByteBuffer ensureScratch(@Nonnull ByteBuffer body, int bytes) {
+        if (body.remaining() >= bytes) {
+            return body;
+        }
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + bytes));
+        grown.put(body.array(), 0, body.position());
+        this.scratch = grown;
+        return grown;
+    }
+
+    /**
+     * Opens the next segment and deletes the oldest ones beyond the configured count.
+     * Must be called while holding the lock.
+     */
+    @Nonnull
+    private Segment rotate() throws IOException {
+        int id = this.segments.isEmpty() ? 0 : this.segments.top().id + 1;
+        Segment segment = this.openSegment(id, this.directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+        this.segments.add(segment);
+
+        if (this.segments.size() > this.maxSegments) {
+            Segment oldest = this.segments.remove(0);
+            oldest.close();
+            try {
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                HytaleLogger.getLogger().at(Level.WARNING).withCause(e).log("Failed to delete ledger segment %s", oldest.path);
+            }
+            this.dropIndex(oldest.id);
+        }
+
+        return segment;
+    }
+
+    @Nonnull
+    private Segment openSegment(int id, @Nonnull Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    /**
+     * Indexes every record of the segment and finds where writing continues.
+     * When verifying, checksums are checked and a torn record from a crash ends the segment and is cleared,
+     * otherwise only the record headers and owners are read.
+     */
+    private void replay(@Nonnull Segment segment, boolean verify) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+
+            if (length < 0 || offset + HEADER_BYTES + length > capacity
+                    || (verify && !this.checksumMatches(buffer, offset, length))) {
+                HytaleLogger.getLogger().at(Level.WARNING).log(
+                        "Discarding torn ledger record at %s:%d", segment.path.getFileName(), offset);
+                for (int i = offset; i < capacity && i < offset + HEADER_BYTES + Math.max(length, 0); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.putInt(offset, 0);
+                break;
+            }
+
+            this.index(new UUID(buffer.getLong(offset + OWNER_OFFSET), buffer.getLong(offset + OWNER_OFFSET + 8)),
+                    segment.id, offset);
+            offset += HEADER_BYTES + length;
+        }
+        segment.end = offset;
+    }
+
+    private boolean checksumMatches(@Nonnull MappedByteBuffer buffer, int offset, int length) {
+        this.crc.reset();
+        this.crc.update(buffer.slice(offset + HEADER_BYTES, length));
+        return (int) this.crc.getValue() == buffer.getInt(offset + 4);
+    }
+
+    private void index(@Nonnull UUID ownerUUID, int segmentId, int offset) {
+        LongArrayList locations = this.byOwner.get(ownerUUID);
+        if (locations == null) {
+            locations = new LongArrayList(4);
+            this.byOwner.put(ownerUUID, locations);
+        }
+        locations.add(((long) segmentId << 32) | (offset & 0xFFFFFFFFL));
+        this.records++;
+    }
+
+    private void dropIndex(int segmentId) {
+        var iterator = this.byOwner.object2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            LongArrayList locations = iterator.next().getValue();
+            // Locations are in write order, so the dropped segment's are at the front
+            int dropped = 0;
+            while (dropped < locations.size() && (int) (locations.getLong(dropped) >>> 32) <= segmentId) {
+                dropped++;
+            }
+            locations.removeElements(0, dropped);
+            this.records -= dropped;
+            if (locations.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Nonnull
+    private static LedgerEntry read(@Nonnull ByteBuffer segment, int offset) {
+        ByteBuffer body = segment.slice(offset + HEADER_BYTES, segment.getInt(offset));
+        LedgerEvent event = LedgerEvent.byId(body.get());
+        long time = body.getLong();
+        UUID ownerUUID = getUUID(body);
+        UUID gravestoneUUID = getUUID(body);
+        UUID actorUUID = getUUID(body);
+        int x = body.getInt();
+        int y = body.getInt();
+        int z = body.getInt();
+        String worldName = getString(body);
+
+        int itemCount = body.getShort() & 0xFFFF;
+        List<LedgerEntry.Item> items = new ObjectArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new LedgerEntry.Item(getString(body), body.getInt()));
+        }
+
+        return new LedgerEntry(
+                event != null ? event : LedgerEvent.CREATED,
+                time, worldName, x, y, z, ownerUUID, gravestoneUUID,
+                actorUUID.getMostSignificantBits() == 0L && actorUUID.getLeastSignificantBits() == 0L ? null : actorUUID,
+                items
+        );
+    }
+
+    private static void putUUID(@Nonnull ByteBuffer buffer, @Nonnull UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    @Nonnull
+    private static UUID getUUID(@Nonnull ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    @Nonnull
+    private static String getString(@Nonnull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int segmentId(@Nonnull Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Pending(
+            LedgerEvent event,
+            long time,
+            String worldName,
+            int x, int y, int z,
+            UUID ownerUUID,
+            UUID gravestoneUUID,
+            @Nullable UUID actorUUID,
+            List<ItemStack> items
+    ) {
+    }
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // Offset the next record is written at
+        int end;
+
+        Segment(int id, @Nonnull Path path, @Nonnull FileChannel channel, @Nonnull MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            this.buffer.force();
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                HytaleLogger.getLogger().at(Level.WARNING).withCause(e).log("Failed to close ledger segment %s", this.path);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.grule.gravestones.ledger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One record read back from the {@link GravestoneLedger}.
+ *
+ * @param time     epoch millis the event happened at
+ * @param actorUUID player that looted or destroyed the gravestone, if known
+ * @param items    item ids and their total quantity, in first-seen order
+ */
+public record LedgerEntry(
+        @Nonnull LedgerEvent event,
+        long time,
+        @Nonnull String worldName,
+        int x, int y, int z,
+        @Nonnull UUID ownerUUID,
+        @Nonnull UUID gravestoneUUID,
+        @Nullable UUID actorUUID,
+        @Nonnull List<Item> items
+) {
+
+    public record Item(@Nonnull String itemId, int quantity) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.grule.gravestones.ledger;
+
+import com.github.grule.gravestones.event.GravestoneEventType;
+
+import javax.annotation.Nonnull;
+
+/**
+ * What happened to a gravestone, as recorded in the {@link GravestoneLedger}.
+ * The ids are written to the ledger, so new events go at the end.
+ */
+public enum LedgerEvent {
+    // Placed for a death, or a later death added to it at the same spot, items are what it was filled with
+    CREATED,
+    // Emptied by players and broken, no items
+    LOOTED,
+    // Removed by expiry, items are the discarded contents
+    EXPIRED,
+    // Broken while not empty, items are what was dropped
+    DESTROYED,
+    // Emptied into the owner's newer gravestone by the per-player cap, no items and no actor
+    MERGED;
+
+    private static final LedgerEvent[] VALUES = values();
+
+    static LedgerEvent byId(int id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : null;
+    }
+
+    /**
+     * The ledger record of an event handed to subscriptions.
+     */
+    @Nonnull
+    public static LedgerEvent of(@Nonnull GravestoneEventType type) {
+        return switch (type) {
+            case CREATED -> CREATED;
+            case LOOTED -> LOOTED;
+            case EXPIRED -> EXPIRED;
+            case DESTROYED -> DESTROYED;
+            case MERGED -> MERGED;
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.grule.gravestones.metrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Why a queued death did not end up in a gravestone.
+ */
+public enum CreationFailure {
+    NO_FREE_SPACE("no free space"),
+    CHUNK_NOT_FOUND("chunk not found"),
+    BLOCK_NOT_FOUND("block not found"),
+    COMPONENT_NOT_FOUND("component not found"),
+    NOT_A_GRAVESTONE("not a gravestone block"),
+    CONTAINER_NOT_INITIALIZED("container not initialized"),
+    EXCEPTION("internal error");
+
+    private final String error;
+
+    CreationFailure(@Nonnull String error) {
+        this.error = error;
+    }
+
+    /**
+     * Error shown to the player.
+     */
+    @Nonnull
+    public String getError() {
+        return this.error;
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.grule.gravestones.metrics;
+
+import com.github.grule.gravestones.ledger.GravestoneLedger;
+import com.github.grule.gravestones.world.GravestoneWorld;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lifecycle counters and latencies of the gravestones plugin.
+ * <p>
+ * Recording is a LongAdder increment and safe from any thread, nothing is allocated per event.
+ * Live gravestones are read from the per-world snapshots published by {@link GravestoneWorld#tick}.
+ */
+public class GravestoneMetrics {
+
+    private static final CreationFailure[] FAILURES = CreationFailure.values();
+
+    private final long startedAt = System.nanoTime();
+
+    private final LongAdder deaths = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    // Deaths added to an existing gravestone at the same spot
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder[] failures = new LongAdder[FAILURES.length];
+    private final LongAdder stacksStored = new LongAdder();
+    private final LongAdder stacksOverflowed = new LongAdder();
+    private final LongAdder stacksDropped = new LongAdder();
+    // Death until its gravestone task finished on the world thread
+    private final LatencyHistogram creationLatency = new LatencyHistogram();
+
+    public GravestoneMetrics() {
+        for (int i = 0; i < this.failures.length; i++) {
+            this.failures[i] = new LongAdder();
+        }
+    }
+
+    public void recordDeath() {
+        this.deaths.increment();
+    }
+
+    /**
+     * @param stored     stacks on the visible page
+     * @param overflowed stacks in the overflow pages
+     */
+    public void recordCreated(int stored, int overflowed) {
+        this.created.increment();
+        this.stacksStored.add(stored);
+        this.stacksOverflowed.add(overflowed);
+    }
+
+    /**
+     * @param stored stacks added to the existing gravestone
+     */
+    public void recordMerged(int stored) {
+        this.merged.increment();
+        this.stacksStored.add(stored);
+    }
+
+    /**
+     * @param dropped stacks dropped on the ground instead
+     */
+    public void recordFailure(@Nonnull CreationFailure failure, int dropped) {
+        this.failures[failure.ordinal()].increment();
+        this.stacksDropped.add(dropped);
+    }
+
+    public void recordCreationLatency(long nanos) {
+        this.creationLatency.record(nanos);
+    }
+
+    public long getDeaths() {
+        return this.deaths.sum();
+    }
+
+    public long getCreated() {
+        return this.created.sum();
+    }
+
+    public long getMerged() {
+        return this.merged.sum();
+    }
+
+    public long getFailures(@Nonnull CreationFailure failure) {
+        return this.failures[failure.ordinal()].sum();
+    }
+
+    public long getStacksStored() {
+        return this.stacksStored.sum();
+    }
+
+    public long getStacksOverflowed() {
+        return this.stacksOverflowed.sum();
+    }
+
+    public long getStacksDropped() {
+        return this.stacksDropped.sum();
+    }
+
+    @Nonnull
+    public LatencyHistogram getCreationLatency() {
+        return this.creationLatency;
+    }
+
+    /**
+     * Human readable summary, one line per entry, used by the stats command and the periodic log.
+     */
+    @Nonnull
+    public List<String> summarize(@Nonnull Collection<GravestoneWorld> worlds, @Nullable GravestoneLedger ledger) {
+        long uptimeMinutes = TimeUnit.NANOSECONDS.toMinutes(System.nanoTime() - this.startedAt);
+
+        StringBuilder failureLine = new StringBuilder("Failures:");
+        long totalFailures = 0;
+        for (CreationFailure failure : FAILURES) {
+            long count = this.getFailures(failure);
+            totalFailures += count;
+            if (count > 0) {
+                failureLine.append(' ').append(failure.name().toLowerCase()).append('=').append(count);
+            }
+        }
+        if (totalFailures == 0) {
+            failureLine.append(" none");
+        }
+
+        StringBuilder worldLine = new StringBuilder("Live gravestones:");
+        if (worlds.isEmpty()) {
+            worldLine.append(" none");
+        }
+        for (GravestoneWorld world : worlds) {
+            worldLine.append(' ').append(world.getWorldName()).append('=').append(world.getLiveGraves())
+                    .append(" (").append(world.getLoadedGraves()).append(" loaded, ")
+                    .append(world.getQueuedDeaths()).append(" queued)");
+        }
+
+        String ledgerLine = ledger == null
+                ? "Ledger: disabled"
+                : String.format("Ledger: %d records, %d queued, %d dropped", ledger.getRecordCount(), ledger.getQueued(),
+                ledger.getDropped());
+
+        LatencyHistogram latency = this.creationLatency;
+        return List.of(
+                String.format("Gravestone metrics over %d min: %d deaths, %d gravestones created, %d merged, %d failed",
+                        uptimeMinutes, this.getDeaths(), this.getCreated(), this.getMerged(), totalFailures),
+                failureLine.toString(),
+                String.format("Stacks: %d stored, %d overflowed, %d dropped",
+                        this.getStacksStored(), this.getStacksOverflowed(), this.getStacksDropped()),
+                String.format("Death to gravestone: mean %.1f ms, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                        millis(latency.getMeanNanos()), millis(latency.getPercentileNanos(0.5)),
+                        millis(latency.getPercentileNanos(0.99)), millis(latency.getMaxNanos())),
+                worldLine.toString(),
+                ledgerLine
+        );
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.grule.gravestones.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe latency histogram with power of two buckets.
+ * <p>
+ * Recording is one LongAdder increment per value and never allocates once the adders settled.
+ * Percentiles are estimated as the upper bound of the bucket they fall in, so they are at most 2x off.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    // Bucket i holds values in [2^(i-1), 2^i), bucket 0 holds 0
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        this.buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getMeanNanos() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : this.sum.sum() / count;
+    }
+
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Estimated latency below which the given fraction of values falls.
+     *
+     * @param quantile between 0 and 1
+     */
+    public long getPercentileNanos(double quantile) {
+        long count = this.count.sum();
+        if (count == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets[i].sum();
+            if (seen >= threshold) {
+                return Math.min(i == 0 ? 0L : 1L << Math.min(i, 62), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+}
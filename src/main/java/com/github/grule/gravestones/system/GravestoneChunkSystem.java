@@ -0,0 +1,90 @@
+package com.github.grule.gravestones.system;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.world.PackedPosition;
+import com.hypixel.hytale.component.*;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * System that keeps the per-world gravestone index in sync when
+ * gravestone block entities are loaded and unloaded with their chunk.
+ */
+public class GravestoneChunkSystem extends RefSystem<ChunkStore> {
+
+    private final Gravestones plugin;
+    private final ComponentType<ChunkStore, GravestoneState> gravestoneComponentType;
+
+    public GravestoneChunkSystem(@Nonnull ComponentType<ChunkStore, GravestoneState> gravestoneComponentType) {
+        this.plugin = Gravestones.get();
+        this.gravestoneComponentType = gravestoneComponentType;
+    }
+
+    @Nonnull
+    @Override
+    public Query<ChunkStore> getQuery() {
+        return this.gravestoneComponentType;
+    }
+
+    @Override
+    public void onEntityAdded(
+            @Nonnull Ref<ChunkStore> ref,
+            @Nonnull AddReason reason,
+            @Nonnull Store<ChunkStore> store,
+            @Nonnull CommandBuffer<ChunkStore> commandBuffer) {
+        GravestoneState state = store.getComponent(ref, this.gravestoneComponentType);
+        // Freshly placed gravestones have no owner yet, setupGravestone indexes them
+        if (state == null || state.getOwnerUUID() == null) {
+            return;
+        }
+
+        Vector3i pos = state.getBlockPosition();
+        var gravestoneWorld = plugin.getGravestoneWorld(store.getExternalData().getWorld());
+        gravestoneWorld.getIndex().add(state.getOwnerUUID(), pos.x, pos.y, pos.z, state.getDeathTime(),
+                !state.isAllowOthersAccess());
+        // Gravestones that expired while unloaded are handled on the next tick
+        gravestoneWorld.getExpiry().schedule(
+                plugin.getGravestonesConfig(),
+                pos.x, pos.y, pos.z,
+                state.getDeathTime(),
+                state.isAllowOthersAccess()
+        );
+
+        // Nameplates are shown again while players are near, an entity saved with the chunk is stale
+        UUID nameplateUUID = state.getNameplateUUID();
+        if (nameplateUUID != null) {
+            World world = store.getExternalData().getWorld();
+            long packed = PackedPosition.pack(pos.x, pos.y, pos.z);
+            world.execute(() -> gravestoneWorld.getNameplates().removeStale(world, packed, nameplateUUID));
+        }
+    }
+
+    @Override
+    public void onEntityRemove(
+            @Nonnull Ref<ChunkStore> ref,
+            @Nonnull RemoveReason reason,
+            @Nonnull Store<ChunkStore> store,
+            @Nonnull CommandBuffer<ChunkStore> commandBuffer) {
+        GravestoneState state = store.getComponent(ref, this.gravestoneComponentType);
+        if (state == null) {
+            return;
+        }
+
+        Vector3i pos = state.getBlockPosition();
+        var gravestoneWorld = plugin.getGravestoneWorld(store.getExternalData().getWorld());
+        if (reason == RemoveReason.UNLOAD) {
+            // Expiry entries of unloaded gravestones are dropped lazily by the wheel
+            gravestoneWorld.getIndex().markUnloaded(pos.x, pos.y, pos.z);
+        } else {
+            gravestoneWorld.getIndex().remove(pos.x, pos.y, pos.z);
+            gravestoneWorld.getExpiry().cancel(pos.x, pos.y, pos.z);
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.github.grule.gravestones.system;
 
 import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.data.GravestoneCompactor;
+import com.github.grule.gravestones.data.GravestoneSeed;
 import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.event.GravestoneEventType;
+import com.github.grule.gravestones.ledger.LedgerEvent;
+import com.github.grule.gravestones.metrics.CreationFailure;
+import com.github.grule.gravestones.world.GravestoneCreationQueue;
+import com.github.grule.gravestones.world.GravestonePlacement;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.github.grule.gravestones.world.PackedPosition;
+import com.github.grule.gravestones.world.PendingGravestone;
 import com.hypixel.hytale.component.*;
 import com.hypixel.hytale.component.dependency.Dependency;
 import com.hypixel.hytale.component.dependency.Order;
@@ -13,12 +23,11 @@ import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.protocol.GameMode;
 import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.asset.type.gameplay.DeathConfig;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
-import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
-import com.hypixel.hytale.server.core.inventory.container.filter.FilterType;
 import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entity.damage.DeathComponent;
@@ -35,7 +44,6 @@ import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -45,7 +53,7 @@ import java.util.logging.Level;
  * The gravestone stores the player's items and can only be accessed by the
  * owner.
  */
-public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
+public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem implements GravestoneCreationQueue.Creator {
 
     private final Gravestones plugin;
 
@@ -95,9 +103,14 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
             return;
         }
 
+        plugin.getMetrics().recordDeath();
+        var config = plugin.getGravestonesConfig();
+
         // Don't create gravestone for creative mode players
-        if (player.getGameMode() == GameMode.Creative) {
-            plugin.getLogger().at(Level.INFO).log("Gamemode is creative, returning early");
+        if (player.getGameMode() == GameMode.Creative && !config.isCreativeGravestones()) {
+            if (config.isDebugMode()) {
+                plugin.getLogger().at(Level.INFO).log("Gamemode is creative, returning early");
+            }
             return;
         }
 
@@ -106,7 +119,9 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
 
         // Don't create gravestone if no items will be dropped
         if (itemsLost.isEmpty()) {
-            plugin.getLogger().at(Level.INFO).log("No items present, returning early");
+            if (config.isDebugMode()) {
+                plugin.getLogger().at(Level.INFO).log("No items present, returning early");
+            }
             return;
         }
 
@@ -127,33 +142,188 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
         assert headRotationComponent != null;
         Vector3f headRotation = headRotationComponent.getRotation();
 
-        // Store reference data for async operation
-        String playerName = playerRef.getUsername();
-        java.util.UUID playerUUID = uuidComponent.getUuid();
-        long deathTime = System.currentTimeMillis();
+        // Queue the gravestone, it is placed on the world thread within the per-tick creation budget
+        plugin.getGravestoneWorld(world).getCreationQueue().enqueue(new PendingGravestone(
+                x, y, z,
+                itemsLost,
+                playerRef,
+                uuidComponent.getUuid(),
+                playerRef.getUsername(),
+                System.currentTimeMillis(),
+                position.clone().add(0.0F, 1.0F, 0.0F),
+                headRotation.clone(),
+                System.nanoTime()
+        ));
+    }
+
+    /**
+     * Places a queued gravestone and drops whatever could not be stored.
+     * When placing throws before a gravestone holds the items, they are dropped too.
+     * Must be called on the world thread.
+     */
+    @Override
+    public void createGravestone(@Nonnull World world, @Nonnull PendingGravestone pending) {
+        var metrics = plugin.getMetrics();
+        // Only non-empty items end up in the gravestone, partial stacks merged
+        // One page is visible at a time, the rest goes to the overflow pages
+        var seed = new GravestoneSeed(pending.playerUUID(), pending.playerName(), pending.deathTime(),
+                GravestoneCompactor.compact(pending.items()), plugin.getGravestonesConfig().getPageSize());
+        try {
+            this.placeGravestone(world, pending, seed);
+        } catch (RuntimeException e) {
+            if (seed.isConsumed()) {
+                metrics.recordFailure(CreationFailure.EXCEPTION, 0);
+            } else {
+                metrics.recordFailure(CreationFailure.EXCEPTION, seed.getItems().size());
+                try {
+                    this.dropItems(world, pending, seed.getItems());
+                } catch (RuntimeException dropError) {
+                    e.addSuppressed(dropError);
+                }
+            }
+            throw e;
+        } finally {
+            metrics.recordCreationLatency(System.nanoTime() - pending.enqueuedNanos());
+        }
+    }
+
+    private void placeGravestone(@Nonnull World world, @Nonnull PendingGravestone pending, @Nonnull GravestoneSeed seed) {
+        var config = plugin.getGravestonesConfig();
+        var gravestoneWorld = plugin.getGravestoneWorld(world);
+
+        List<ItemStack> items = seed.getItems();
+        short pageSize = config.getPageSize();
+        if (config.isDebugMode()) {
+            int lostStacks = 0;
+            for (ItemStack item : pending.items()) {
+                if (!ItemStack.isEmpty(item)) {
+                    lostStacks++;
+                }
+            }
+            plugin.getLogger().at(Level.INFO).log(
+                    "Compacted %d stacks of %s into %d, saving %d slots and %d overflow stacks",
+                    lostStacks, pending.playerName(), items.size(), lostStacks - items.size(),
+                    Math.max(0, lostStacks - pageSize) - Math.max(0, items.size() - pageSize)
+            );
+        }
 
-        // Execute the item storage asynchronously on the world thread
-        world.execute(() -> {
-            // clamps gravestone between bedrock and top world layers
-            var posY = Math.clamp(y, 3, 319);
+        // clamps gravestone between bedrock and top world layers
+        int deathY = Math.clamp(pending.y(), config.getMinY(), config.getMaxY());
+        if (config.isMergeDeaths() && this.mergeIntoExisting(world, gravestoneWorld, pending, deathY, seed)) {
+            return;
+        }
+
+        // then looks for the nearest spot that doesn't destroy anything or sits in lava or mid-air
+        long target = gravestoneWorld.getPlacement().find(
+                world, gravestoneWorld.getIndex(),
+                pending.x(), deathY, pending.z(),
+                config.getMinY(), config.getMaxY(),
+                config.getPlacementSearchRadius(), config.getPlacementMaxBlocks()
+        );
+
+        if (target == GravestonePlacement.NOT_FOUND) {
+            this.dropItems(world, pending,
+                    this.fail(pending.playerRef(), CreationFailure.NO_FREE_SPACE, pending.items()));
+            return;
+        }
+
+        int x = PackedPosition.x(target);
+        int posY = PackedPosition.y(target);
+        int z = PackedPosition.z(target);
+
+        // Grass and the like give way, nothing else is ever broken for a gravestone
+        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
+        if (chunk == null || !GravestonePlacement.isFree(chunk, x, posY, z)) {
+            this.dropItems(world, pending,
+                    this.fail(pending.playerRef(), CreationFailure.NO_FREE_SPACE, pending.items()));
+            return;
+        }
+        if (chunk.getBlock(x, posY, z) != BlockType.EMPTY_ID) {
             world.breakBlock(x, posY, z, 0);
-            world.setBlock(x, posY, z, "Gravestone");
-
-            var itemsToDrop = setupGravestone(
-                    world, x, posY, z,
-                    itemsLost,
-                    playerRef,
-                    playerUUID,
-                    playerName,
-                    deathTime
+        }
+        GravestoneState.place(world, x, posY, z, seed);
+
+        var itemsToDrop = setupGravestone(world, x, posY, z, seed, pending.playerRef());
+
+        if (!itemsToDrop.isEmpty()) {
+            this.dropItems(world, pending, itemsToDrop);
+        }
+    }
+
+    /**
+     * Adds the items to a locked gravestone of the same player at the death position, or right below it
+     * when the player died standing on it, so repeated deaths at one spot don't break and place blocks.
+     * Returns false when there is no such gravestone.
+     * Must be called on the world thread.
+     */
+    private boolean mergeIntoExisting(
+            @Nonnull World world,
+            @Nonnull GravestoneWorld gravestoneWorld,
+            @Nonnull PendingGravestone pending,
+            int y,
+            @Nonnull GravestoneSeed seed) {
+        var index = gravestoneWorld.getIndex();
+        for (int posY = y; posY >= y - 1; posY--) {
+            long pos = PackedPosition.pack(pending.x(), posY, pending.z());
+            if (!index.isLoaded(pos) || !pending.playerUUID().equals(index.getOwner(pos))) {
+                continue;
+            }
+
+            // Unlocked gravestones are open to everyone, and empty ones are about to break
+            GravestoneState state = GravestoneState.getLoaded(world, pending.x(), posY, pending.z());
+            if (state == null || state.isAllowOthersAccess() || state.isContainerEmpty()
+                    || !pending.playerUUID().equals(state.getOwnerUUID())) {
+                continue;
+            }
+
+            var config = plugin.getGravestonesConfig();
+            List<ItemStack> items = seed.getItems();
+            state.append(items, config.getPageSize(), pending.deathTime());
+            seed.markConsumed();
+            index.add(pending.playerUUID(), pending.x(), posY, pending.z(), pending.deathTime(), true);
+            gravestoneWorld.getExpiry().schedule(config, pending.x(), posY, pending.z(), pending.deathTime(), false);
+            plugin.getMetrics().recordMerged(items.size());
+
+            var ledger = plugin.getLedger();
+            if (ledger != null) {
+                ledger.append(LedgerEvent.CREATED, world.getName(), pending.x(), posY, pending.z(),
+                        pending.playerUUID(), state.getGravestoneUUID(), null, items);
+            }
+            plugin.getEvents().publish(GravestoneEventType.CREATED, world.getName(), pending.x(), posY, pending.z(),
+                    pending.playerUUID(), state.getGravestoneUUID(), null, items);
+
+            pending.playerRef().sendMessage(
+                    Message.translation("gravestones.messages.create_gravestone.success.position")
+                            .param("x", pending.x())
+                            .param("y", posY)
+                            .param("z", pending.z())
+                            .color(new Color(0x0384fc))
             );
+            return true;
+        }
+        return false;
+    }
 
-            // Re-obtain an entity store inside async world context
-            var entityStore = world.getEntityStore().getStore();
-            Holder<EntityStore>[] drops = ItemComponent.generateItemDrops(entityStore, itemsToDrop,
-                    position.clone().add(0.0F, 1.0F, 0.0F), headRotation);
-            entityStore.addEntities(drops, AddReason.SPAWN);
-        });
+    /**
+     * Tells the player why no gravestone was created and returns the items to drop instead.
+     */
+    @Nonnull
+    private List<ItemStack> fail(@Nonnull PlayerRef playerRef, @Nonnull CreationFailure failure,
+                                 @Nonnull List<ItemStack> items) {
+        playerRef.sendMessage(
+                Message.translation("gravestones.messages.create_gravestone.failed")
+                        .param("error", failure.getError())
+                        .color(Color.RED)
+        );
+        plugin.getMetrics().recordFailure(failure, items.size());
+        return items;
+    }
+
+    private void dropItems(@Nonnull World world, @Nonnull PendingGravestone pending, @Nonnull List<ItemStack> items) {
+        var entityStore = world.getEntityStore().getStore();
+        Holder<EntityStore>[] drops = ItemComponent.generateItemDrops(entityStore, items,
+                pending.dropPosition(), pending.dropRotation());
+        entityStore.addEntities(drops, AddReason.SPAWN);
     }
 
     // some code taken from DeathSystems.DropPlayerDeathItems.onComponentAdded
@@ -164,7 +334,7 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
 
         assert playerComponent != null;
 
-        if (playerComponent.getGameMode() == GameMode.Creative) {
+        if (playerComponent.getGameMode() == GameMode.Creative && !plugin.getGravestonesConfig().isCreativeGravestones()) {
             return List.of();
         }
 
@@ -196,6 +366,7 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
                         }
                     }
                 }
+                break;
             case NONE:
                 break;
         }
@@ -208,34 +379,25 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
     }
 
     /**
-     * Sets up the gravestone with items and owner information.
+     * Registers a freshly placed gravestone and notifies its owner.
      * Must be called on the world thread.
-     * Returns items that failed to get stored.
+     * Returns items that failed to get stored, which only happens when placing failed.
      */
     @SuppressWarnings("removal") // Acknowledging BlockStateModule deprecation
     private List<ItemStack> setupGravestone(
             World world,
             int x, int y, int z,
-            List<ItemStack> items,
-            PlayerRef playerRef,
-            java.util.UUID playerUUID,
-            String playerName,
-            long deathTime) {
-        var errorMsg =
-                Message.translation("gravestones.messages.create_gravestone.failed")
-                        .color(Color.RED);
-
+            GravestoneSeed seed,
+            PlayerRef playerRef) {
         // Get chunk and block reference
         WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
         if (chunk == null) {
-            playerRef.sendMessage(errorMsg.param("error", "chunk not found"));
-            return items;
+            return this.fail(playerRef, CreationFailure.CHUNK_NOT_FOUND, seed.getItems());
         }
 
         Ref<ChunkStore> blockRef = chunk.getBlockComponentEntity(x, y, z);
         if (blockRef == null) {
-            playerRef.sendMessage(errorMsg.param("error", "block not found"));
-            return items;
+            return this.fail(playerRef, CreationFailure.BLOCK_NOT_FOUND, seed.getItems());
         }
 
         // Get chunk store
@@ -246,82 +408,40 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
                 .getComponentType(GravestoneState.class);
 
         if (gravestoneComponentType == null) {
-            playerRef.sendMessage(errorMsg.param("error", "component not found"));
-            return items;
+            return this.fail(playerRef, CreationFailure.COMPONENT_NOT_FOUND, seed.getItems());
         }
 
         // Get the gravestone component
         GravestoneState gravestoneState = chunkStore.getComponent(blockRef, gravestoneComponentType);
 
         if (gravestoneState == null) {
-            playerRef.sendMessage(errorMsg.param("error", "not a gravestone block"));
-            return items;
+            return this.fail(playerRef, CreationFailure.NOT_A_GRAVESTONE, seed.getItems());
         }
 
-        // nameplate spawning logic, needs more testing
-        // var holder = EntityStore.REGISTRY.newHolder();
-        // var projectileComponent = new ProjectileComponent("Projectile");
-        // holder.putComponent(ProjectileComponent.getComponentType(),
-        // projectileComponent);
-        // holder.putComponent(TransformComponent.getComponentType(), new
-        // TransformComponent(new Vector3d(x + 0.5, y + 1, z + 0.5), Vector3f.ZERO));
-        // holder.ensureComponent(UUIDComponent.getComponentType());
-        // if (projectileComponent.getProjectile() == null) {
-        // projectileComponent.initialize();
-        // }
-        // holder.addComponent(NetworkId.getComponentType(), new
-        // NetworkId(world.getEntityStore().getStore().getExternalData().takeNextNetworkId()));
-        // holder.addComponent(Nameplate.getComponentType(), new Nameplate(playerName +
-        // "'s Gravestone"));
-        // world.getEntityStore().getStore().addEntity(holder, AddReason.SPAWN);
-        // var uuidComponent = holder.getComponent(UUIDComponent.getComponentType());
-        // assert uuidComponent != null;
-
-        // Set owner information
-        gravestoneState.setOwnerUUID(playerUUID);
-        gravestoneState.setOwnerName(playerName);
-        gravestoneState.setDeathTime(deathTime);
-        // gravestoneState.setNameplateUUID(uuidComponent.getUuid());
-
-        // Calculate required capacity (number of non-empty items)
-        int itemCount = 0;
-        for (ItemStack item : items) {
-            if (!ItemStack.isEmpty(item)) {
-                itemCount++;
-            }
+        // Owner, death time and items are already in place when initialize consumed the seed
+        if (!seed.isConsumed()) {
+            return this.fail(playerRef, CreationFailure.CONTAINER_NOT_INITIALIZED, seed.getItems());
         }
 
-        // Max 63 slots, otherwise the UI will overflow the screen
-        gravestoneState.setDynamicCapacity((short) Math.min(63, itemCount));
-
-        // Store items in the gravestone
-        ItemContainer container = gravestoneState.getItemContainer();
-        if (container == null) {
-            playerRef.sendMessage(errorMsg.param("error", "container not initialized"));
-            return items;
-        }
+        // The nameplate is shown by GravestoneNameplates while players are near
 
-        short slot = 0;
-        List<ItemStack> failed = new ArrayList<>();
+        var config = plugin.getGravestonesConfig();
+        var gravestoneWorld = plugin.getGravestoneWorld(world);
+        gravestoneWorld.getIndex().add(seed.getOwnerUUID(), x, y, z, seed.getDeathTime(), true);
+        gravestoneWorld.getExpiry().schedule(config, x, y, z, seed.getDeathTime(), false);
+        plugin.getMetrics().recordCreated(seed.getCapacity(), seed.getItems().size() - seed.getCapacity());
 
-        for (ItemStack item : items) {
-            if (ItemStack.isEmpty(item)) {
-                continue;
-            }
-
-            if (slot >= container.getCapacity()) {
-                failed.add(item);
-                continue;
-            }
-
-            container.addItemStackToSlot(slot++, item);
+        var ledger = plugin.getLedger();
+        if (ledger != null) {
+            ledger.append(LedgerEvent.CREATED, world.getName(), x, y, z, seed.getOwnerUUID(),
+                    gravestoneState.getGravestoneUUID(), null, seed.getItems());
         }
+        plugin.getEvents().publish(GravestoneEventType.CREATED, world.getName(), x, y, z, seed.getOwnerUUID(),
+                gravestoneState.getGravestoneUUID(), null, seed.getItems());
 
-        // CRITICAL: Set container to extraction-only mode
-        // This prevents players from using gravestones as storage chests
-        // This has to be done after the items are already introduced as otherwise
-        // storage of items will fail
-        container.setGlobalFilter(FilterType.ALLOW_OUTPUT_ONLY);
+        // Over the per-player cap, the oldest gravestones make room
+        gravestoneWorld.getEviction().enforce(world, gravestoneWorld, config, seed.getOwnerUUID(),
+                PackedPosition.pack(x, y, z));
 
         playerRef.sendMessage(
                 Message.translation("gravestones.messages.create_gravestone.success.position")
@@ -331,14 +451,7 @@ public class GravestoneDeathSystem extends DeathSystems.OnDeathSystem {
                         .color(new Color(0x0384fc))
         );
 
-        if (!failed.isEmpty()) {
-            playerRef.sendMessage(
-                    Message.translation("gravestones.messages.create_gravestone.success.dropped")
-                            .param("amount", failed.size())
-                            .color(Color.RED)
-            );
-        }
-
-        return failed;
+        // Everything is stored, overflow goes to the gravestone's extra pages
+        return List.of();
     }
 }
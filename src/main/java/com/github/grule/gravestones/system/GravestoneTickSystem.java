@@ -0,0 +1,26 @@
+package com.github.grule.gravestones.system;
+
+import com.github.grule.gravestones.Gravestones;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * System that drives the per-world gravestone runtime once per world tick.
+ */
+public class GravestoneTickSystem extends TickingSystem<EntityStore> {
+
+    private final Gravestones plugin;
+
+    public GravestoneTickSystem() {
+        this.plugin = Gravestones.get();
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        var world = store.getExternalData().getWorld();
+        plugin.getGravestoneWorld(world).tick(world);
+    }
+}
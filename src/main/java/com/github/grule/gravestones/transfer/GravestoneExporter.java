@@ -0,0 +1,242 @@
+package com.github.grule.gravestones.transfer;
+
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.world.GravestoneIndex;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.github.grule.gravestones.world.PackedPosition;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.bson.io.BasicOutputBuffer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes every gravestone the index knows of in a world to a file, see {@link TransferFormat}.
+ * <p>
+ * Chunks are visited one at a time from a snapshot of the indexed chunks, as many as fit the time budget of a tick.
+ * Loaded ones are read right away, unloaded ones are loaded asynchronously, a few at once, and read once they are in.
+ * Each chunk becomes one block that goes to the writer thread, so only the blocks not written yet
+ * are held in memory, the export pauses while they are over {@link #MAX_PENDING_BYTES}.
+ * Chunks loaded for the export unload again as usual.
+ * <p>
+ * The file is written next to its target under a temporary name and only moved into place once the export succeeded,
+ * so a failed or cancelled export leaves an earlier file of the same name as it was.
+ */
+public final class GravestoneExporter extends GravestoneTransfer {
+
+    // Chunks being loaded for the export at once
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final long MAX_PENDING_BYTES = 8L << 20;
+
+    private final long[] chunkIndexes;
+    // Encoded but not written yet, decreased by the writer thread
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    // World thread only
+    private final LongArrayList positions = new LongArrayList();
+    private final List<ItemStack> contents = new ObjectArrayList<>();
+    // Chunks loaded for the export, read before the next ones
+    private final LongArrayFIFOQueue ready = new LongArrayFIFOQueue();
+    private int next;
+    private int inFlight;
+    private int unavailableChunks;
+
+    /**
+     * Creates the temporary file and queues its header.
+     *
+     * @param chunkIndexes chunks to export, from {@link GravestoneIndex#getChunks()}
+     */
+    public GravestoneExporter(@Nonnull Path path, @Nonnull String worldName, @Nonnull long[] chunkIndexes) throws IOException {
+        super(path, FileChannel.open(temporaryPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), "Gravestones-Export");
+        this.chunkIndexes = chunkIndexes;
+
+        var header = new BasicOutputBuffer();
+        header.writeInt32(TransferFormat.MAGIC);
+        header.writeInt32(TransferFormat.VERSION);
+        header.writeString(worldName);
+        header.writeInt64(System.currentTimeMillis());
+        this.write(ByteBuffer.wrap(header.toByteArray()), null);
+    }
+
+    @Override
+    public void step(@Nonnull World world, @Nonnull GravestoneWorld gravestoneWorld, @Nonnull GravestonesConfig config) {
+        if (this.isFinished()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long budgetNanos = config.getTransferBudgetMicros() * 1000L;
+        while (!this.isFailed() && this.pendingBytes.get() < MAX_PENDING_BYTES
+                && System.nanoTime() - start < budgetNanos) {
+            long chunkIndex;
+            if (!this.ready.isEmpty()) {
+                chunkIndex = this.ready.dequeueLong();
+            } else if (this.next < this.chunkIndexes.length) {
+                chunkIndex = this.chunkIndexes[this.next];
+                if (world.getChunkIfLoaded(chunkIndex) == null && this.inFlight >= MAX_IN_FLIGHT) {
+                    break;
+                }
+                this.next++;
+            } else {
+                break;
+            }
+
+            if (world.getChunkIfLoaded(chunkIndex) != null) {
+                this.exportChunk(world, gravestoneWorld.getIndex(), chunkIndex);
+            } else {
+                this.load(world, chunkIndex);
+            }
+        }
+
+        boolean done = this.isFailed() || (this.next == this.chunkIndexes.length && this.ready.isEmpty());
+        if (done && this.inFlight == 0) {
+            var trailer = new BasicOutputBuffer();
+            trailer.writeInt32(0);
+            trailer.writeInt64(this.gravestones);
+            this.finish(ByteBuffer.wrap(trailer.toByteArray()));
+        }
+    }
+
+    /**
+     * Loads an unloaded chunk, it is read on a later step under the budget.
+     */
+    private void load(@Nonnull World world, long chunkIndex) {
+        this.inFlight++;
+        world.getChunkAsync(chunkIndex).whenComplete((chunk, error) -> world.execute(() -> {
+            this.inFlight--;
+            if (error == null && chunk != null) {
+                this.ready.enqueue(chunkIndex);
+            } else {
+                this.unavailableChunks++;
+            }
+        }));
+    }
+
+    /**
+     * Encodes the gravestones of a loaded chunk as one block and queues it.
+     * Must be called on the world thread.
+     */
+    private void exportChunk(@Nonnull World world, @Nonnull GravestoneIndex index, long chunkIndex) {
+        this.positions.clear();
+        index.forEachInChunk(chunkIndex, this.positions::add);
+        if (this.positions.isEmpty()) {
+            return;
+        }
+
+        var block = new BasicOutputBuffer();
+        // Length and count are filled in once known
+        block.writeInt32(0);
+        block.writeInt64(chunkIndex);
+        block.writeInt32(0);
+
+        int count = 0;
+        for (int i = 0; i < this.positions.size(); i++) {
+            long pos = this.positions.getLong(i);
+            int x = PackedPosition.x(pos);
+            int y = PackedPosition.y(pos);
+            int z = PackedPosition.z(pos);
+            GravestoneState state = GravestoneState.getLoaded(world, x, y, z);
+            if (state == null) {
+                // Restored from a snapshot older than its removal
+                index.remove(x, y, z);
+                this.skipped++;
+                continue;
+            }
+            if (state.getOwnerUUID() == null || state.getGravestoneUUID() == null) {
+                this.skipped++;
+                continue;
+            }
+
+            this.contents.clear();
+            state.collectContents(this.contents);
+            // Empty gravestones break on their own
+            if (this.contents.isEmpty()) {
+                continue;
+            }
+
+            block.writeInt32(x);
+            block.writeInt32(y);
+            block.writeInt32(z);
+            TransferFormat.writeUUID(block, state.getOwnerUUID());
+            TransferFormat.writeUUID(block, state.getGravestoneUUID());
+            block.writeInt64(state.getDeathTime());
+            block.write(state.isAllowOthersAccess() ? TransferFormat.FLAG_ALLOW_OTHERS : 0);
+            block.writeString(state.getOwnerName() != null ? state.getOwnerName() : "");
+            block.writeInt32(this.contents.size());
+            for (ItemStack itemStack : this.contents) {
+                TransferFormat.writeItem(block, itemStack);
+            }
+            count++;
+        }
+        this.contents.clear();
+
+        if (count == 0) {
+            return;
+        }
+
+        block.writeInt32(0, block.getPosition() - 4);
+        block.writeInt32(4 + 8, count);
+        this.gravestones += count;
+        this.chunks++;
+
+        int bytes = block.getPosition();
+        this.pendingBytes.addAndGet(bytes);
+        this.write(ByteBuffer.wrap(block.getInternalBuffer(), 0, bytes), () -> this.pendingBytes.addAndGet(-bytes));
+    }
+
+    @Override
+    protected void closed(boolean succeeded) throws IOException {
+        Path temporary = temporaryPath(this.getPath());
+        if (!succeeded) {
+            Files.deleteIfExists(temporary);
+            return;
+        }
+
+        try {
+            Files.move(temporary, this.getPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, this.getPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Nonnull
+    private static Path temporaryPath(@Nonnull Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    @Nonnull
+    @Override
+    public String describe() {
+        Throwable failure = this.getFailure();
+        if (failure != null) {
+            return "Export to " + this.getPath().getFileName() + " stopped after " + this.gravestones
+                    + " gravestones: " + failure.getMessage();
+        }
+
+        String line = "Exported " + this.gravestones + " gravestones from " + this.chunks + " chunks to "
+                + this.getPath().getFileName();
+        if (this.unavailableChunks > 0) {
+            line += ", " + this.unavailableChunks + " of " + this.chunkIndexes.length
+                    + " chunks failed to load and are not covered";
+        }
+        if (this.skipped > 0) {
+            line += ", " + this.skipped + " gravestones were missing";
+        }
+        return line;
+    }
+}
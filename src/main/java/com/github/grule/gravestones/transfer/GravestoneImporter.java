@@ -0,0 +1,335 @@
+package com.github.grule.gravestones.transfer;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.data.GravestoneSeed;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.github.grule.gravestones.event.GravestoneEventType;
+import com.github.grule.gravestones.ledger.LedgerEvent;
+import com.github.grule.gravestones.world.GravestonePlacement;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.github.grule.gravestones.world.PackedPosition;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Recreates the gravestones of an export file, see {@link TransferFormat}.
+ * <p>
+ * The reader thread reads one chunk block ahead of the world thread, which places gravestones
+ * within a time budget per tick, loading unloaded chunks asynchronously first, a few at once.
+ * Only the blocks being placed are held in memory. Gravestones keep their owner, death time, access and UUID, and expire as they
+ * would have. Each one is recorded in the ledger and published as created, as a death's gravestone is. Positions that already hold a gravestone or any other block are skipped, so an import can be run again
+ * and never destroys anything. Grass and other replaceable blocks give way.
+ */
+public final class GravestoneImporter extends GravestoneTransfer {
+
+    // Chunks being loaded for the import at once
+    private static final int MAX_IN_FLIGHT = 4;
+    // Returned by the reader at the end of the file
+    private static final ByteBuffer END = TransferFormat.allocate(0);
+
+    private final String sourceWorld;
+
+    // World thread only
+    private CompletableFuture<ByteBuffer> nextBlock;
+    // Blocks whose chunk was loaded for the import, placed before the next ones
+    private final ArrayDeque<Block> ready = new ArrayDeque<>();
+    @Nullable
+    private Block current;
+    private int inFlight;
+    private boolean ended;
+
+    /**
+     * Opens the file and checks its header, then starts reading ahead.
+     */
+    public GravestoneImporter(@Nonnull Path path) throws IOException {
+        super(path, FileChannel.open(path, StandardOpenOption.READ), "Gravestones-Import");
+
+        try {
+            ByteBuffer header = this.read(4 + 4 + 4);
+            if (header.getInt() != TransferFormat.MAGIC) {
+                throw new IOException("Not a gravestone export");
+            }
+            int version = header.getInt();
+            if (version != TransferFormat.VERSION) {
+                throw new IOException("Unsupported export version " + version);
+            }
+
+            int nameLength = header.getInt();
+            if (nameLength < 1 || nameLength > Short.MAX_VALUE) {
+                throw new IOException("Bad world name length " + nameLength);
+            }
+            this.sourceWorld = new String(this.read(nameLength).array(), 0, nameLength - 1, StandardCharsets.UTF_8);
+            // Export time
+            this.read(8);
+        } catch (IOException e) {
+            this.getChannel().close();
+            this.getIo().shutdown();
+            throw e;
+        }
+
+        this.nextBlock = this.readAhead();
+    }
+
+    /**
+     * Name of the world the file was exported from.
+     */
+    @Nonnull
+    public String getSourceWorld() {
+        return this.sourceWorld;
+    }
+
+    @Override
+    public void step(@Nonnull World world, @Nonnull GravestoneWorld gravestoneWorld, @Nonnull GravestonesConfig config) {
+        if (this.isFinished()) {
+            return;
+        }
+
+        // The chunk may have unloaded since the last step
+        if (this.current != null && world.getChunkIfLoaded(this.current.chunkIndex) == null) {
+            this.load(world, this.current);
+            this.current = null;
+        }
+
+        long start = System.nanoTime();
+        long budgetNanos = config.getTransferBudgetMicros() * 1000L;
+        while (!this.isFailed() && System.nanoTime() - start < budgetNanos) {
+            if (this.current == null) {
+                this.current = this.takeLoaded(world);
+                if (this.current == null) {
+                    break;
+                }
+            }
+
+            this.importGravestone(world, gravestoneWorld, config, this.current);
+            if (this.current.remaining == 0) {
+                if (this.current.placed > 0) {
+                    this.chunks++;
+                }
+                this.current = null;
+            }
+        }
+
+        boolean done = this.isFailed() || (this.ended && this.current == null && this.ready.isEmpty());
+        if (done && this.inFlight == 0) {
+            this.finish(null);
+        }
+    }
+
+    /**
+     * Returns the next block whose chunk is loaded, loading the chunks of the others,
+     * or null if none is available this step.
+     */
+    @Nullable
+    private Block takeLoaded(@Nonnull World world) {
+        while (true) {
+            Block block = this.ready.poll();
+            if (block == null) {
+                block = this.takeRead();
+                if (block == null) {
+                    return null;
+                }
+            }
+
+            if (world.getChunkIfLoaded(block.chunkIndex) != null) {
+                return block;
+            }
+            this.load(world, block);
+        }
+    }
+
+    /**
+     * Returns the block read ahead and starts reading the one after it,
+     * or null while it is still being read, at the end or with too many chunks loading.
+     */
+    @Nullable
+    private Block takeRead() {
+        if (this.ended || this.inFlight >= MAX_IN_FLIGHT || !this.nextBlock.isDone()) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+        try {
+            buffer = this.nextBlock.join();
+        } catch (CompletionException e) {
+            this.fail(e.getCause() != null ? e.getCause() : e);
+            this.ended = true;
+            return null;
+        }
+
+        if (buffer == END) {
+            this.ended = true;
+            return null;
+        }
+
+        this.nextBlock = this.readAhead();
+        return new Block(buffer.getLong(), buffer.getInt(), buffer);
+    }
+
+    /**
+     * Loads the chunk of a block, its gravestones are placed on a later step under the budget.
+     */
+    private void load(@Nonnull World world, @Nonnull Block block) {
+        this.inFlight++;
+        world.getChunkAsync(block.chunkIndex).whenComplete((chunk, error) -> world.execute(() -> {
+            this.inFlight--;
+            if (error == null && chunk != null) {
+                this.ready.add(block);
+            } else {
+                this.skipped += block.remaining;
+            }
+        }));
+    }
+
+    /**
+     * Places the next gravestone of a block whose chunk is loaded.
+     * Must be called on the world thread.
+     */
+    private void importGravestone(
+            @Nonnull World world,
+            @Nonnull GravestoneWorld gravestoneWorld,
+            @Nonnull GravestonesConfig config,
+            @Nonnull Block block) {
+        block.remaining--;
+        ByteBuffer buffer = block.buffer;
+        try {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int z = buffer.getInt();
+            UUID ownerUUID = TransferFormat.readUUID(buffer);
+            UUID gravestoneUUID = TransferFormat.readUUID(buffer);
+            long deathTime = buffer.getLong();
+            boolean allowOthers = (buffer.get() & TransferFormat.FLAG_ALLOW_OTHERS) != 0;
+            String ownerName = TransferFormat.readString(buffer);
+            List<ItemStack> items = TransferFormat.readItems(buffer);
+
+            var index = gravestoneWorld.getIndex();
+            if (items.isEmpty() || index.contains(PackedPosition.pack(x, y, z))) {
+                this.skipped++;
+                return;
+            }
+
+            // Only grass and the like are broken, anything built there since the export stays
+            WorldChunk chunk = world.getChunkIfLoaded(block.chunkIndex);
+            if (chunk == null || !GravestonePlacement.isFree(chunk, x, y, z)) {
+                this.skipped++;
+                return;
+            }
+            if (chunk.getBlock(x, y, z) != BlockType.EMPTY_ID) {
+                world.breakBlock(x, y, z, 0);
+            }
+
+            var seed = new GravestoneSeed(ownerUUID, ownerName, deathTime, items, config.getPageSize());
+            GravestoneState.place(world, x, y, z, seed);
+
+            GravestoneState state = GravestoneState.getLoaded(world, x, y, z);
+            if (state == null || !seed.isConsumed()) {
+                this.skipped++;
+                return;
+            }
+
+            state.setGravestoneUUID(gravestoneUUID);
+            if (allowOthers) {
+                state.setAllowOthersAccess(true);
+            }
+            index.add(ownerUUID, x, y, z, deathTime, !allowOthers);
+            // Gravestones past their time are handled on the next tick
+            gravestoneWorld.getExpiry().schedule(config, x, y, z, deathTime, allowOthers);
+
+            // Recorded like a gravestone made by a death, so its later end has a start in the ledger
+            var plugin = Gravestones.get();
+            var ledger = plugin.getLedger();
+            if (ledger != null) {
+                ledger.append(LedgerEvent.CREATED, world.getName(), x, y, z, ownerUUID, gravestoneUUID, null, seed.getItems());
+            }
+            plugin.getEvents().publish(GravestoneEventType.CREATED, world.getName(), x, y, z, ownerUUID, gravestoneUUID, null,
+                    seed.getItems());
+            this.gravestones++;
+            block.placed++;
+        } catch (IOException | RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * Reads the next chunk block on the reader thread, positioned after its length.
+     */
+    @Nonnull
+    private CompletableFuture<ByteBuffer> readAhead() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                int length = this.read(4).getInt();
+                if (length == 0) {
+                    return END;
+                }
+                if (length < 8 + 4 || length > TransferFormat.MAX_BLOCK_BYTES) {
+                    throw new IOException("Bad chunk block length " + length);
+                }
+                return this.read(length);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, this.getIo());
+    }
+
+    @Nonnull
+    private ByteBuffer read(int bytes) throws IOException {
+        ByteBuffer buffer = TransferFormat.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (this.getChannel().read(buffer) < 0) {
+                throw new EOFException("Export file ends early");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Nonnull
+    @Override
+    public String describe() {
+        Throwable failure = this.getFailure();
+        if (failure != null) {
+            return "Import of " + this.getPath().getFileName() + " stopped after " + this.gravestones
+                    + " gravestones: " + failure.getMessage();
+        }
+
+        String line = "Imported " + this.gravestones + " gravestones of " + this.sourceWorld + " into "
+                + this.chunks + " chunks";
+        if (this.skipped > 0) {
+            line += ", " + this.skipped + " were skipped as their spot was taken or their chunk failed to load";
+        }
+        return line;
+    }
+
+    /**
+     * The gravestones of one chunk, read up to the next one to place.
+     */
+    private static final class Block {
+        private final long chunkIndex;
+        private final ByteBuffer buffer;
+        private int remaining;
+        private int placed;
+
+        private Block(long chunkIndex, int count, @Nonnull ByteBuffer buffer) {
+            this.chunkIndex = chunkIndex;
+            this.remaining = count;
+            this.buffer = buffer;
+        }
+    }
+}
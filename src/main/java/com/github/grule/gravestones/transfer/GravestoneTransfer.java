@@ -0,0 +1,181 @@
+package com.github.grule.gravestones.transfer;
+
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.world.GravestoneWorld;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An export or import of every gravestone in a world, run by {@link GravestoneWorld} within a time budget per tick.
+ * <p>
+ * The file is only read and written on a thread of the transfer's own, in order,
+ * the world thread hands it whole chunk blocks and never waits on it.
+ * At most one transfer runs per world.
+ */
+public abstract class GravestoneTransfer {
+
+    private final Path path;
+    private final FileChannel channel;
+    // Runs the file operations one after another
+    private final ExecutorService io;
+    private final CompletableFuture<GravestoneTransfer> completion = new CompletableFuture<>();
+    @Nullable
+    private volatile Throwable failure;
+
+    // World thread only
+    private boolean finished;
+    protected int gravestones;
+    protected int chunks;
+    protected int skipped;
+
+    protected GravestoneTransfer(@Nonnull Path path, @Nonnull FileChannel channel, @Nonnull String threadName) {
+        this.path = path;
+        this.channel = channel;
+        this.io = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Handles the chunks due this tick.
+     * Must be called on the world thread.
+     */
+    public abstract void step(@Nonnull World world, @Nonnull GravestoneWorld gravestoneWorld, @Nonnull GravestonesConfig config);
+
+    /**
+     * One line telling how the transfer went, for the admin who started it.
+     */
+    @Nonnull
+    public abstract String describe();
+
+    /**
+     * Stops the transfer and closes the file.
+     * Must be called on the world thread.
+     */
+    public void cancel() {
+        if (!this.finished) {
+            this.fail(new CancellationException("Cancelled"));
+            this.finish(null);
+        }
+    }
+
+    /**
+     * Whether nothing is left to do on the world thread, the file may still be closing.
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Completes with this transfer once the file is closed, also when it failed.
+     */
+    @Nonnull
+    public CompletableFuture<GravestoneTransfer> getCompletion() {
+        return this.completion;
+    }
+
+    @Nullable
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    @Nonnull
+    public Path getPath() {
+        return this.path;
+    }
+
+    protected boolean isFailed() {
+        return this.failure != null;
+    }
+
+    protected void fail(@Nonnull Throwable error) {
+        if (this.failure == null) {
+            this.failure = error;
+        }
+    }
+
+    @Nonnull
+    protected FileChannel getChannel() {
+        return this.channel;
+    }
+
+    @Nonnull
+    protected ExecutorService getIo() {
+        return this.io;
+    }
+
+    /**
+     * Queues the buffer to be written after everything queued before it.
+     * Nothing is written once the transfer failed.
+     */
+    protected void write(@Nonnull ByteBuffer buffer, @Nullable Runnable written) {
+        this.io.execute(() -> {
+            try {
+                if (this.failure == null) {
+                    writeFully(this.channel, buffer);
+                }
+            } catch (IOException e) {
+                this.fail(e);
+            } finally {
+                if (written != null) {
+                    written.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the trailer if there is one and nothing failed, then flushes and closes the file
+     * and completes the transfer. Must be called on the world thread, once.
+     */
+    protected void finish(@Nullable ByteBuffer trailer) {
+        this.finished = true;
+        this.io.execute(() -> {
+            try {
+                if (trailer != null && this.failure == null) {
+                    writeFully(this.channel, trailer);
+                    this.channel.force(true);
+                }
+            } catch (IOException e) {
+                this.fail(e);
+            } finally {
+                try {
+                    this.channel.close();
+                } catch (IOException e) {
+                    this.fail(e);
+                }
+                try {
+                    this.closed(this.failure == null);
+                } catch (IOException e) {
+                    this.fail(e);
+                }
+                this.completion.complete(this);
+            }
+        });
+        this.io.shutdown();
+    }
+
+    /**
+     * Called on the file thread once the file is closed, before the transfer completes.
+     */
+    protected void closed(boolean succeeded) throws IOException {
+    }
+
+    private static void writeFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.grule.gravestones.transfer;
+
+import com.hypixel.hytale.codec.EmptyExtraInfo;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.bson.BsonBinaryWriter;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Layout of gravestone export files, shared by {@link GravestoneExporter} and {@link GravestoneImporter}.
+ * <p>
+ * All numbers are little-endian, strings are BSON strings: length (int) including a trailing zero, then UTF-8.
+ * The header is the magic (int), the version (int), the world name and the export time (long).
+ * Then one block per chunk: length (int) of the body, then the body: chunk index (long), gravestone count (int)
+ * and the gravestones. A length of 0 ends the file, followed by the total gravestone count (long).
+ * <p>
+ * Gravestone layout: x, y, z (ints), owner (2 longs), gravestone (2 longs), death time (long),
+ * flags (byte, 1 = open to everyone), owner name, item count (int) and the items as BSON documents,
+ * visible page first and then the overflow pages.
+ */
+final class TransferFormat {
+
+    // "GRVX"
+    static final int MAGIC = 0x47525658;
+    static final int VERSION = 1;
+    // Refuses blocks no real chunk gets near, a corrupt length would allocate that much
+    static final int MAX_BLOCK_BYTES = 64 << 20;
+    static final byte FLAG_ALLOW_OTHERS = 1;
+
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    private TransferFormat() {
+    }
+
+    static void writeUUID(@Nonnull BasicOutputBuffer buffer, @Nonnull UUID uuid) {
+        buffer.writeInt64(uuid.getMostSignificantBits());
+        buffer.writeInt64(uuid.getLeastSignificantBits());
+    }
+
+    static void writeItem(@Nonnull BasicOutputBuffer buffer, @Nonnull ItemStack itemStack) {
+        var document = ItemStack.CODEC.encode(itemStack, EmptyExtraInfo.EMPTY).asDocument();
+        DOCUMENT_CODEC.encode(new BsonBinaryWriter(buffer), document, ENCODER_CONTEXT);
+    }
+
+    @Nonnull
+    static UUID readUUID(@Nonnull ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    @Nonnull
+    static String readString(@Nonnull ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 1 || length > buffer.remaining()) {
+            throw new IOException("Bad string length " + length);
+        }
+
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length - 1, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads the items of a gravestone, decoding each BSON document in place.
+     */
+    @Nonnull
+    static List<ItemStack> readItems(@Nonnull ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Bad item count " + count);
+        }
+
+        List<ItemStack> items = new ObjectArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 5 || length > buffer.remaining()) {
+                throw new IOException("Bad item length " + length);
+            }
+
+            var document = new RawBsonDocument(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            ItemStack itemStack = ItemStack.CODEC.decode(document, EmptyExtraInfo.EMPTY);
+            if (!ItemStack.isEmpty(itemStack)) {
+                items.add(itemStack);
+            }
+        }
+        return items;
+    }
+
+    @Nonnull
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
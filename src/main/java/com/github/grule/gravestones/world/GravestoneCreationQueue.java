@@ -0,0 +1,133 @@
+package com.github.grule.gravestones.world;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+
+import javax.annotation.Nonnull;
+import java.util.logging.Level;
+
+/**
+ * Per-world queue of deaths waiting for their gravestone.
+ * <p>
+ * Deaths are grouped by chunk in order of arrival and drained under a time budget checked after every death,
+ * so a mass death is spread over several ticks instead of hitching one, even when it happens in a single chunk.
+ * Must only be accessed on the world thread.
+ */
+public class GravestoneCreationQueue {
+
+    public interface Creator {
+        /**
+         * Creates the gravestone of a death, or drops its items.
+         * Items that are not stored yet must be dropped as well when this throws.
+         */
+        void createGravestone(@Nonnull World world, @Nonnull PendingGravestone pending);
+    }
+
+    private final Long2ObjectLinkedOpenHashMap<ObjectArrayFIFOQueue<PendingGravestone>> byChunk = new Long2ObjectLinkedOpenHashMap<>();
+    private int depth;
+
+    private long totalEnqueued;
+    private long totalCreated;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    public void enqueue(@Nonnull PendingGravestone pending) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(pending.x(), pending.z());
+        var chunkQueue = this.byChunk.get(chunkIndex);
+        if (chunkQueue == null) {
+            chunkQueue = new ObjectArrayFIFOQueue<>(4);
+            this.byChunk.put(chunkIndex, chunkQueue);
+        }
+
+        chunkQueue.enqueue(pending);
+        this.depth++;
+        this.totalEnqueued++;
+    }
+
+    /**
+     * Creates queued gravestones chunk by chunk until the budget is spent.
+     * A chunk that is not finished stays first and is resumed on the next call, so its work stays grouped.
+     * At least one gravestone is created per call so the queue always makes progress.
+     *
+     * @return the number of gravestones created
+     */
+    public int drain(@Nonnull World world, @Nonnull Creator creator, long budgetNanos) {
+        long start = System.nanoTime();
+        int created = 0;
+
+        while (!this.byChunk.isEmpty()) {
+            var chunkQueue = this.byChunk.get(this.byChunk.firstLongKey());
+            PendingGravestone pending = chunkQueue.dequeue();
+            if (chunkQueue.isEmpty()) {
+                this.byChunk.removeFirst();
+            }
+
+            long waited = System.nanoTime() - pending.enqueuedNanos();
+            this.totalWaitNanos += waited;
+            this.maxWaitNanos = Math.max(this.maxWaitNanos, waited);
+            this.depth--;
+
+            try {
+                creator.createGravestone(world, pending);
+                created++;
+            } catch (RuntimeException e) {
+                // Keep draining, one broken death must not hold back the rest of the queue, the creator dropped its items
+                HytaleLogger.getLogger()
+                        .at(Level.SEVERE)
+                        .withCause(e)
+                        .log("Failed to create gravestone for %s at %d, %d, %d, its items were dropped",
+                                pending.playerName(), pending.x(), pending.y(), pending.z());
+            }
+
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+
+        this.totalCreated += created;
+        return created;
+    }
+
+    public boolean isEmpty() {
+        return this.depth == 0;
+    }
+
+    /**
+     * Amount of deaths waiting for their gravestone.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Wait time of the oldest queued death in nanoseconds, or 0 if the queue is empty.
+     */
+    public long getOldestWaitNanos() {
+        if (this.byChunk.isEmpty()) {
+            return 0;
+        }
+
+        var oldest = this.byChunk.get(this.byChunk.firstLongKey()).first();
+        return System.nanoTime() - oldest.enqueuedNanos();
+    }
+
+    public long getTotalEnqueued() {
+        return this.totalEnqueued;
+    }
+
+    public long getTotalCreated() {
+        return this.totalCreated;
+    }
+
+    public long getAverageWaitNanos() {
+        long dequeued = this.totalEnqueued - this.depth;
+        return dequeued == 0 ? 0 : this.totalWaitNanos / dequeued;
+    }
+
+    public long getMaxWaitNanos() {
+        return this.maxWaitNanos;
+    }
+}
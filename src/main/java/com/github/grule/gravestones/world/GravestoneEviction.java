@@ -0,0 +1,142 @@
+package com.github.grule.gravestones.world;
+
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Keeps the locked gravestones of each player within the configured cap.
+ * <p>
+ * Once a new gravestone goes over the cap, the oldest locked ones are taken from the index
+ * and unlocked there right away, so a second death before the eviction finishes doesn't pick them again.
+ * Gravestones in unloaded chunks are evicted once their chunk has loaded asynchronously.
+ * Must only be used on the world thread.
+ */
+public class GravestoneEviction {
+
+    public enum Policy {
+        /**
+         * The oldest gravestone's items move into the new one and the oldest is removed.
+         */
+        MERGE,
+        /**
+         * Anyone may loot the oldest gravestone, it no longer counts toward the cap.
+         */
+        RELEASE,
+        /**
+         * The oldest gravestone is removed together with its items.
+         */
+        DELETE;
+
+        /**
+         * Name as written in the config, like {@code Merge}.
+         */
+        @Nonnull
+        public String getConfigName() {
+            return this.name().charAt(0) + this.name().substring(1).toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Parses a policy name regardless of case, unknown names fall back to {@link #MERGE}.
+         */
+        @Nonnull
+        public static Policy parse(@Nonnull String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                HytaleLogger.getLogger().at(Level.WARNING).log("Unknown gravestone eviction policy %s, using Merge", name);
+                return MERGE;
+            }
+        }
+    }
+
+    /**
+     * Evicts the oldest locked gravestones of the owner until they are within the cap.
+     * Called right after a new gravestone is indexed.
+     *
+     * @param newest packed position of the new gravestone, merged into and never evicted
+     */
+    public void enforce(
+            @Nonnull World world,
+            @Nonnull GravestoneWorld gravestoneWorld,
+            @Nonnull GravestonesConfig config,
+            @Nonnull UUID owner,
+            long newest) {
+        int max = config.getMaxGravesPerPlayer();
+        if (max <= 0) {
+            return;
+        }
+
+        GravestoneIndex index = gravestoneWorld.getIndex();
+        while (index.countLocked(owner) > max) {
+            long oldest = index.oldestLocked(owner);
+            if (oldest == newest) {
+                return;
+            }
+
+            index.unlock(oldest);
+            Policy policy = config.getEvictionPolicy();
+            if (index.isLoaded(oldest)) {
+                this.evict(world, gravestoneWorld, config, oldest, newest, policy);
+                continue;
+            }
+
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(PackedPosition.x(oldest), PackedPosition.z(oldest));
+            world.getChunkAsync(chunkIndex).whenComplete((chunk, error) -> {
+                if (error != null) {
+                    // Counted again from the next time its chunk loads
+                    HytaleLogger.getLogger().at(Level.WARNING).withCause(error).log("Failed to load gravestone for eviction");
+                    return;
+                }
+                world.execute(() -> this.evict(world, gravestoneWorld, config, oldest, newest, policy));
+            });
+        }
+    }
+
+    private void evict(
+            @Nonnull World world,
+            @Nonnull GravestoneWorld gravestoneWorld,
+            @Nonnull GravestonesConfig config,
+            long pos, long newest,
+            @Nonnull Policy policy) {
+        int x = PackedPosition.x(pos);
+        int y = PackedPosition.y(pos);
+        int z = PackedPosition.z(pos);
+        GravestoneState state = GravestoneState.getLoaded(world, x, y, z);
+        if (state == null) {
+            // Restored from a snapshot older than its removal
+            gravestoneWorld.getIndex().remove(x, y, z);
+            return;
+        }
+
+        if (policy == Policy.MERGE) {
+            GravestoneState target = GravestoneState.getLoaded(
+                    world, PackedPosition.x(newest), PackedPosition.y(newest), PackedPosition.z(newest));
+            // The new gravestone may be gone by the time the chunk loaded, never lose the items
+            if (target == null || target == state) {
+                policy = Policy.RELEASE;
+            } else {
+                target.absorb(state);
+                world.breakBlock(x, y, z, 0);
+                return;
+            }
+        }
+
+        if (policy == Policy.RELEASE) {
+            state.setAllowOthersAccess(true);
+            // Already unlocked by enforce, kept here so the index follows the gravestone whoever releases it
+            gravestoneWorld.getIndex().unlock(pos);
+            gravestoneWorld.getExpiry().schedule(config, x, y, z, state.getDeathTime(), true);
+        } else {
+            state.markExpired();
+            world.breakBlock(x, y, z, 0);
+        }
+    }
+}
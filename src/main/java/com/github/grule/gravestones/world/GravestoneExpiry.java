@@ -0,0 +1,120 @@
+package com.github.grule.gravestones.world;
+
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Drives gravestone expiry from their death time with a single timing wheel per world.
+ * <p>
+ * A gravestone first unlocks (anyone may loot it) and is later removed together with its contents.
+ * Only gravestones in loaded chunks are acted upon; the rest are rescheduled by
+ * {@link #schedule} when their chunk loads again, so expiry never forces a chunk load.
+ */
+public class GravestoneExpiry {
+
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 512;
+
+    private static final byte PHASE_UNLOCK = 1;
+    private static final byte PHASE_REMOVE = 2;
+
+    private final HashedTimingWheel wheel = new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    // Current deadline and phase per scheduled gravestone, wheel entries that don't match are stale
+    private final Long2LongOpenHashMap deadlines = new Long2LongOpenHashMap();
+    private final Long2ByteOpenHashMap phases = new Long2ByteOpenHashMap();
+
+    /**
+     * Schedules the next expiry phase of a gravestone, replacing any previous schedule.
+     * Overdue gravestones are handled on the next tick.
+     */
+    public void schedule(@Nonnull GravestonesConfig config, int x, int y, int z, long deathTime, boolean unlocked) {
+        long pos = PackedPosition.pack(x, y, z);
+
+        byte phase;
+        long deadline;
+        if (config.getUnlockAfterMinutes() > 0 && !unlocked) {
+            phase = PHASE_UNLOCK;
+            deadline = deathTime + config.getUnlockAfterMinutes() * 60_000L;
+        } else if (config.getRemoveAfterMinutes() > 0) {
+            phase = PHASE_REMOVE;
+            deadline = deathTime + config.getRemoveAfterMinutes() * 60_000L;
+        } else {
+            this.cancel(x, y, z);
+            return;
+        }
+
+        this.deadlines.put(pos, deadline);
+        this.phases.put(pos, phase);
+        this.wheel.schedule(pos, deadline);
+    }
+
+    public void cancel(int x, int y, int z) {
+        long pos = PackedPosition.pack(x, y, z);
+        this.deadlines.remove(pos);
+        this.phases.remove(pos);
+    }
+
+    /**
+     * Returns when the next phase of a gravestone is due, or -1 if none is scheduled.
+     */
+    public long getDeadline(long pos) {
+        return this.deadlines.getOrDefault(pos, -1L);
+    }
+
+    /**
+     * Whether the next phase of a gravestone unlocks it rather than removing it.
+     */
+    public boolean isUnlockPending(long pos) {
+        return this.phases.get(pos) == PHASE_UNLOCK;
+    }
+
+    public boolean hasPendingTicks(long now) {
+        return this.wheel.hasPendingTicks(now);
+    }
+
+    /**
+     * Processes due gravestones in one batch. Must be called on the world thread.
+     */
+    public void advance(@Nonnull World world, @Nonnull GravestoneIndex index, @Nonnull GravestonesConfig config, long now) {
+        this.wheel.advance(now, config.getExpiryBatchSize(), (pos, deadline) -> {
+            if (this.deadlines.get(pos) != deadline) {
+                return;
+            }
+
+            byte phase = this.phases.remove(pos);
+            this.deadlines.remove(pos);
+
+            // Unloaded gravestones are picked up again when their chunk loads
+            if (!index.isLoaded(pos)) {
+                return;
+            }
+
+            int x = PackedPosition.x(pos);
+            int y = PackedPosition.y(pos);
+            int z = PackedPosition.z(pos);
+            GravestoneState state = GravestoneState.getLoaded(world, x, y, z);
+            if (state == null) {
+                index.remove(x, y, z);
+                return;
+            }
+
+            if (phase == PHASE_UNLOCK) {
+                state.setAllowOthersAccess(true);
+                index.unlock(pos);
+                this.schedule(config, x, y, z, state.getDeathTime(), true);
+            } else {
+                state.markExpired();
+                world.breakBlock(x, y, z, 0);
+            }
+        });
+    }
+
+    public int size() {
+        return this.deadlines.size();
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.grule.gravestones.world;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongComparator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory index of the gravestones of a single world, keyed by owner and by chunk.
+ * Positions are stored packed (see {@link PackedPosition}) so lookups never touch chunk storage.
+ * <p>
+ * Graves stay indexed while their chunk is unloaded; only their loaded flag changes.
+ * The index is populated as chunks load and kept on disk by {@link GravestoneIndexFile},
+ * so it also knows the graves in chunks that haven't loaded since a restart.
+ * It must only be accessed on the world thread.
+ * <p>
+ * Graves still locked to their owner are also kept per owner in a tree ordered by death time,
+ * so the oldest one is found in O(log n) for the per-player cap.
+ */
+public class GravestoneIndex {
+
+    /**
+     * Returned when there is no such grave.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<UUID, LongSet> byOwner = new Object2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<LongSet> byChunk = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<UUID> owners = new Long2ObjectOpenHashMap<>();
+    private final Long2LongOpenHashMap deathTimes = new Long2LongOpenHashMap();
+    private final LongSet loaded = new LongOpenHashSet();
+    private final Map<UUID, LongSortedSet> lockedByOwner = new Object2ObjectOpenHashMap<>();
+    // Changed since it was last saved
+    private boolean changed;
+
+    // Oldest first, ties broken by position. Death times must not change while a grave is in a tree
+    private final LongComparator byDeathTime = (a, b) -> {
+        int order = Long.compare(this.deathTimes.get(a), this.deathTimes.get(b));
+        return order != 0 ? order : Long.compare(a, b);
+    };
+
+    /**
+     * Adds or refreshes a gravestone and marks it as loaded.
+     *
+     * @param locked whether only the owner may loot it, only locked graves count toward the per-player cap
+     */
+    public void add(@Nonnull UUID owner, int x, int y, int z, long deathTime, boolean locked) {
+        long pos = PackedPosition.pack(x, y, z);
+        this.put(owner, pos, deathTime, locked);
+        this.loaded.add(pos);
+    }
+
+    /**
+     * Adds a gravestone read back from disk, it counts as unloaded until its chunk loads.
+     */
+    public void restore(@Nonnull UUID owner, long pos, long deathTime, boolean locked) {
+        this.put(owner, pos, deathTime, locked);
+    }
+
+    private void put(UUID owner, long pos, long deathTime, boolean locked) {
+        UUID previous = this.owners.put(pos, owner);
+        if (previous != null) {
+            // Refreshed as its chunk loads again
+            if (previous.equals(owner) && this.deathTimes.get(pos) == deathTime && this.isLocked(previous, pos) == locked) {
+                return;
+            }
+
+            // Leave the trees while the previous death time still orders them
+            this.unlock(previous, pos);
+            if (!previous.equals(owner)) {
+                this.removeFromOwner(previous, pos);
+            }
+        }
+
+        this.byOwner.computeIfAbsent(owner, k -> new LongOpenHashSet(4)).add(pos);
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(PackedPosition.x(pos), PackedPosition.z(pos));
+        this.byChunk.computeIfAbsent(chunkIndex, k -> new LongOpenHashSet(4)).add(pos);
+        this.deathTimes.put(pos, deathTime);
+        if (locked) {
+            this.lockedByOwner.computeIfAbsent(owner, k -> new LongRBTreeSet(this.byDeathTime)).add(pos);
+        }
+        this.changed = true;
+    }
+
+    /**
+     * Stops counting a grave toward its owner's cap, once anyone may loot it.
+     */
+    public void unlock(long pos) {
+        UUID owner = this.owners.get(pos);
+        if (owner != null) {
+            this.unlock(owner, pos);
+        }
+    }
+
+    private void unlock(UUID owner, long pos) {
+        LongSortedSet ownerGraves = this.lockedByOwner.get(owner);
+        if (ownerGraves != null && ownerGraves.remove(pos)) {
+            this.changed = true;
+            if (ownerGraves.isEmpty()) {
+                this.lockedByOwner.remove(owner);
+            }
+        }
+    }
+
+    private boolean isLocked(UUID owner, long pos) {
+        LongSortedSet ownerGraves = this.lockedByOwner.get(owner);
+        return ownerGraves != null && ownerGraves.contains(pos);
+    }
+
+    /**
+     * Removes a gravestone that no longer exists.
+     * Returns false if the position was not indexed.
+     */
+    public boolean remove(int x, int y, int z) {
+        long pos = PackedPosition.pack(x, y, z);
+        UUID owner = this.owners.remove(pos);
+        if (owner == null) {
+            return false;
+        }
+
+        this.unlock(owner, pos);
+        this.removeFromOwner(owner, pos);
+
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        LongSet chunkGraves = this.byChunk.get(chunkIndex);
+        if (chunkGraves != null && chunkGraves.remove(pos) && chunkGraves.isEmpty()) {
+            this.byChunk.remove(chunkIndex);
+        }
+
+        this.deathTimes.remove(pos);
+        this.loaded.remove(pos);
+        this.changed = true;
+        return true;
+    }
+
+    /**
+     * Marks a gravestone as unloaded together with its chunk. It stays indexed.
+     */
+    public void markUnloaded(int x, int y, int z) {
+        this.loaded.remove(PackedPosition.pack(x, y, z));
+    }
+
+    private void removeFromOwner(UUID owner, long pos) {
+        LongSet ownerGraves = this.byOwner.get(owner);
+        if (ownerGraves != null && ownerGraves.remove(pos) && ownerGraves.isEmpty()) {
+            this.byOwner.remove(owner);
+        }
+    }
+
+    // ===== QUERIES =====
+
+    /**
+     * Returns the packed positions of all graves owned by the given player.
+     */
+    @Nonnull
+    public long[] getGraves(@Nonnull UUID owner) {
+        LongSet ownerGraves = this.byOwner.get(owner);
+        return ownerGraves == null ? EMPTY : ownerGraves.toLongArray();
+    }
+
+    public int countGraves(@Nonnull UUID owner) {
+        LongSet ownerGraves = this.byOwner.get(owner);
+        return ownerGraves == null ? 0 : ownerGraves.size();
+    }
+
+    /**
+     * Number of graves of the player that only they may loot.
+     */
+    public int countLocked(@Nonnull UUID owner) {
+        LongSortedSet ownerGraves = this.lockedByOwner.get(owner);
+        return ownerGraves == null ? 0 : ownerGraves.size();
+    }
+
+    /**
+     * Returns the locked grave of the player with the earliest death time, or {@link #NONE}.
+     */
+    public long oldestLocked(@Nonnull UUID owner) {
+        LongSortedSet ownerGraves = this.lockedByOwner.get(owner);
+        return ownerGraves == null ? NONE : ownerGraves.firstLong();
+    }
+
+    /**
+     * Returns the indexes of every chunk with a grave in it.
+     */
+    @Nonnull
+    public long[] getChunks() {
+        return this.byChunk.keySet().toLongArray();
+    }
+
+    public void forEachInChunk(long chunkIndex, @Nonnull LongConsumer consumer) {
+        LongSet chunkGraves = this.byChunk.get(chunkIndex);
+        if (chunkGraves != null) {
+            chunkGraves.forEach(consumer);
+        }
+    }
+
+    /**
+     * Visits the packed position of every grave.
+     */
+    public void forEach(@Nonnull LongConsumer consumer) {
+        this.owners.keySet().forEach(consumer);
+    }
+
+    public boolean contains(long pos) {
+        return this.owners.containsKey(pos);
+    }
+
+    @Nullable
+    public UUID getOwner(long pos) {
+        return this.owners.get(pos);
+    }
+
+    /**
+     * Returns the death time of the grave at the given position, or -1 if it is not indexed.
+     */
+    public long getDeathTime(long pos) {
+        return this.deathTimes.getOrDefault(pos, -1L);
+    }
+
+    /**
+     * Whether only the owner may loot the grave, as far as the index knows.
+     */
+    public boolean isLocked(long pos) {
+        UUID owner = this.owners.get(pos);
+        return owner != null && this.isLocked(owner, pos);
+    }
+
+    public boolean isLoaded(long pos) {
+        return this.loaded.contains(pos);
+    }
+
+    public int size() {
+        return this.owners.size();
+    }
+
+    /**
+     * Whether graves were added, changed or removed since {@link #markSaved}.
+     */
+    public boolean isChanged() {
+        return this.changed;
+    }
+
+    public void markSaved() {
+        this.changed = false;
+    }
+
+    public int loadedSize() {
+        return this.loaded.size();
+    }
+
+    public int ownerCount() {
+        return this.byOwner.size();
+    }
+
+    public int chunkCount() {
+        return this.byChunk.size();
+    }
+}
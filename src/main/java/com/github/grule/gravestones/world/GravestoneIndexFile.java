@@ -0,0 +1,178 @@
+package com.github.grule.gravestones.world;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Keeps the {@link GravestoneIndex} of a world on disk, so graves in chunks that haven't loaded
+ * since a restart still count toward the per-player cap and can be retrieved and exported.
+ * <p>
+ * The world thread encodes a snapshot of the index at most every {@link #SAVE_INTERVAL_MILLIS} while it changes,
+ * and once more on shutdown. A thread of the file's own writes it under a temporary name and moves it into place,
+ * so a crash leaves the previous snapshot. Graves removed after that snapshot come back as stale entries,
+ * they are dropped from the index once their chunk is loaded for them and they are not there.
+ * <p>
+ * Layout: magic (int), version (int), tracking since (long), count (int), then per grave:
+ * packed position (long), owner (2 longs), death time (long), locked (byte).
+ */
+public class GravestoneIndexFile {
+
+    private static final int MAGIC = 0x47524958;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int ENTRY_BYTES = 8 + 16 + 8 + 1;
+    private static final long SAVE_INTERVAL_MILLIS = 30_000L;
+
+    private final Path path;
+    // Runs the writes one after another
+    private final ExecutorService io;
+    private long trackingSince;
+
+    // World thread only
+    private long nextSave;
+
+    public GravestoneIndexFile(@Nonnull Path path) {
+        this.path = path;
+        this.io = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Gravestones-Index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Restores the graves of the last snapshot into an empty index.
+     * A missing file starts a new one, an unreadable one is logged and set aside.
+     */
+    public void load(@Nonnull GravestoneIndex index) {
+        this.trackingSince = System.currentTimeMillis();
+
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(this.path));
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            HytaleLogger.getLogger().at(Level.SEVERE).withCause(e).log("Failed to read gravestone index %s", this.path);
+            return;
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a gravestone index of version " + VERSION);
+            }
+
+            long since = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                long pos = buffer.getLong();
+                UUID owner = new UUID(buffer.getLong(), buffer.getLong());
+                long deathTime = buffer.getLong();
+                boolean locked = buffer.get() != 0;
+                index.restore(owner, pos, deathTime, locked);
+            }
+            this.trackingSince = since;
+        } catch (IOException | BufferUnderflowException e) {
+            try {
+                Files.move(this.path, this.path.resolveSibling(this.path.getFileName() + ".bad"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                e.addSuppressed(moveError);
+            }
+            // The graves read before the damage stay, the others are added back as their chunks load
+            HytaleLogger.getLogger().at(Level.SEVERE).withCause(e).log(
+                    "Gravestone index %s is damaged, kept it as %s.bad", this.path, this.path.getFileName());
+        }
+
+        index.markSaved();
+    }
+
+    /**
+     * Saves a snapshot if the index changed and the last one is old enough.
+     * Must be called on the world thread.
+     */
+    public void saveIfDue(@Nonnull GravestoneIndex index, long now) {
+        if (index.isChanged() && now >= this.nextSave) {
+            this.nextSave = now + SAVE_INTERVAL_MILLIS;
+            this.save(index);
+        }
+    }
+
+    /**
+     * Saves a snapshot of the index, the returned future completes once it is on disk.
+     * Must be called on the world thread.
+     */
+    @Nonnull
+    public CompletableFuture<Void> save(@Nonnull GravestoneIndex index) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + index.size() * ENTRY_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(this.trackingSince);
+        buffer.putInt(index.size());
+        index.forEach(pos -> {
+            UUID owner = index.getOwner(pos);
+            buffer.putLong(pos);
+            buffer.putLong(owner.getMostSignificantBits());
+            buffer.putLong(owner.getLeastSignificantBits());
+            buffer.putLong(index.getDeathTime(pos));
+            buffer.put((byte) (index.isLocked(pos) ? 1 : 0));
+        });
+        buffer.flip();
+        index.markSaved();
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                this.write(buffer);
+            } catch (IOException e) {
+                HytaleLogger.getLogger().at(Level.SEVERE).withCause(e).log("Failed to save gravestone index %s", this.path);
+            }
+        }, this.io);
+    }
+
+    private void write(@Nonnull ByteBuffer buffer) throws IOException {
+        Files.createDirectories(this.path.getParent());
+        Path temporary = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lets the queued saves finish, then stops the file thread.
+     */
+    public void close() {
+        this.io.shutdown();
+    }
+
+    /**
+     * When this index started tracking the world. Graves in chunks that haven't loaded since then are not in it.
+     */
+    public long getTrackingSince() {
+        return this.trackingSince;
+    }
+}
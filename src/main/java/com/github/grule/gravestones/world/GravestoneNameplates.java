@@ -0,0 +1,304 @@
+package com.github.grule.gravestones.world;
+
+import com.github.grule.gravestones.GravestonesConfig;
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.entity.nameplate.Nameplate;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.tracker.NetworkId;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Shows a nameplate above the gravestones players are near, and only those.
+ * <p>
+ * Every update collects the loaded gravestones within the nameplate radius of a player from the index,
+ * shows a nameplate for the new ones and hides the rest. Hidden nameplate entities keep their place
+ * with an empty text in a small pool and are moved to the next gravestone that needs one,
+ * so walking through a graveyard doesn't spawn and remove entities all the time.
+ * A pooled entity stays recorded as its last gravestone's nameplate until it is reused, so one that is saved
+ * with its chunk, like when the server stops before the shutdown cleanup runs, is removed when the chunk loads again.
+ * Must only be used on the world thread.
+ */
+public class GravestoneNameplates {
+
+    // Block columns per chunk
+    private static final int CHUNK_SIZE = 32;
+    // Nameplates float above the block
+    private static final double HEIGHT = 1.5;
+
+    private final Long2ObjectOpenHashMap<Shown> shown = new Long2ObjectOpenHashMap<>();
+    private final ObjectArrayList<Shown> pool = new ObjectArrayList<>();
+    // Reused between updates
+    private final LongOpenHashSet wanted = new LongOpenHashSet();
+
+    /**
+     * Shows the nameplates of gravestones near players and hides the others.
+     */
+    public void update(
+            @Nonnull World world,
+            @Nonnull GravestoneIndex index,
+            @Nonnull GravestoneExpiry expiry,
+            @Nonnull GravestonesConfig config,
+            long now) {
+        Store<EntityStore> store = world.getEntityStore().getStore();
+        int radius = config.getNameplateRadius();
+
+        this.wanted.clear();
+        if (radius > 0) {
+            this.collectWanted(store, index, radius);
+        }
+
+        // Hide first, so the freed entities can be reused right away
+        var iterator = this.shown.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            long pos = entry.getLongKey();
+            if (!this.wanted.contains(pos)) {
+                // The fast iterator reuses its entry, read it before removing
+                Shown nameplate = entry.getValue();
+                iterator.remove();
+                this.park(world, store, pos, nameplate, config.getNameplatePoolSize());
+            }
+        }
+
+        var wantedIterator = this.wanted.iterator();
+        while (wantedIterator.hasNext()) {
+            long pos = wantedIterator.nextLong();
+            GravestoneState state = GravestoneState.getLoaded(
+                    world, PackedPosition.x(pos), PackedPosition.y(pos), PackedPosition.z(pos));
+            if (state == null) {
+                continue;
+            }
+
+            String text = text(state, expiry, pos, now);
+            Shown nameplate = this.shown.get(pos);
+            if (nameplate == null || !nameplate.ref.isValid()) {
+                nameplate = this.acquire(world, store, pos, text);
+                this.shown.put(pos, nameplate);
+                state.setNameplateUUID(nameplate.uuid);
+            } else if (!text.equals(nameplate.text)) {
+                setText(store, nameplate, text);
+            }
+        }
+    }
+
+    /**
+     * Removes the nameplate of a gravestone that is being removed, it isn't pooled
+     * as nothing would record the entity anymore.
+     * Returns false if it had none shown by this world.
+     */
+    public boolean discard(@Nonnull World world, long pos) {
+        Shown nameplate = this.shown.remove(pos);
+        if (nameplate == null) {
+            return false;
+        }
+
+        remove(world.getEntityStore().getStore(), nameplate);
+        return true;
+    }
+
+    /**
+     * Removes the nameplate entity a gravestone recorded, unless it is the one shown for it.
+     * Covers entities saved with the chunk by a previous run or before the chunk unloaded.
+     */
+    public void removeStale(@Nonnull World world, long pos, @Nonnull UUID nameplateUUID) {
+        Shown nameplate = this.shown.get(pos);
+        if (nameplate != null && nameplate.ref.isValid() && nameplate.uuid.equals(nameplateUUID)) {
+            return;
+        }
+
+        var ref = world.getEntityRef(nameplateUUID);
+        if (ref != null && ref.isValid()) {
+            world.getEntityStore().getStore().removeEntity(ref, RemoveReason.REMOVE);
+        }
+
+        GravestoneState state = GravestoneState.getLoaded(
+                world, PackedPosition.x(pos), PackedPosition.y(pos), PackedPosition.z(pos));
+        if (state != null && nameplateUUID.equals(state.getNameplateUUID())) {
+            state.setNameplateUUID(null);
+        }
+    }
+
+    /**
+     * Removes every nameplate entity, shown or pooled. Used on shutdown.
+     */
+    public void removeAll(@Nonnull World world) {
+        Store<EntityStore> store = world.getEntityStore().getStore();
+        for (Shown nameplate : this.shown.values()) {
+            remove(store, nameplate);
+        }
+        for (Shown nameplate : this.pool) {
+            remove(store, nameplate);
+        }
+        this.shown.clear();
+        this.pool.clear();
+    }
+
+    /**
+     * Whether there are nameplates that need hiding, even with nameplates turned off.
+     */
+    public boolean hasShown() {
+        return !this.shown.isEmpty();
+    }
+
+    private void collectWanted(@Nonnull Store<EntityStore> store, @Nonnull GravestoneIndex index, int radius) {
+        long radiusSquared = (long) radius * radius;
+        for (PlayerRef playerRef : Universe.get().getPlayers()) {
+            Ref<EntityStore> ref = playerRef.getReference();
+            if (ref == null || !ref.isValid() || ref.getStore() != store) {
+                continue;
+            }
+
+            TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+            if (transform == null) {
+                continue;
+            }
+
+            Vector3d position = transform.getPosition();
+            int px = (int) Math.floor(position.x);
+            int py = (int) Math.floor(position.y);
+            int pz = (int) Math.floor(position.z);
+
+            // Every chunk the radius touches, then the exact distance
+            for (int x = Math.floorDiv(px - radius, CHUNK_SIZE) * CHUNK_SIZE; x <= px + radius; x += CHUNK_SIZE) {
+                for (int z = Math.floorDiv(pz - radius, CHUNK_SIZE) * CHUNK_SIZE; z <= pz + radius; z += CHUNK_SIZE) {
+                    index.forEachInChunk(ChunkUtil.indexChunkFromBlock(x, z), pos -> {
+                        long dx = PackedPosition.x(pos) - px;
+                        long dy = PackedPosition.y(pos) - py;
+                        long dz = PackedPosition.z(pos) - pz;
+                        if (dx * dx + dy * dy + dz * dz <= radiusSquared && index.isLoaded(pos)) {
+                            this.wanted.add(pos);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private Shown acquire(@Nonnull World world, @Nonnull Store<EntityStore> store, long pos, @Nonnull String text) {
+        Vector3d position = new Vector3d(
+                PackedPosition.x(pos) + 0.5, PackedPosition.y(pos) + HEIGHT, PackedPosition.z(pos) + 0.5);
+
+        while (!this.pool.isEmpty()) {
+            Shown nameplate = this.pool.pop();
+            // Pooled entities unload with their chunk
+            if (!nameplate.ref.isValid()) {
+                continue;
+            }
+
+            TransformComponent transform = store.getComponent(nameplate.ref, TransformComponent.getComponentType());
+            if (transform != null) {
+                forget(world, nameplate);
+                nameplate.pos = pos;
+                transform.setPosition(position);
+                setText(store, nameplate, text);
+                return nameplate;
+            }
+        }
+
+        var holder = EntityStore.REGISTRY.newHolder();
+        holder.addComponent(TransformComponent.getComponentType(), new TransformComponent(position, Vector3f.ZERO));
+        holder.ensureComponent(UUIDComponent.getComponentType());
+        holder.addComponent(NetworkId.getComponentType(), new NetworkId(store.getExternalData().takeNextNetworkId()));
+        holder.addComponent(Nameplate.getComponentType(), new Nameplate(text));
+        UUID uuid = holder.getComponent(UUIDComponent.getComponentType()).getUuid();
+
+        return new Shown(store.addEntity(holder, AddReason.SPAWN), uuid, text, pos);
+    }
+
+    /**
+     * Pools the nameplate of a gravestone no player is near, or removes it if the pool is full
+     * or the gravestone is gone. Pooled entities stay recorded in their gravestone.
+     */
+    private void park(@Nonnull World world, @Nonnull Store<EntityStore> store, long pos, @Nonnull Shown nameplate, int poolSize) {
+        // Unloaded with its chunk, the gravestone's record removes it on the next load
+        if (!nameplate.ref.isValid()) {
+            return;
+        }
+
+        GravestoneState state = GravestoneState.getLoaded(
+                world, PackedPosition.x(pos), PackedPosition.y(pos), PackedPosition.z(pos));
+        if (state != null && this.pool.size() < poolSize) {
+            setText(store, nameplate, "");
+            this.pool.push(nameplate);
+            return;
+        }
+
+        forget(world, nameplate);
+        remove(store, nameplate);
+    }
+
+    /**
+     * Clears the record of the gravestone the nameplate was last shown for.
+     */
+    private static void forget(@Nonnull World world, @Nonnull Shown nameplate) {
+        GravestoneState state = GravestoneState.getLoaded(world,
+                PackedPosition.x(nameplate.pos), PackedPosition.y(nameplate.pos), PackedPosition.z(nameplate.pos));
+        if (state != null && nameplate.uuid.equals(state.getNameplateUUID())) {
+            state.setNameplateUUID(null);
+        }
+    }
+
+    private static void setText(@Nonnull Store<EntityStore> store, @Nonnull Shown nameplate, @Nonnull String text) {
+        Nameplate component = store.getComponent(nameplate.ref, Nameplate.getComponentType());
+        if (component != null) {
+            component.setText(text);
+        }
+        nameplate.text = text;
+    }
+
+    private static void remove(@Nonnull Store<EntityStore> store, @Nonnull Shown nameplate) {
+        if (nameplate.ref.isValid()) {
+            store.removeEntity(nameplate.ref, RemoveReason.REMOVE);
+        }
+    }
+
+    @Nonnull
+    private static String text(@Nonnull GravestoneState state, @Nonnull GravestoneExpiry expiry, long pos, long now) {
+        String name = (state.getOwnerName() != null ? state.getOwnerName() : "Someone") + "'s Gravestone";
+        long deadline = expiry.getDeadline(pos);
+        if (deadline < 0) {
+            return name;
+        }
+
+        // Whole minutes, so the text changes at most once a minute
+        long minutes = Math.max(0, (deadline - now + 59_999L) / 60_000L);
+        return expiry.isUnlockPending(pos)
+                ? name + " (unlocks in " + minutes + "m)"
+                : name + " (" + minutes + "m left)";
+    }
+
+    private static final class Shown {
+        private final Ref<EntityStore> ref;
+        private final UUID uuid;
+        @Nullable
+        private String text;
+        // Gravestone it is or was last shown for
+        private long pos;
+
+        private Shown(@Nonnull Ref<EntityStore> ref, @Nonnull UUID uuid, @Nonnull String text, long pos) {
+            this.ref = ref;
+            this.uuid = uuid;
+            this.text = text;
+            this.pos = pos;
+        }
+    }
+}
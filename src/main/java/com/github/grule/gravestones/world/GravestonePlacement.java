@@ -0,0 +1,176 @@
+package com.github.grule.gravestones.world;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.protocol.BlockMaterial;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Finds where a new gravestone can be placed near a death position.
+ * <p>
+ * Breadth-first search over a bounded box around the death position, nearest positions first.
+ * A position is safe when it is free, holds no fluid and stands on a solid block. Free means air,
+ * or a replaceable block such as grass that has no block state.
+ * The queue is a primitive ring buffer and the visited set a bitmap over the box, both reused
+ * between searches, and blocks are read from the chunk they are in, so a search allocates nothing.
+ * Must only be used on the world thread.
+ */
+public class GravestonePlacement {
+
+    /**
+     * Returned when no position could be found.
+     */
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private static final int[] NEIGHBOURS = {
+            0, 1, 0,
+            0, -1, 0,
+            1, 0, 0,
+            -1, 0, 0,
+            0, 0, 1,
+            0, 0, -1
+    };
+
+    private int radius = -1;
+    private int size;
+    private long[] queue;
+    private long[] visited;
+
+    // Chunk of the last block read
+    private long cachedChunkIndex;
+    @Nullable
+    private WorldChunk cachedChunk;
+
+    /**
+     * Searches for the nearest safe position around the death position.
+     * There is no fallback, the caller drops the items when nothing safe is found.
+     *
+     * @param index     gravestones of the world, existing gravestones are never replaced
+     * @param radius    maximum distance from the death position on every axis
+     * @param maxBlocks hard cap on the number of positions examined
+     * @return the packed position, or {@link #NOT_FOUND}
+     */
+    public long find(
+            @Nonnull World world,
+            @Nonnull GravestoneIndex index,
+            int x, int y, int z,
+            int minY, int maxY,
+            int radius, int maxBlocks) {
+        this.ensureCapacity(radius, maxBlocks);
+        Arrays.fill(this.visited, 0L);
+        this.cachedChunk = null;
+
+        int capacity = this.queue.length;
+        int head = 0;
+        int tail = 0;
+        int examined = 0;
+
+        this.markVisited(0, 0, 0);
+        this.queue[tail++ % capacity] = PackedPosition.pack(x, y, z);
+
+        while (head != tail && examined < maxBlocks) {
+            long pos = this.queue[head++ % capacity];
+            int px = PackedPosition.x(pos);
+            int py = PackedPosition.y(pos);
+            int pz = PackedPosition.z(pos);
+            examined++;
+
+            WorldChunk chunk = this.getChunk(world, px, pz);
+            // Never load chunks, positions in unloaded chunks are skipped
+            if (chunk == null) {
+                continue;
+            }
+
+            if (!index.contains(pos) && isFree(chunk, px, py, pz)
+                    && !hasFluid(chunk, px, py, pz) && isSolid(chunk, px, py - 1, pz)) {
+                this.cachedChunk = null;
+                return pos;
+            }
+
+            for (int i = 0; i < NEIGHBOURS.length; i += 3) {
+                int dx = px - x + NEIGHBOURS[i];
+                int dy = py - y + NEIGHBOURS[i + 1];
+                int dz = pz - z + NEIGHBOURS[i + 2];
+                int ny = y + dy;
+                if (Math.abs(dx) > radius || Math.abs(dy) > radius || Math.abs(dz) > radius || ny < minY || ny > maxY) {
+                    continue;
+                }
+
+                if (this.markVisited(dx, dy, dz) && tail - head < capacity) {
+                    this.queue[tail++ % capacity] = PackedPosition.pack(x + dx, ny, z + dz);
+                }
+            }
+        }
+
+        this.cachedChunk = null;
+        return NOT_FOUND;
+    }
+
+    /**
+     * Whether a gravestone may take the position, it is air or a replaceable block without a block state.
+     * Replaceable blocks are broken before the gravestone is placed.
+     */
+    public static boolean isFree(@Nonnull WorldChunk chunk, int x, int y, int z) {
+        int blockId = chunk.getBlock(x, y, z);
+        if (blockId == BlockType.EMPTY_ID) {
+            return true;
+        }
+
+        BlockType blockType = BlockType.getAssetMap().getAsset(blockId);
+        return blockType != null && blockType.getMaterial() == BlockMaterial.Empty
+                && chunk.getBlockComponentEntity(x, y, z) == null;
+    }
+
+    private void ensureCapacity(int radius, int maxBlocks) {
+        // Every examined position queues at most 6 neighbours
+        int queueCapacity = Math.min((radius * 2 + 1) * (radius * 2 + 1) * (radius * 2 + 1), maxBlocks * 6 + 1);
+        if (this.radius == radius && this.queue.length == queueCapacity) {
+            return;
+        }
+
+        this.radius = radius;
+        this.size = radius * 2 + 1;
+        this.queue = new long[queueCapacity];
+        this.visited = new long[(this.size * this.size * this.size + 63) >>> 6];
+    }
+
+    /**
+     * Marks a position relative to the death position as visited.
+     * Returns false if it already was.
+     */
+    private boolean markVisited(int dx, int dy, int dz) {
+        int bit = ((dx + this.radius) * this.size + (dy + this.radius)) * this.size + (dz + this.radius);
+        long mask = 1L << bit;
+        int word = bit >>> 6;
+        if ((this.visited[word] & mask) != 0) {
+            return false;
+        }
+
+        this.visited[word] |= mask;
+        return true;
+    }
+
+    @Nullable
+    private WorldChunk getChunk(@Nonnull World world, int x, int z) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        if (this.cachedChunk == null || this.cachedChunkIndex != chunkIndex) {
+            this.cachedChunk = world.getChunkIfLoaded(chunkIndex);
+            this.cachedChunkIndex = chunkIndex;
+        }
+        return this.cachedChunk;
+    }
+
+    private static boolean isSolid(@Nonnull WorldChunk chunk, int x, int y, int z) {
+        BlockType blockType = BlockType.getAssetMap().getAsset(chunk.getBlock(x, y, z));
+        return blockType != null && blockType.getMaterial() == BlockMaterial.Solid;
+    }
+
+    private static boolean hasFluid(@Nonnull WorldChunk chunk, int x, int y, int z) {
+        return chunk.getFluidId(x, y, z) != 0;
+    }
+}
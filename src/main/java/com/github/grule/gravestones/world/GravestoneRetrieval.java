@@ -0,0 +1,142 @@
+package com.github.grule.gravestones.world;
+
+import com.github.grule.gravestones.data.GravestoneState;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.Color;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves the contents of a gravestone into a player's inventory wherever the gravestone is.
+ * <p>
+ * The chunk holding the gravestone is loaded asynchronously with a timeout, the transfer
+ * then runs as a task on the world thread, so the world thread never waits on chunk loading.
+ * Only one retrieval per gravestone runs at a time.
+ * Must only be used on the world thread.
+ */
+public class GravestoneRetrieval {
+
+    public enum Result {
+        STARTED,
+        NOT_FOUND,
+        IN_PROGRESS
+    }
+
+    // Gravestones whose chunk is being loaded for a retrieval
+    private final LongSet inFlight = new LongOpenHashSet();
+
+    /**
+     * Starts moving the newest gravestone of the owner into the requester's inventory.
+     * The requester is messaged once it is done. Access is checked again once the gravestone is loaded.
+     */
+    @Nonnull
+    public Result retrieve(
+            @Nonnull World world,
+            @Nonnull GravestoneIndex index,
+            @Nonnull PlayerRef requester,
+            @Nonnull UUID ownerUUID,
+            long timeoutMillis) {
+        long pos = newest(index, ownerUUID);
+        if (pos == GravestoneIndex.NONE) {
+            return Result.NOT_FOUND;
+        }
+
+        if (!this.inFlight.add(pos)) {
+            return Result.IN_PROGRESS;
+        }
+
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(PackedPosition.x(pos), PackedPosition.z(pos));
+        // The chunk future is shared with other loads of the chunk, so the timeout goes on a copy
+        world.getChunkAsync(chunkIndex).copy()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((chunk, error) -> world.execute(() -> this.finish(world, index, requester, pos, error)));
+        return Result.STARTED;
+    }
+
+    public boolean isInFlight(long pos) {
+        return this.inFlight.contains(pos);
+    }
+
+    private void finish(
+            @Nonnull World world,
+            @Nonnull GravestoneIndex index,
+            @Nonnull PlayerRef requester,
+            long pos,
+            @Nullable Throwable error) {
+        this.inFlight.remove(pos);
+
+        if (error != null) {
+            requester.sendMessage(Message.translation(error instanceof TimeoutException
+                    ? "gravestones.messages.retrieve.timed_out"
+                    : "gravestones.messages.retrieve.load_failed").color(Color.RED));
+            return;
+        }
+
+        // The requester may have left or changed worlds while the chunk was loading
+        Ref<EntityStore> ref = requester.getReference();
+        var store = world.getEntityStore().getStore();
+        if (ref == null || !ref.isValid() || ref.getStore() != store) {
+            return;
+        }
+
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) {
+            return;
+        }
+
+        int x = PackedPosition.x(pos);
+        int y = PackedPosition.y(pos);
+        int z = PackedPosition.z(pos);
+        GravestoneState gravestone = GravestoneState.getLoaded(world, x, y, z);
+        if (gravestone == null) {
+            // Restored from a snapshot older than its removal
+            index.remove(x, y, z);
+            requester.sendMessage(Message.translation("gravestones.messages.retrieve.gone").color(Color.RED));
+            return;
+        }
+
+        if (!gravestone.isAccessibleBy(requester.getUuid())) {
+            requester.sendMessage(Message.translation("gravestones.messages.access.not_owner").color(Color.RED));
+            return;
+        }
+
+        int moved = gravestone.transferTo(player.getInventory().getCombinedEverything(), requester.getUuid());
+        if (gravestone.isContainerEmpty()) {
+            requester.sendMessage(position(Message.translation("gravestones.messages.retrieve.success"), x, y, z));
+        } else if (moved > 0) {
+            requester.sendMessage(position(Message.translation("gravestones.messages.retrieve.partial"), x, y, z));
+        } else {
+            requester.sendMessage(Message.translation("gravestones.messages.retrieve.inventory_full").color(Color.RED));
+        }
+    }
+
+    @Nonnull
+    private static Message position(@Nonnull Message message, int x, int y, int z) {
+        return message.param("x", x).param("y", y).param("z", z);
+    }
+
+    private static long newest(@Nonnull GravestoneIndex index, @Nonnull UUID ownerUUID) {
+        long newest = GravestoneIndex.NONE;
+        long newestTime = Long.MIN_VALUE;
+        for (long pos : index.getGraves(ownerUUID)) {
+            long deathTime = index.getDeathTime(pos);
+            if (deathTime > newestTime) {
+                newest = pos;
+                newestTime = deathTime;
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.grule.gravestones.world;
+
+import com.github.grule.gravestones.Gravestones;
+import com.github.grule.gravestones.transfer.GravestoneTransfer;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-world runtime state of the gravestones plugin.
+ * Everything in here is owned by the world thread.
+ */
+public class GravestoneWorld {
+
+    private final String worldName;
+    private final GravestoneIndex index = new GravestoneIndex();
+    private final GravestoneIndexFile indexFile;
+    private final GravestoneExpiry expiry = new GravestoneExpiry();
+    private final GravestoneCreationQueue creationQueue = new GravestoneCreationQueue();
+    private final GravestonePlacement placement = new GravestonePlacement();
+    private final GravestoneRetrieval retrieval = new GravestoneRetrieval();
+    private final GravestoneEviction eviction = new GravestoneEviction();
+    private final GravestoneNameplates nameplates = new GravestoneNameplates();
+
+    private static final long NAMEPLATE_INTERVAL_MILLIS = 1000L;
+
+    private boolean tickScheduled;
+    private long nextNameplateUpdate;
+    // Export or import in progress
+    @Nullable
+    private GravestoneTransfer transfer;
+
+    // Published every tick for readers on other threads
+    private volatile int liveGraves;
+    private volatile int loadedGraves;
+    private volatile int queuedDeaths;
+
+    /**
+     * Restores the index saved in the given directory.
+     */
+    public GravestoneWorld(@Nonnull String worldName, @Nonnull Path indexDirectory) {
+        this.worldName = worldName;
+        this.indexFile = new GravestoneIndexFile(indexDirectory.resolve(worldName + ".idx"));
+        this.indexFile.load(this.index);
+    }
+
+    /**
+     * Called once per world tick. Schedules at most one task on the world
+     * to process whatever work is due.
+     */
+    public void tick(@Nonnull World world) {
+        this.liveGraves = this.index.size();
+        this.loadedGraves = this.index.loadedSize();
+        this.queuedDeaths = this.creationQueue.getDepth();
+
+        if (this.tickScheduled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        this.indexFile.saveIfDue(this.index, now);
+
+        boolean nameplatesDue = now >= this.nextNameplateUpdate
+                && (Gravestones.get().getGravestonesConfig().getNameplateRadius() > 0 || this.nameplates.hasShown());
+        if (this.creationQueue.isEmpty() && !this.expiry.hasPendingTicks(now) && !nameplatesDue
+                && this.transfer == null) {
+            return;
+        }
+
+        this.tickScheduled = true;
+        world.execute(() -> {
+            this.tickScheduled = false;
+            var plugin = Gravestones.get();
+            var config = plugin.getGravestonesConfig();
+            if (!this.creationQueue.isEmpty()) {
+                this.creationQueue.drain(world, plugin.getDeathSystem(), config.getCreationBudgetMicros() * 1000L);
+            }
+
+            long currentTime = System.currentTimeMillis();
+            this.expiry.advance(world, this.index, config, currentTime);
+
+            if (nameplatesDue) {
+                this.nextNameplateUpdate = currentTime + NAMEPLATE_INTERVAL_MILLIS;
+                this.nameplates.update(world, this.index, this.expiry, config, currentTime);
+            }
+
+            if (this.transfer != null) {
+                this.transfer.step(world, this, config);
+                if (this.transfer.isFinished()) {
+                    this.transfer = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Whether an export or import is running.
+     * Must be called on the world thread.
+     */
+    public boolean isTransferRunning() {
+        return this.transfer != null;
+    }
+
+    /**
+     * Starts running an export or import, a little every tick.
+     * Returns false if one is running already, the new one is left untouched.
+     * Must be called on the world thread.
+     */
+    public boolean startTransfer(@Nonnull GravestoneTransfer transfer) {
+        if (this.transfer != null) {
+            return false;
+        }
+
+        this.transfer = transfer;
+        return true;
+    }
+
+    /**
+     * Stops the running export or import, used on shutdown.
+     * The returned future completes once it is stopped.
+     */
+    @Nonnull
+    public CompletableFuture<Void> cancelTransfer(@Nonnull World world) {
+        return CompletableFuture.runAsync(() -> {
+            if (this.transfer != null) {
+                this.transfer.cancel();
+                this.transfer = null;
+            }
+        }, world);
+    }
+
+    /**
+     * Places every queued gravestone regardless of the tick budget, used on shutdown
+     * so queued items are not lost. The returned future completes once they are placed.
+     */
+    @Nonnull
+    public CompletableFuture<Void> flush(@Nonnull World world) {
+        return CompletableFuture.runAsync(
+                () -> this.creationQueue.drain(world, Gravestones.get().getDeathSystem(), Long.MAX_VALUE), world);
+    }
+
+    /**
+     * Saves the index one last time and stops its file thread, used on shutdown.
+     * The returned future completes once the index is on disk.
+     */
+    @Nonnull
+    public CompletableFuture<Void> saveIndex(@Nonnull World world) {
+        return CompletableFuture.supplyAsync(() -> this.indexFile.save(this.index), world)
+                .thenCompose(saved -> saved)
+                .whenComplete((ignored, error) -> this.indexFile.close());
+    }
+
+    /**
+     * Removes every nameplate entity of this world, used on shutdown.
+     * The returned future completes once they are removed. Entities left behind when the shutdown
+     * stops waiting are recorded in their gravestone and removed when its chunk loads.
+     */
+    @Nonnull
+    public CompletableFuture<Void> removeNameplates(@Nonnull World world) {
+        return CompletableFuture.runAsync(() -> this.nameplates.removeAll(world), world);
+    }
+
+    @Nonnull
+    public String getWorldName() {
+        return this.worldName;
+    }
+
+    /**
+     * Gravestones known in this world as of the last tick, loaded or not.
+     * Safe to call from any thread.
+     */
+    public int getLiveGraves() {
+        return this.liveGraves;
+    }
+
+    /**
+     * Gravestones in loaded chunks as of the last tick.
+     * Safe to call from any thread.
+     */
+    public int getLoadedGraves() {
+        return this.loadedGraves;
+    }
+
+    /**
+     * Deaths waiting for their gravestone as of the last tick.
+     * Safe to call from any thread.
+     */
+    public int getQueuedDeaths() {
+        return this.queuedDeaths;
+    }
+
+    @Nonnull
+    public GravestoneIndex getIndex() {
+        return this.index;
+    }
+
+    @Nonnull
+    public GravestoneIndexFile getIndexFile() {
+        return this.indexFile;
+    }
+
+    @Nonnull
+    public GravestoneExpiry getExpiry() {
+        return this.expiry;
+    }
+
+    @Nonnull
+    public GravestoneCreationQueue getCreationQueue() {
+        return this.creationQueue;
+    }
+
+    @Nonnull
+    public GravestonePlacement getPlacement() {
+        return this.placement;
+    }
+
+    @Nonnull
+    public GravestoneRetrieval getRetrieval() {
+        return this.retrieval;
+    }
+
+    @Nonnull
+    public GravestoneEviction getEviction() {
+        return this.eviction;
+    }
+
+    @Nonnull
+    public GravestoneNameplates getNameplates() {
+        return this.nameplates;
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.grule.gravestones.world;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timing wheel over primitive (key, deadline) pairs.
+ * <p>
+ * Every bucket covers one tick of {@code tickMillis}, an entry goes into the bucket of the
+ * first tick boundary at or after its deadline, so it is due whenever its bucket is visited
+ * and fires at most one tick late. Deadlines further away than one revolution simply stay in
+ * their bucket until a later pass finds them due.
+ * Not thread safe, owned by the world thread.
+ */
+public class HashedTimingWheel {
+
+    public interface DueHandler {
+        void onDue(long key, long deadline);
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final long[][] keys;
+    private final long[][] deadlines;
+    private final int[] sizes;
+    // Last tick whose bucket has been fully processed
+    private long currentTick;
+    private int size;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.keys = new long[wheelSize][];
+        this.deadlines = new long[wheelSize][];
+        this.sizes = new int[wheelSize];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key. Deadlines in the past are handled on the next advance.
+     */
+    public void schedule(long key, long deadline) {
+        long tick = Math.max(Math.ceilDiv(deadline, this.tickMillis), this.currentTick + 1);
+        int bucket = (int) (tick & this.mask);
+
+        int bucketSize = this.sizes[bucket];
+        long[] bucketKeys = this.keys[bucket];
+        if (bucketKeys == null) {
+            bucketKeys = this.keys[bucket] = new long[4];
+            this.deadlines[bucket] = new long[4];
+        } else if (bucketSize == bucketKeys.length) {
+            bucketKeys = this.keys[bucket] = Arrays.copyOf(bucketKeys, bucketSize << 1);
+            this.deadlines[bucket] = Arrays.copyOf(this.deadlines[bucket], bucketSize << 1);
+        }
+
+        bucketKeys[bucketSize] = key;
+        this.deadlines[bucket][bucketSize] = deadline;
+        this.sizes[bucket] = bucketSize + 1;
+        this.size++;
+    }
+
+    /**
+     * Returns true if an {@link #advance} at the given time has buckets to visit.
+     */
+    public boolean hasPendingTicks(long now) {
+        return this.size > 0 && now / this.tickMillis > this.currentTick;
+    }
+
+    /**
+     * Visits every bucket up to the given time and hands at most {@code maxEntries}
+     * due entries to the handler. When the batch is exhausted, the wheel resumes
+     * from the same bucket on the next call.
+     *
+     * @return the number of entries handed to the handler
+     */
+    public int advance(long now, int maxEntries, DueHandler handler) {
+        long nowTick = now / this.tickMillis;
+        // One revolution visits every bucket, there is no point in walking more
+        if (nowTick - this.currentTick > this.mask + 1) {
+            this.currentTick = nowTick - this.mask - 1;
+        }
+
+        int processed = 0;
+        while (this.currentTick < nowTick) {
+            int bucket = (int) ((this.currentTick + 1) & this.mask);
+            processed += this.expireBucket(bucket, now, maxEntries - processed, handler);
+            if (processed >= maxEntries) {
+                return processed;
+            }
+
+            this.currentTick++;
+        }
+
+        return processed;
+    }
+
+    private int expireBucket(int bucket, long now, int budget, DueHandler handler) {
+        int processed = 0;
+        int i = 0;
+        while (i < this.sizes[bucket]) {
+            long deadline = this.deadlines[bucket][i];
+            if (deadline > now) {
+                i++;
+                continue;
+            }
+
+            if (processed >= budget) {
+                break;
+            }
+
+            long key = this.keys[bucket][i];
+            // Swap-remove before calling the handler, it may schedule into this bucket again
+            int last = --this.sizes[bucket];
+            this.keys[bucket][i] = this.keys[bucket][last];
+            this.deadlines[bucket][i] = this.deadlines[bucket][last];
+            this.size--;
+
+            handler.onDue(key, deadline);
+            processed++;
+        }
+
+        return processed;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
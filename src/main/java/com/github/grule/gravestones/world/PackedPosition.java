@@ -0,0 +1,31 @@
+package com.github.grule.gravestones.world;
+
+/**
+ * Packs block coordinates into a single long so positions can be stored in
+ * primitive collections instead of boxed vectors.
+ * <p>
+ * Layout: 26 bits X, 26 bits Z, 12 bits Y, all signed.
+ */
+public final class PackedPosition {
+
+    private PackedPosition() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38)
+                | ((long) (z & 0x3FFFFFF) << 12)
+                | (long) (y & 0xFFF);
+    }
+
+    public static int x(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int y(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int z(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+}
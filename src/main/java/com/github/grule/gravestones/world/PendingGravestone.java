@@ -0,0 +1,35 @@
+package com.github.grule.gravestones.world;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A death waiting in the {@link GravestoneCreationQueue}.
+ * Owns the lost items until the gravestone is placed.
+ *
+ * @param x             block X of the death position
+ * @param y             block Y of the death position, not clamped yet
+ * @param z             block Z of the death position
+ * @param items         items taken from the player, stored in the gravestone
+ * @param dropPosition  where items that could not be stored are dropped
+ * @param dropRotation  rotation of the dropped item entities
+ * @param enqueuedNanos {@link System#nanoTime()} at enqueue time
+ */
+public record PendingGravestone(
+        int x, int y, int z,
+        @Nonnull List<ItemStack> items,
+        @Nonnull PlayerRef playerRef,
+        @Nonnull UUID playerUUID,
+        @Nonnull String playerName,
+        long deathTime,
+        @Nonnull Vector3d dropPosition,
+        @Nonnull Vector3f dropRotation,
+        long enqueuedNanos
+) {
+}
@@ -0,0 +1,77 @@
+package com.github.grule.gravestones.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private static final long TICK = 1000L;
+    private static final int WHEEL_SIZE = 512;
+    private static final long START = 1_700_000_000_123L;
+    private static final long STEP = 50L;
+    // Time only moves in steps, so a deadline may be seen up to one step after its tick
+    private static final long LATEST = TICK + STEP;
+
+    @Test
+    void firesWithinOneTickOfAnOffTickDeadline() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, WHEEL_SIZE, START);
+        Map<Long, Long> deadlines = new HashMap<>();
+        long key = 0;
+        for (int k = 0; k < 4; k++) {
+            for (long offset : new long[]{1L, 250L, 500L, 900L, 999L}) {
+                long deadline = START + k * TICK + offset;
+                wheel.schedule(key, deadline);
+                deadlines.put(key++, deadline);
+            }
+        }
+
+        Map<Long, Long> firedAt = runUntil(wheel, START + 10 * TICK);
+        assertEquals(deadlines.size(), firedAt.size());
+        deadlines.forEach((scheduled, deadline) -> {
+            long firedTime = firedAt.get(scheduled);
+            assertTrue(firedTime >= deadline, "fired early: " + deadline + " at " + firedTime);
+            assertTrue(firedTime < deadline + LATEST, "fired late: " + deadline + " at " + firedTime);
+        });
+    }
+
+    @Test
+    void keepsDeadlinesBeyondOneRevolutionUntilDue() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, WHEEL_SIZE, START);
+        long deadline = START + (WHEEL_SIZE + 3) * TICK + 400L;
+        wheel.schedule(7L, deadline);
+
+        Map<Long, Long> firedAt = runUntil(wheel, deadline + 2 * TICK);
+        assertEquals(1, firedAt.size());
+        assertTrue(firedAt.get(7L) >= deadline);
+        assertTrue(firedAt.get(7L) < deadline + LATEST);
+    }
+
+    @Test
+    void resumesAfterAnExhaustedBatch() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, WHEEL_SIZE, START);
+        for (long key = 0; key < 10; key++) {
+            wheel.schedule(key, START + TICK / 2);
+        }
+
+        long now = START + 2 * TICK;
+        assertEquals(4, wheel.advance(now, 4, (key, deadline) -> {}));
+        assertEquals(4, wheel.advance(now, 4, (key, deadline) -> {}));
+        assertEquals(2, wheel.advance(now, 4, (key, deadline) -> {}));
+        assertEquals(0, wheel.size());
+    }
+
+    private static Map<Long, Long> runUntil(HashedTimingWheel wheel, long end) {
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= end; now += STEP) {
+            long time = now;
+            wheel.advance(now, Integer.MAX_VALUE, (key, deadline) -> firedAt.put(key, time));
+        }
+
+        return firedAt;
+    }
+}